@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.factory.FormatReader;
+import com.ericsson.mts.asn1.factory.FormatWriter;
+import com.ericsson.mts.asn1.translator.AbstractTranslator;
+
+import java.io.InputStream;
+
+/**
+ * Encoder and decoder of one type, returned by {@link ASN1Translator#codecFor(String)}. The translator is resolved
+ * once, calls don't go through the registry. Can be shared between threads like the ASN1Translator it comes from.
+ */
+public final class ASN1Codec {
+    private final String typeName;
+    private final AbstractTranslator translator;
+    private final AbstractTranslator decoder;
+
+    ASN1Codec(String typeName, AbstractTranslator translator) {
+        this(typeName, translator, translator);
+    }
+
+    /**
+     * @param typeName name of the type
+     * @param translator translator encoding the type
+     * @param decoder translator decoding the type
+     */
+    ASN1Codec(String typeName, AbstractTranslator translator, AbstractTranslator decoder) {
+        this.typeName = typeName;
+        this.translator = translator;
+        this.decoder = decoder;
+    }
+
+    /**
+     * @return translator encoding the type, also decoding it unless the codec has its own decoder
+     */
+    public AbstractTranslator getTranslator() {
+        return translator;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public void encode(BitArray bitArray, FormatReader formatReader) throws Exception {
+        translator.encode(typeName, bitArray, formatReader, null);
+    }
+
+    public void decode(BitInputStream stream, FormatWriter formatWriter) throws Exception {
+        decoder.decode(typeName, stream, formatWriter, null);
+    }
+
+    public void decode(byte[] bytes, FormatWriter formatWriter) throws Exception {
+        decode(new BitInputStream(bytes), formatWriter);
+    }
+
+    public void decode(InputStream stream, FormatWriter formatWriter) throws Exception {
+        decode(new BitInputStream(stream), formatWriter);
+    }
+
+    @Override
+    public String toString() {
+        return "ASN1Codec{" +
+                "typeName='" + typeName + '\'' +
+                '}';
+    }
+}
@@ -10,30 +10,125 @@
 
 package com.ericsson.mts.asn1;
 
+import com.ericsson.mts.asn1.classhandler.ClassObjectSet;
+import com.ericsson.mts.asn1.exception.InvalidParameterException;
+import com.ericsson.mts.asn1.exception.UnknownIdentifierException;
 import com.ericsson.mts.asn1.factory.AbstractTranslatorFactory;
 import com.ericsson.mts.asn1.factory.FormatReader;
 import com.ericsson.mts.asn1.factory.FormatWriter;
 import com.ericsson.mts.asn1.registry.MainRegistry;
+import com.ericsson.mts.asn1.translator.AbstractTranslator;
 import com.ericsson.mts.asn1.visitor.TopLevelVisitor;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * Entry point to encode and decode ASN.1 types.
+ * <p>
+ * Concurrency : once {@link #parseTranslators()} has returned, the translators are immutable and one instance can be
+ * shared by any number of threads calling encode and decode. The state of a message lives in the BitArray,
+ * BitInputStream, FormatReader and FormatWriter given to each call, which must not be shared. Before
+ * parseTranslators(), translators are created lazily and the instance must be used by a single thread.
+ */
 public class ASN1Translator {
-    private Logger logger = LoggerFactory.getLogger(ASN1Translator.class.getSimpleName());
+    private static final Logger logger = LoggerFactory.getLogger(ASN1Translator.class.getSimpleName());
     private MainRegistry registry;
 
     public ASN1Translator(AbstractTranslatorFactory factory, List<InputStream> stream) throws IOException {
         registry = new MainRegistry(factory);
         for (InputStream inputStream : stream) {
-            beginVisit(inputStream);
+            beginVisit(parse(inputStream));
+        }
+    }
+
+    /**
+     * Resolve a type once, the returned codec encodes and decodes it without any registry lookup.
+     *
+     * @param typeName name of the type, for instance S1AP-PDU
+     * @return codec of the type
+     * @throws UnknownIdentifierException if the type isn't defined in the grammar
+     * @throws InvalidParameterException if the type is parameterized
+     */
+    public ASN1Codec codecFor(String typeName) {
+        AbstractTranslator translator = registry.getTranslatorFromName(typeName);
+        if (translator == null) {
+            throw new UnknownIdentifierException(typeName);
+        }
+        if (!translator.getParameters().isEmpty()) {
+            throw new InvalidParameterException("Type " + typeName + " needs parameters " + translator.getParameters());
+        }
+        return new ASN1Codec(typeName, translator);
+    }
+
+    /**
+     * @return sorted names of the types of the grammar which have no parameters, once the translators are parsed
+     */
+    public List<String> getTypeNames() {
+        return registry.getTypeNames();
+    }
+
+    /**
+     * @param identifier name used in the grammar, for instance an actual parameter of a parameterized type
+     * @return true if it names an object set parsed by {@link #parseTranslators()}
+     */
+    public boolean isObjectSet(String identifier) {
+        return registry.getParsed(identifier) instanceof ClassObjectSet;
+    }
+
+    /**
+     * @return estimated heap size in bytes of the parsed translators, constants, classes, objects and object sets
+     */
+    public long getRetainedSize() {
+        return new RetainedSizeEstimator(registry).estimate(registry.getParsed());
+    }
+
+    /**
+     * @param visitor called once with each object walked by {@link #getRetainedSize()}
+     */
+    void visitRetained(Consumer<Object> visitor) {
+        new RetainedSizeEstimator(registry).estimate(registry.getParsed(), visitor);
+    }
+
+    /**
+     * @param typeName name of the type, for instance S1AP-PDU
+     * @return estimated heap size in bytes of the translator of the type and of everything it uses to encode and
+     * decode. What is shared with other types is counted for each of them.
+     * @throws UnknownIdentifierException if the type isn't defined in the grammar
+     */
+    public long getRetainedSize(String typeName) {
+        AbstractTranslator translator = registry.getTranslatorFromName(typeName);
+        if (translator == null) {
+            throw new UnknownIdentifierException(typeName);
         }
+        return new RetainedSizeEstimator(registry).estimate(Collections.singletonList(translator));
+    }
+
+    /**
+     * @return estimated retained size of each type of {@link #getTypeNames()}, see {@link #getRetainedSize(String)}
+     */
+    public Map<String, Long> getRetainedSizes() {
+        RetainedSizeEstimator estimator = new RetainedSizeEstimator(registry);
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        for (String typeName : getTypeNames()) {
+            sizes.put(typeName, estimator.estimate(Collections.singletonList(registry.getTranslatorFromName(typeName))));
+        }
+        return sizes;
     }
 
     public void encode(String string, BitArray bitArray, FormatReader formatReader) throws Exception {
@@ -44,14 +139,59 @@ public class ASN1Translator {
         registry.getTranslatorFromName(str).decode(str, new BitInputStream(stream), formatWriter, null);
     }
 
-    private void beginVisit(InputStream stream) throws IOException {
+    public void decode(String str, byte[] bytes, FormatWriter formatWriter) throws Exception {
+        registry.getTranslatorFromName(str).decode(str, new BitInputStream(bytes), formatWriter, null);
+    }
+
+    /**
+     * Parse a grammar file in two stages : SLL prediction first, which is enough for the 3GPP grammars and much
+     * faster, then full LL prediction if SLL fails. SLL doesn't report errors, they are reported by the LL stage.
+     *
+     * @param stream grammar file
+     * @return parse tree of the module
+     * @throws IOException if the grammar file can't be read
+     */
+    public static ASN1Parser.ModuleDefinitionContext parse(InputStream stream) throws IOException {
         CharStream inputStream = CharStreams.fromStream(stream);
         ASN1Lexer asn1Lexer = new ASN1Lexer(inputStream);
         CommonTokenStream commonTokenStream = new CommonTokenStream(asn1Lexer);
         ASN1Parser asn1Parser = new ASN1Parser(commonTokenStream);
-        new TopLevelVisitor(registry).visitModuleDefinition(asn1Parser.moduleDefinition());
+        asn1Parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        asn1Parser.removeErrorListeners();
+        asn1Parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return asn1Parser.moduleDefinition();
+        } catch (ParseCancellationException e) {
+            logger.debug("SLL parsing failed, parse again with LL : {}", e.getCause() == null ? e : e.getCause());
+        }
+        commonTokenStream.seek(0);
+        asn1Parser.reset();
+        asn1Parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+        asn1Parser.setErrorHandler(new DefaultErrorStrategy());
+        asn1Parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        return asn1Parser.moduleDefinition();
+    }
+
+    private void beginVisit(ASN1Parser.ModuleDefinitionContext moduleDefinition) {
+        new TopLevelVisitor(registry).visitModuleDefinition(moduleDefinition);
+    }
+
+    /**
+     * Create and compile the translators reachable from root types only, the other assignments of the grammar are
+     * dropped without being parsed. Must be called before sharing this instance between threads.
+     *
+     * @param rootTypeNames names of the types to encode and decode, for instance S1AP-PDU
+     * @throws UnknownIdentifierException if a root type isn't defined in the grammar
+     */
+    public void parseTranslators(List<String> rootTypeNames) {
+        registry.retainReachable(rootTypeNames);
+        parseTranslators();
     }
 
+    /**
+     * Create and compile all the translators of the grammar. Must be called before sharing this instance between
+     * threads. The translators don't refer to the parse trees of the grammar, which can then be garbage collected.
+     */
     public void parseTranslators() {
         registry.parseConstants();
         registry.parseTranslators();
@@ -62,5 +202,7 @@ public class ASN1Translator {
             //Use debugger : registry -> indexingRegistry to see what's left
             throw new RuntimeException("IndexingRegistry isn't empty !");
         }
+        registry.compileTranslators();
+        registry.indexClassObjectSets();
     }
 }
@@ -11,75 +11,211 @@
 package com.ericsson.mts.asn1;
 
 import com.ericsson.mts.asn1.factory.FormatWriter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.math.BigInteger;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
+/**
+ * Growable bit buffer used as encoder output. Bits are packed in a byte array that is grown in place, the length is
+ * kept as a bit count. Instances are not thread-safe : use one per encoded message.
+ */
 public class BitArray {
-    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-    private Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
-    private BigInteger length = BigInteger.ZERO;
-    private int nextBit = 0;
-    private int currentByte;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private byte[] buffer;
+    //Number of bits written
+    private int length = 0;
+
+    public BitArray() {
+        this(DEFAULT_CAPACITY);
+    }
 
-    public ByteArrayOutputStream getOutputStream() {
+    /**
+     * @param capacity initial capacity in bytes
+     */
+    public BitArray(int capacity) {
+        buffer = new byte[Math.max(capacity, 1)];
+    }
 
-        return outputStream;
+    private void ensureCapacity(long bitLength) {
+        long byteLength = (bitLength + 7) >>> 3;
+        if (byteLength > buffer.length) {
+            if (byteLength > Integer.MAX_VALUE - 8) {
+                throw new OutOfMemoryError("BitArray too large : " + bitLength + " bits");
+            }
+            buffer = Arrays.copyOf(buffer, (int) Math.max(byteLength, Math.min((long) buffer.length * 2, Integer.MAX_VALUE - 8)));
+        }
     }
 
-    public synchronized void write(int b) throws IOException {
-        if (nextBit == 0) {
-            outputStream.write(b);
-            length = length.add(BigInteger.valueOf(8));
+    /**
+     * Write the n least significant bits of value, most significant bit first.
+     *
+     * @param value bits to write
+     * @param nBits number of bits to write, between 0 and 64
+     */
+    public void writeBits(long value, int nBits) {
+        if (nBits < 0 || nBits > 64) {
+            throw new IllegalArgumentException("nBits (" + nBits + ") must be between 0 and 64");
+        }
+        ensureCapacity((long) length + nBits);
+        while (nBits > 0) {
+            int used = length & 0x7;
+            int free = 8 - used;
+            int count = Math.min(free, nBits);
+            int bits = (int) (value >>> (nBits - count)) & ((1 << count) - 1);
+            buffer[length >>> 3] |= (byte) (bits << (free - count));
+            length += count;
+            nBits -= count;
+        }
+    }
+
+    public void write(int b) {
+        if ((length & 0x7) == 0) {
+            ensureCapacity((long) length + 8);
+            buffer[length >>> 3] = (byte) b;
+            length += 8;
         } else {
-            for (int i = 0; i < 8; i++) {
-                this.writeBit((b >> (8 - i)));
+            writeBits(b & 0xFF, 8);
+        }
+    }
+
+    public void writeBit(int bit) {
+        ensureCapacity((long) length + 1);
+        if ((bit & 0x1) != 0) {
+            buffer[length >>> 3] |= (byte) (0x80 >>> (length & 0x7));
+        }
+        length++;
+    }
+
+    /**
+     * Write octets. When the buffer is aligned, this is a single array copy.
+     *
+     * @param bytes octets to write
+     * @param offset index of the first octet
+     * @param len number of octets
+     */
+    public void writeBytes(byte[] bytes, int offset, int len) {
+        if ((length & 0x7) == 0) {
+            ensureCapacity((long) length + (long) len * 8);
+            System.arraycopy(bytes, offset, buffer, length >>> 3, len);
+            length += len * 8;
+        } else {
+            for (int i = offset; i < offset + len; i++) {
+                writeBits(bytes[i] & 0xFF, 8);
             }
         }
     }
 
-    public synchronized void writeBit(int bit) throws IOException {
-        currentByte = currentByte << 1 | (bit & 0x0001);
-        length = length.add(BigInteger.ONE);
-        nextBit++;
-        if (nextBit == 8) {
-            outputStream.write(currentByte);
-            nextBit = 0;
-            currentByte = 0;
+    /**
+     * Overwrite bits already written, used to patch a value reserved earlier.
+     *
+     * @param bitOffset position of the first bit to overwrite
+     * @param value new bits, the n least significant ones are used
+     * @param nBits number of bits to overwrite, between 0 and 64
+     */
+    public void setBits(int bitOffset, long value, int nBits) {
+        if (nBits < 0 || nBits > 64 || bitOffset < 0 || (long) bitOffset + nBits > length) {
+            throw new IndexOutOfBoundsException("Cannot overwrite " + nBits + " bits at " + bitOffset + " in a " + length + " bits array");
+        }
+        int position = bitOffset;
+        while (nBits > 0) {
+            int used = position & 0x7;
+            int free = 8 - used;
+            int count = Math.min(free, nBits);
+            int mask = ((1 << count) - 1) << (free - count);
+            int bits = ((int) (value >>> (nBits - count)) << (free - count)) & mask;
+            buffer[position >>> 3] = (byte) ((buffer[position >>> 3] & ~mask) | bits);
+            position += count;
+            nBits -= count;
         }
     }
 
-    public synchronized void skipAlignedBits() throws IOException {
-        while (nextBit != 0) {
-            writeBit(0);
+    /**
+     * Insert a zero octet at the given position, the bits already written after it are moved by 8 bits.
+     *
+     * @param bitOffset position of the inserted octet
+     */
+    public void insertOctet(int bitOffset) {
+        if (bitOffset < 0 || bitOffset > length) {
+            throw new IndexOutOfBoundsException("Cannot insert at " + bitOffset + " in a " + length + " bits array");
         }
+        ensureCapacity((long) length + 8);
+        //Moving whole bytes by one keeps the position of each bit inside its octet
+        int first = bitOffset >>> 3;
+        System.arraycopy(buffer, first, buffer, first + 1, getByteLength() - first);
+        length += 8;
+        setBits(bitOffset, 0, 8);
     }
 
-    public void concatBitArray(BitArray bitArray) throws IOException {
-        ByteArrayOutputStream outputStream = bitArray.getOutputStream();
-        for (byte octet : outputStream.toByteArray()) {
-            this.write(octet);
+    public void skipAlignedBits() {
+        //Padding bits are already zero
+        ensureCapacity((long) length + 7);
+        length = (length + 7) & ~0x7;
+    }
+
+    /**
+     * Append all the bits written in another BitArray.
+     *
+     * @param bitArray bits to append
+     */
+    public void concatBitArray(BitArray bitArray) {
+        int fullBytes = bitArray.length >>> 3;
+        writeBytes(bitArray.buffer, 0, fullBytes);
+        int remainder = bitArray.length & 0x7;
+        if (remainder != 0) {
+            writeBits((bitArray.buffer[fullBytes] & 0xFF) >>> (8 - remainder), remainder);
         }
     }
 
-    public BigInteger getLength() {
+    /**
+     * @return number of bits written
+     */
+    public int getLength() {
         return length;
     }
 
-    public String getBinaryMessage() throws IOException {
+    /**
+     * @return number of octets used, the last one may be partially written
+     */
+    public int getByteLength() {
+        return (length + 7) >>> 3;
+    }
+
+    /**
+     * Give access to the encoded octets without copying them. The last octet is padded with zeros if the buffer is
+     * not aligned.
+     *
+     * @return read-only view over the encoded octets
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, getByteLength()).asReadOnlyBuffer();
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(buffer, 0, getByteLength());
+    }
+
+    /**
+     * Forget the bits written, the allocated buffer is kept for the next message.
+     */
+    public void clear() {
+        Arrays.fill(buffer, 0, getByteLength(), (byte) 0);
+        length = 0;
+    }
+
+    public String getBinaryMessage() {
         this.skipAlignedBits();
-        return FormatWriter.bytesToHex(outputStream.toByteArray());
+        return FormatWriter.bytesToHex(getBinaryArray());
     }
 
     public byte[] getBinaryArray() {
-        return outputStream.toByteArray();
+        return Arrays.copyOf(buffer, getByteLength());
     }
 
     public String getActualBinaryMessage() {
         //Use for debug
-        return FormatWriter.bytesToHex(outputStream.toByteArray()) + Integer.toString(currentByte, 16);
+        return FormatWriter.bytesToHex(getBinaryArray()) + " (" + length + " bits)";
     }
 }
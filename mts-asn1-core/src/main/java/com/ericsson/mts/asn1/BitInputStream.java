@@ -10,147 +10,444 @@
 package com.ericsson.mts.asn1;
 
 import java.io.EOFException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
+/**
+ * Bit reader over a byte array. Up to 64 bits are kept in a cache word so that reading a bit field costs a few shifts
+ * instead of one call per bit. Instances are not thread-safe : use one per decoded message.
+ */
 public class BitInputStream extends InputStream {
-    private final InputStream byteStream;
-    private int currentBit = 0;
-    private int currentByte;
-
-    public BitInputStream(final InputStream byteStream) {
-        this.byteStream = new InputStream(){
-            @Override
-            public int read() throws IOException {
-                int value = byteStream.read();
-                if(-1 == value){
-                    throw new RuntimeException("reached end of stream");
-                } else {
-                    return value;
-                }
-            }
-        };
+    private static final int INITIAL_STREAM_BUFFER = 256;
+
+    //Octets read so far from source are appended to the buffer, end grows with them
+    private final InputStream source;
+    private byte[] buffer;
+    private final int start;
+    private int end;
+    //Index of the next byte to load in the cache
+    private int nextByte;
+    //Unread bits, left aligned (next bit to read is the most significant one)
+    private long cache;
+    private int cacheBits;
+
+    private int markNextByte;
+    private long markCache;
+    private int markCacheBits;
+
+    public BitInputStream(byte[] buffer) {
+        this(buffer, 0, buffer.length);
     }
 
-    public synchronized int read() throws IOException {
-        if (currentBit == 0) {
-            return byteStream.read();
-        } else {
-            int nextByte = byteStream.read();
-            int result = ((currentByte << currentBit) | (nextByte >> (8 - currentBit))) & 0xFF;
-            currentByte = nextByte;
-            return result;
+    public BitInputStream(byte[] buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", buffer length=" + buffer.length);
         }
+        this.source = null;
+        this.buffer = buffer;
+        this.start = offset;
+        this.end = offset + length;
+        this.nextByte = offset;
+        this.markNextByte = offset;
+    }
+
+    /**
+     * Read the remaining bytes of the buffer. The buffer content is shared when it is backed by an accessible array.
+     *
+     * @param byteBuffer binary buffer
+     */
+    public BitInputStream(ByteBuffer byteBuffer) {
+        this(arrayOf(byteBuffer), offsetOf(byteBuffer), byteBuffer.remaining());
+    }
+
+    /**
+     * Read the stream as bits are needed : only the octets holding the bits read are taken from byteStream, the
+     * octets after them stay in byteStream for the next message.
+     *
+     * @param byteStream binary stream
+     */
+    public BitInputStream(InputStream byteStream) {
+        this.source = byteStream;
+        this.buffer = new byte[INITIAL_STREAM_BUFFER];
+        this.start = 0;
+        this.end = 0;
+    }
+
+    private static byte[] arrayOf(ByteBuffer byteBuffer) {
+        if (byteBuffer.hasArray()) {
+            return byteBuffer.array();
+        }
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static int offsetOf(ByteBuffer byteBuffer) {
+        return byteBuffer.hasArray() ? byteBuffer.arrayOffset() + byteBuffer.position() : 0;
+    }
+
+    /**
+     * Take from the source the octets missing to read n bits, no more.
+     *
+     * @return true if n bits can be read
+     */
+    private boolean fetch(long nBits) throws IOException {
+        long missingBits = nBits - remainingBits();
+        if (missingBits <= 0) {
+            return true;
+        }
+        if (source == null) {
+            return false;
+        }
+        int missing = (int) ((missingBits + 7) / 8);
+        if (buffer.length - end < missing) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, end + missing));
+        }
+        while (missing > 0) {
+            int read = source.read(buffer, end, missing);
+            if (read < 0) {
+                return false;
+            }
+            end += read;
+            missing -= read;
+        }
+        return true;
+    }
+
+    /**
+     * @return number of bits read since the beginning of the stream
+     */
+    public long getBitPosition() {
+        return (long) (nextByte - start) * 8 - cacheBits;
+    }
+
+    /**
+     * @return number of bits that can still be read
+     */
+    public long remainingBits() {
+        return (long) (end - nextByte) * 8 + cacheBits;
     }
 
-    public synchronized int readBit() throws IOException {
-        if (currentBit == 0) {
-            currentByte = byteStream.read();
+    /**
+     * Load whole bytes in the cache until it is full or the end of the buffer is reached.
+     */
+    private void refill() {
+        if (cacheBits == 0 && end - nextByte >= 8) {
+            byte[] b = buffer;
+            int i = nextByte;
+            cache = ((long) b[i] << 56)
+                    | ((b[i + 1] & 0xFFL) << 48)
+                    | ((b[i + 2] & 0xFFL) << 40)
+                    | ((b[i + 3] & 0xFFL) << 32)
+                    | ((b[i + 4] & 0xFFL) << 24)
+                    | ((b[i + 5] & 0xFFL) << 16)
+                    | ((b[i + 6] & 0xFFL) << 8)
+                    | (b[i + 7] & 0xFFL);
+            nextByte += 8;
+            cacheBits = 64;
+            return;
         }
-        currentBit++;
-        int result = currentByte >> (8 - currentBit) & 0x1;
-        if (currentBit > 7) {
-            currentBit = 0;
+        while (cacheBits <= 56 && nextByte < end) {
+            cache |= (buffer[nextByte++] & 0xFFL) << (56 - cacheBits);
+            cacheBits += 8;
         }
+    }
+
+    /**
+     * Take n bits from the cache, 0 &lt; n &lt;= cacheBits
+     */
+    private long take(int n) {
+        long result = cache >>> (64 - n);
+        cache = (n == 64) ? 0 : cache << n;
+        cacheBits -= n;
         return result;
     }
 
-    public synchronized byte[] readBitsAsArray(int nBits) throws IOException {
-        int arrayLen = (nBits / 8) + (nBits % 8 > 0 ? 1 : 0);
-        byte[] array = new byte[arrayLen];
+    private EOFException endOfStream(long nBits) {
+        return new EOFException("Cannot read " + nBits + " bits : only " + remainingBits() + " bits left (position " + getBitPosition() + " of a " + (end - start) + " bytes stream starting at offset " + start + ")");
+    }
 
-        for (int i = 0; i < nBits; i++) {
-            int index = arrayLen - i / 8;
-            int bit = readBit();
-            array[index] = (byte) (array[index] | (bit << (8 - (8 - (arrayLen * 8 - i) % 8))) & 0xff);
+    /**
+     * Read up to 64 bits as an unsigned value (the first bit read is the most significant one).
+     *
+     * @param nBits number of bits to read, between 0 and 64
+     * @return bits read
+     * @throws IOException if the stream has less than nBits remaining
+     */
+    public long readBits(int nBits) throws IOException {
+        if (nBits <= 0) {
+            if (nBits == 0) {
+                return 0;
+            }
+            throw new IllegalArgumentException("nBits (" + nBits + ") must be positive");
         }
-        return array;
+        if (nBits > 64) {
+            throw new IllegalArgumentException("nBits (" + nBits + ") sup to 64");
+        }
+        if (cacheBits >= nBits) {
+            return take(nBits);
+        }
+        if (!fetch(nBits)) {
+            throw endOfStream(nBits);
+        }
+        if (cacheBits == 0) {
+            refill();
+            return take(nBits);
+        }
+        //Drain the cache then read the remaining bits from a refilled cache
+        int high = cacheBits;
+        long result = take(high);
+        refill();
+        return (result << (nBits - high)) | take(nBits - high);
     }
 
-    public synchronized byte[] readAlignedBitArray(int nBits) throws IOException {
+    public int readBit() throws IOException {
+        if (cacheBits == 0) {
+            fetch(1);
+            refill();
+            if (cacheBits == 0) {
+                throw endOfStream(1);
+            }
+        }
+        int result = (int) (cache >>> 63);
+        cache <<= 1;
+        cacheBits--;
+        return result;
+    }
+
+    public BigInteger bigReadBits(int nBits) throws IOException {
+        if (nBits < 64) {
+            return BigInteger.valueOf(readBits(nBits));
+        }
+        int nBytes = nBits / 8 + ((nBits % 8 > 0) ? 1 : 0);
+        byte[] bytes = new byte[nBytes + 1];
+        int remainder = nBits % 8;
+        int index = 1;
+        if (remainder != 0) {
+            bytes[index++] = (byte) readBits(remainder);
+        }
+        for (; index < bytes.length; index++) {
+            bytes[index] = (byte) readBits(8);
+        }
+        return new BigInteger(bytes);
+    }
+
+    /**
+     * Read n bits in a byte array, bits are aligned left (the last byte is padded with zeros).
+     *
+     * @param nBits number of bits to read
+     * @return bits read
+     * @throws IOException input exception
+     */
+    public byte[] readAlignedBitArray(int nBits) throws IOException {
         int nBytes = nBits / 8 + ((nBits % 8 > 0) ? 1 : 0);
         byte[] bytes = new byte[nBytes];
-        for (int i = 0; i < nBits; i++) {
-            int index = i / 8;
-            bytes[index] = (byte) (bytes[index] | readBit() << (7 - (i % 8)) & 0xff);
+        int fullBytes = nBits / 8;
+        if (isAligned()) {
+            readBytes(bytes, 0, fullBytes);
+        } else {
+            for (int i = 0; i < fullBytes; i++) {
+                bytes[i] = (byte) readBits(8);
+            }
+        }
+        int remainder = nBits % 8;
+        if (remainder != 0) {
+            bytes[fullBytes] = (byte) (readBits(remainder) << (8 - remainder));
         }
         return bytes;
     }
 
+    /**
+     * @return true if the next bit to read is the first bit of an octet
+     */
+    public boolean isAligned() {
+        return (cacheBits & 0x7) == 0;
+    }
 
-    public synchronized int readBits(int nBits) throws IOException {
-        int result = 0;
-        if (nBits > 32) {
-            throw new RuntimeException("nBits (" + nBits + ") sup to 32");
+    /**
+     * Skip the bits remaining until the next octet boundary.
+     */
+    public void skipUnreadedBits() {
+        //The cache only contains whole bytes, so the unread bits of the current octet are cacheBits modulo 8
+        int padding = cacheBits & 0x7;
+        if (padding != 0) {
+            take(padding);
         }
-        for (int i = 0; i < nBits; i++) {
-            result = ((result << 1) | readBit());
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fetch(8)) {
+            throw endOfStream(8);
         }
-        return result;
+        return (int) readBits(8);
     }
 
-    public synchronized BigInteger bigReadBits(int nBits) throws IOException {
-        BigInteger result = BigInteger.ZERO;
-        for (int i = 0; i < nBits; i++) {
-            result = result.shiftLeft(1).or(BigInteger.valueOf(readBit()));
-//            result = ((result << 1) | readBit());
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
         }
-        return result;
+        fetch((long) length * 8);
+        if (remainingBits() < 8) {
+            return -1;
+        }
+        int count = (int) Math.min(length, remainingBits() / 8);
+        if (isAligned()) {
+            readBytes(bytes, offset, count);
+        } else {
+            for (int i = 0; i < count; i++) {
+                bytes[offset + i] = (byte) readBits(8);
+            }
+        }
+        return count;
     }
 
+    /**
+     * @return number of octets that can be read without blocking
+     */
+    @Override
+    public int available() {
+        return (int) (remainingBits() / 8);
+    }
 
-    public void skipUnreadedBits() {
-        currentBit = 0;
+    /**
+     * Copy octets when the stream is aligned : bytes still in the cache are drained first, the rest is a bulk copy.
+     */
+    private void readBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (!fetch((long) length * 8)) {
+            throw endOfStream((long) length * 8);
+        }
+        int index = offset;
+        int last = offset + length;
+        while (index < last && cacheBits > 0) {
+            bytes[index++] = (byte) take(8);
+        }
+        int count = last - index;
+        System.arraycopy(buffer, nextByte, bytes, index, count);
+        nextByte += count;
+    }
+
+    /**
+     * Skip octets when the stream is aligned.
+     */
+    private void skipBytes(int length) throws IOException {
+        if (!fetch((long) length * 8)) {
+            throw endOfStream((long) length * 8);
+        }
+        int inCache = Math.min(length, cacheBits / 8);
+        if (inCache > 0) {
+            take(inCache * 8);
+        }
+        nextByte += length - inCache;
+    }
+
+    /**
+     * Give a view over the next octets of the stream, without copying them. The stream must be on an octet boundary,
+     * the padding before the view is up to the caller, it is then moved after the octets of the view. The view has
+     * its own position and cannot read past its own length.
+     *
+     * @param len number of octets of the view
+     * @return a stream reading the next len octets
+     * @throws EOFException if the stream has less than len octets remaining
+     * @throws IOException input exception of the underlying stream
+     * @throws IllegalStateException if the stream is not octet-aligned
+     */
+    public BitInputStream slice(int len) throws IOException {
+        if (!isAligned()) {
+            throw new IllegalStateException("Slice at bit " + getBitPosition() + ", the stream is not octet-aligned");
+        }
+        if (len < 0) {
+            throw new IllegalArgumentException("len (" + len + ") must be positive");
+        }
+        //Octets still in the cache are before nextByte in the buffer
+        int offset = nextByte - cacheBits / 8;
+        skipBytes(len);
+        return new BitInputStream(buffer, offset, len);
+    }
+
+    /**
+     * @return a copy of all the octets of the stream, whatever the current position, only the octets read so far when
+     * reading an InputStream
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(buffer, start, end);
     }
 
     public byte[] readUnalignedByteArray(int len) throws IOException {
         byte[] arr = new byte[len];
-        for (int i = 0; i < arr.length; i++) {
-            arr[i] = (byte) read();
+        if (isAligned()) {
+            readBytes(arr, 0, len);
+        } else {
+            for (int i = 0; i < len; i++) {
+                arr[i] = (byte) readBits(8);
+            }
         }
         return arr;
     }
 
-
     public byte[] readAlignedByteArray(int len) throws IOException {
         skipUnreadedBits();
         byte[] arr = new byte[len];
-        if (-1 == byteStream.read(arr)) {
-            throw new IOException("reach end of buffer");
-        }
+        readBytes(arr, 0, len);
         return arr;
     }
 
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * Mark the current bit position.
+     *
+     * @param readlimit ignored, the whole buffer is kept in memory
+     */
+    @Override
+    public void mark(int readlimit) {
+        markNextByte = nextByte;
+        markCache = cache;
+        markCacheBits = cacheBits;
+    }
+
+    /**
+     * Go back to the last marked bit position (or to the beginning of the stream).
+     */
+    @Override
+    public void reset() {
+        nextByte = markNextByte;
+        cache = markCache;
+        cacheBits = markCacheBits;
+    }
+
+    /**
+     * Close the InputStream given to the constructor, if any.
+     *
+     * @throws IOException input exception
+     */
+    @Override
+    public void close() throws IOException {
+        if (source != null) {
+            source.close();
+        }
+    }
+
     public String print8bits() throws Exception {
         StringBuilder str = new StringBuilder();
-        while (currentBit != 0) {
-            if ((this.readBit() & 0x01) == 0x01) {
-                str.append("1");
-            } else {
-                str.append("0");
-            }
+        while (!isAligned()) {
+            str.append(readBit());
         }
         str.append("\t\t");
-        for (int i = 0; i < 24; i++) {
+        for (int i = 0; i < 24 && remainingBits() >= 4; i++) {
             for (int j = 0; j < 4; j++) {
-                if ((this.readBit() & 0x1) == 0x1) {
-                    str.append("1");
-                } else {
-                    str.append("0");
-                }
+                str.append(readBit());
             }
             str.append("\t");
         }
         System.out.println("Tra-number " + str);
         throw new Exception();
     }
-
-    @Override
-    public void close() throws IOException {
-        byteStream.close();
-    }
 }
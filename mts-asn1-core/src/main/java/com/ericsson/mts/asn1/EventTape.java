@@ -0,0 +1,351 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.factory.FormatWriter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary record of the events of a {@link FormatWriter}, written by {@link EventTapeFormatWriter} and read by
+ * {@link EventTapeFormatReader} : a decoded message can be encoded again, or replayed into another FormatWriter,
+ * without going through JSON or XML text. An event is its type, the reference of its name and its value. Names are
+ * stored once in a table, a reference is 0 for no name or the index of the name plus one. Integers and lengths are
+ * varints, strings are UTF-8.
+ * <p>
+ * A tape can be cleared and reused, its buffer and names are kept. It isn't thread-safe.
+ */
+public final class EventTape {
+    private static final int MAGIC = 0x41534E54;
+    private static final int VERSION = 1;
+    //Bounds of a stored tape, a tape records one message and names come from one schema
+    private static final int MAX_NAMES = 1 << 16;
+    private static final int MAX_LENGTH = 1 << 26;
+
+    static final byte ENTER_OBJECT = 1;
+    static final byte LEAVE_OBJECT = 2;
+    static final byte ENTER_ARRAY = 3;
+    static final byte LEAVE_ARRAY = 4;
+    static final byte STRING = 5;
+    static final byte TRUE = 6;
+    static final byte FALSE = 7;
+    //Value fitting in a long, as a zigzag varint, followed by the reference of the named value
+    static final byte INT = 8;
+    //Two's complement bytes, followed by the reference of the named value
+    static final byte BIG_INT = 9;
+    static final byte REAL = 10;
+    static final byte BYTES = 11;
+    static final byte BITS = 12;
+    static final byte NULL = 13;
+
+    private byte[] data = new byte[256];
+    private int length = 0;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameReferences = new HashMap<>();
+
+    /**
+     * Remove the events, the buffer and the names are kept for the next message.
+     */
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * @return size of the events in bytes, without the names
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Write the events to a FormatWriter, as they were written to the tape.
+     *
+     * @param formatWriter destination of the events
+     */
+    public void replay(FormatWriter formatWriter) {
+        Input input = new Input(0);
+        String[] openNames = new String[16];
+        int depth = 0;
+        while (input.position < length) {
+            byte type = input.readByte();
+            if (type == LEAVE_OBJECT) {
+                formatWriter.leaveObject(openNames[--depth]);
+                continue;
+            } else if (type == LEAVE_ARRAY) {
+                formatWriter.leaveArray(openNames[--depth]);
+                continue;
+            }
+            String name = input.readName();
+            switch (type) {
+                case ENTER_OBJECT:
+                case ENTER_ARRAY:
+                    if (depth == openNames.length) {
+                        openNames = Arrays.copyOf(openNames, depth * 2);
+                    }
+                    openNames[depth++] = name;
+                    if (type == ENTER_OBJECT) {
+                        formatWriter.enterObject(name);
+                    } else {
+                        formatWriter.enterArray(name);
+                    }
+                    break;
+                case STRING:
+                    formatWriter.stringValue(name, input.readString());
+                    break;
+                case TRUE:
+                case FALSE:
+                    formatWriter.booleanValue(name, type == TRUE);
+                    break;
+                case INT:
+                case BIG_INT:
+                    BigInteger value = input.readInteger(type);
+                    formatWriter.intValue(name, value, input.readName());
+                    break;
+                case REAL:
+                    formatWriter.realValue(name, new BigDecimal(input.readString()));
+                    break;
+                case BYTES:
+                    formatWriter.bytesValue(name, input.readBytes());
+                    break;
+                case BITS:
+                    formatWriter.bitsValue(name, input.readString());
+                    break;
+                case NULL:
+                    formatWriter.nullValue(name);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event " + type + " at " + (input.position - 1));
+            }
+        }
+    }
+
+    /**
+     * Write the names and the events.
+     *
+     * @param outputStream destination, not closed
+     * @throws IOException if the tape can't be written
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+        out.writeInt(length);
+        out.write(data, 0, length);
+        out.flush();
+    }
+
+    /**
+     * @param inputStream tape written by {@link #writeTo}
+     * @return the tape
+     * @throws IOException if the tape can't be read, is corrupted or wasn't written by this version
+     */
+    public static EventTape readFrom(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an event tape");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Event tape version " + version + " isn't supported");
+        }
+        EventTape tape = new EventTape();
+        int nameCount = in.readInt();
+        if (nameCount < 0 || nameCount > MAX_NAMES) {
+            throw new IOException("Invalid event tape name count " + nameCount);
+        }
+        for (int i = 0; i < nameCount; i++) {
+            tape.nameReference(in.readUTF());
+        }
+        tape.length = in.readInt();
+        if (tape.length < 0 || tape.length > MAX_LENGTH) {
+            throw new IOException("Invalid event tape length " + tape.length);
+        }
+        tape.data = new byte[Math.max(tape.length, 16)];
+        in.readFully(tape.data, 0, tape.length);
+        return tape;
+    }
+
+    // Writing, used by EventTapeFormatWriter
+
+    private int nameReference(String name) {
+        if (name == null) {
+            return 0;
+        }
+        Integer reference = nameReferences.get(name);
+        if (reference == null) {
+            names.add(name);
+            reference = names.size();
+            nameReferences.put(name, reference);
+        }
+        return reference;
+    }
+
+    private void ensureCapacity(int size) {
+        if (length + size > data.length) {
+            data = Arrays.copyOf(data, Math.max(length + size, data.length * 2));
+        }
+    }
+
+    void writeEvent(byte type) {
+        ensureCapacity(1);
+        data[length++] = type;
+    }
+
+    void writeEvent(byte type, String name) {
+        writeEvent(type);
+        writeName(name);
+    }
+
+    void writeName(String name) {
+        writeVarLong(nameReference(name));
+    }
+
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes) {
+        writeVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, data, length, bytes.length);
+        length += bytes.length;
+    }
+
+    void writeString(String string) {
+        int stringLength = string.length();
+        for (int i = 0; i < stringLength; i++) {
+            if (string.charAt(i) >= 0x80) {
+                writeBytes(string.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        //ASCII, one byte per char
+        writeVarLong(stringLength);
+        ensureCapacity(stringLength);
+        for (int i = 0; i < stringLength; i++) {
+            data[length++] = (byte) string.charAt(i);
+        }
+    }
+
+    // Reading, used by EventTapeFormatReader
+
+    Input input(int position) {
+        return new Input(position);
+    }
+
+    /**
+     * Position in the events, reading a value moves it after the value.
+     */
+    final class Input {
+        int position;
+
+        Input(int position) {
+            this.position = position;
+        }
+
+        int length() {
+            return length;
+        }
+
+        byte readByte() {
+            return data[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        String readName() {
+            int reference = (int) readVarLong();
+            return reference == 0 ? null : names.get(reference - 1);
+        }
+
+        byte[] readBytes() {
+            int size = (int) readVarLong();
+            byte[] bytes = Arrays.copyOfRange(data, position, position + size);
+            position += size;
+            return bytes;
+        }
+
+        String readString() {
+            int size = (int) readVarLong();
+            String string = new String(data, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return string;
+        }
+
+        BigInteger readInteger(byte type) {
+            if (type == INT) {
+                long zigzag = readVarLong();
+                return BigInteger.valueOf((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            return new BigInteger(readBytes());
+        }
+
+        /**
+         * Move after the value of an event whose type and name were read.
+         */
+        void skipValue(byte type) {
+            switch (type) {
+                case INT:
+                    readVarLong();
+                    readVarLong();
+                    break;
+                case BIG_INT:
+                    skipBytes();
+                    readVarLong();
+                    break;
+                case STRING:
+                case REAL:
+                case BYTES:
+                case BITS:
+                    skipBytes();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void skipBytes() {
+            int size = (int) readVarLong();
+            position += size;
+        }
+    }
+}
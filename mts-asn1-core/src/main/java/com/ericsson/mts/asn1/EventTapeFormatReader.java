@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.exception.InvalidParameterException;
+import com.ericsson.mts.asn1.factory.AbstractIndexedFormatReader;
+import com.ericsson.mts.asn1.factory.FormatWriter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Read the values recorded on an {@link EventTape}. The tape is indexed once, the values are the nodes of an
+ * {@link AbstractIndexedFormatReader}. The top-level values are the fields of a document object : the type being
+ * encoded is entered by its name like any field. Values can be replaced when they are read, to encode a recorded
+ * message with a few fields changed. The tape must not be modified while it is read.
+ */
+public class EventTapeFormatReader extends AbstractIndexedFormatReader {
+    private final EventTape.Input input;
+    //Type and position on the tape of each value
+    private byte[] types = new byte[64];
+    private int[] positions = new int[64];
+    //Replacing value of each value, null if it is read from the tape
+    private String[] replacements;
+
+    public EventTapeFormatReader(EventTape tape) {
+        super(null);
+        input = tape.input(0);
+        index();
+    }
+
+    /**
+     * Read a tape with some of its values replaced, the tape isn't modified.
+     *
+     * @param tape recorded values
+     * @param values replacing values by path : names from the document to the value separated by '/', an element of
+     *               an array by its index, for instance S1AP-PDU/initiatingMessage/value/.../protocolIEs/1/value/ENB-UE-S1AP-ID.
+     *               A value is a Boolean, a Number, a String, or a byte[] for an OCTET STRING.
+     * @throws InvalidParameterException if a path isn't a value recorded on the tape
+     */
+    public EventTapeFormatReader(EventTape tape, Map<String, ?> values) {
+        this(tape);
+        replacements = new String[nodeCount()];
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            int node = nodeAt(entry.getKey());
+            if (node == -1 || types[node] == EventTape.ENTER_OBJECT || types[node] == EventTape.ENTER_ARRAY) {
+                throw new InvalidParameterException("No value recorded at " + entry.getKey());
+            }
+            Object value = entry.getValue();
+            replacements[node] = value instanceof byte[] ? FormatWriter.bytesToHex((byte[]) value) : String.valueOf(value);
+        }
+    }
+
+    private void index() {
+        int[] open = new int[16];
+        //The document, an object containing the top-level values
+        open[0] = add(EventTape.ENTER_OBJECT, null, -1);
+        int openCount = 1;
+        while (input.position < input.length()) {
+            byte type = input.readByte();
+            if (type == EventTape.LEAVE_OBJECT || type == EventTape.LEAVE_ARRAY) {
+                closeNode(open[--openCount]);
+                continue;
+            }
+            int node = add(type, input.readName(), open[openCount - 1]);
+            if (type == EventTape.ENTER_OBJECT || type == EventTape.ENTER_ARRAY) {
+                if (openCount == open.length) {
+                    open = Arrays.copyOf(open, openCount * 2);
+                }
+                open[openCount++] = node;
+            } else {
+                input.skipValue(type);
+            }
+        }
+        closeNode(0);
+    }
+
+    private int add(byte type, String name, int parent) {
+        int node = addNode(name, parent);
+        types[node] = type;
+        positions[node] = input.position;
+        return node;
+    }
+
+    @Override
+    protected void grow(int length) {
+        types = Arrays.copyOf(types, length);
+        positions = Arrays.copyOf(positions, length);
+    }
+
+    @Override
+    protected boolean isObject(int node) {
+        return types[node] == EventTape.ENTER_OBJECT;
+    }
+
+    /**
+     * @return the value node of {@link #valueNode}, with the tape positioned on its value
+     */
+    private int value(String name) {
+        int node = valueNode(name);
+        input.position = positions[node];
+        return node;
+    }
+
+    private String replacement(int node) {
+        return replacements == null ? null : replacements[node];
+    }
+
+    @Override
+    public boolean booleanValue(String name) {
+        int node = value(name);
+        if (replacement(node) != null) {
+            return Boolean.parseBoolean(replacement(node));
+        }
+        return types[node] == EventTape.TRUE;
+    }
+
+    @Override
+    public String bitsValue(String name) {
+        int node = value(name);
+        if (replacement(node) != null) {
+            return replacement(node);
+        }
+        return types[node] == EventTape.BITS || types[node] == EventTape.STRING ? input.readString() : null;
+    }
+
+    @Override
+    public String bytesValue(String name) {
+        int node = value(name);
+        if (replacement(node) != null) {
+            return replacement(node);
+        }
+        if (types[node] == EventTape.BYTES) {
+            return FormatWriter.bytesToHex(input.readBytes());
+        }
+        return types[node] == EventTape.STRING ? input.readString() : null;
+    }
+
+    @Override
+    public BigInteger intValue(String name) {
+        int node = value(name);
+        if (replacement(node) != null) {
+            return new BigInteger(replacement(node));
+        }
+        switch (types[node]) {
+            case EventTape.INT:
+            case EventTape.BIG_INT:
+                return input.readInteger(types[node]);
+            case EventTape.REAL:
+                return new BigDecimal(input.readString()).toBigInteger();
+            default:
+                return BigInteger.ZERO;
+        }
+    }
+
+    @Override
+    public String stringValue(String name) {
+        int node = value(name);
+        if (replacement(node) != null) {
+            return replacement(node);
+        }
+        switch (types[node]) {
+            case EventTape.STRING:
+            case EventTape.BITS:
+            case EventTape.REAL:
+                return input.readString();
+            case EventTape.INT:
+            case EventTape.BIG_INT:
+                return input.readInteger(types[node]).toString();
+            case EventTape.BYTES:
+                return FormatWriter.bytesToHex(input.readBytes());
+            case EventTape.TRUE:
+                return "true";
+            case EventTape.FALSE:
+                return "false";
+            case EventTape.NULL:
+                return "null";
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.factory.FormatWriter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Record decoded values on an {@link EventTape}.
+ */
+public class EventTapeFormatWriter implements FormatWriter {
+    private final EventTape tape;
+
+    /**
+     * Record on a new tape.
+     */
+    public EventTapeFormatWriter() {
+        this(new EventTape());
+    }
+
+    /**
+     * @param tape tape the events are added to, cleared by the caller to reuse it
+     */
+    public EventTapeFormatWriter(EventTape tape) {
+        this.tape = tape;
+    }
+
+    public EventTape getTape() {
+        return tape;
+    }
+
+    @Override
+    public void enterObject(String name) {
+        tape.writeEvent(EventTape.ENTER_OBJECT, name);
+    }
+
+    @Override
+    public void leaveObject(String name) {
+        tape.writeEvent(EventTape.LEAVE_OBJECT);
+    }
+
+    @Override
+    public void enterArray(String name) {
+        tape.writeEvent(EventTape.ENTER_ARRAY, name);
+    }
+
+    @Override
+    public void leaveArray(String name) {
+        tape.writeEvent(EventTape.LEAVE_ARRAY);
+    }
+
+    @Override
+    public void stringValue(String name, String value) {
+        tape.writeEvent(EventTape.STRING, name);
+        tape.writeString(value);
+    }
+
+    @Override
+    public void booleanValue(String name, boolean value) {
+        tape.writeEvent(value ? EventTape.TRUE : EventTape.FALSE, name);
+    }
+
+    @Override
+    public void realValue(String name, BigDecimal value) {
+        tape.writeEvent(EventTape.REAL, name);
+        tape.writeString(value.toString());
+    }
+
+    @Override
+    public void bytesValue(String name, byte[] value) {
+        tape.writeEvent(EventTape.BYTES, name);
+        tape.writeBytes(value);
+    }
+
+    @Override
+    public void intValue(String name, BigInteger value, String namedValue) {
+        if (value.bitLength() < 64) {
+            long longValue = value.longValue();
+            tape.writeEvent(EventTape.INT, name);
+            tape.writeVarLong((longValue << 1) ^ (longValue >> 63));
+        } else {
+            tape.writeEvent(EventTape.BIG_INT, name);
+            tape.writeBytes(value.toByteArray());
+        }
+        tape.writeName(namedValue);
+    }
+
+    @Override
+    public void nullValue(String name) {
+        tape.writeEvent(EventTape.NULL, name);
+    }
+
+    @Override
+    public void bitsValue(String name, String value) {
+        tape.writeEvent(EventTape.BITS, name);
+        tape.writeString(value);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import java.util.List;
+
+/**
+ * Immutable dictionary from the identifiers of a type (sequence fields, choice alternatives, enumeration items) to
+ * their index. Identifiers are stored in an open addressing table sized to at most half full, so a lookup is one hash
+ * and usually one comparison.
+ */
+public final class NameIndex {
+    private final String[] names;
+    private final int[] indexes;
+    private final int mask;
+    private final int size;
+
+    /**
+     * @param identifiers identifiers, the index of each one is its position in the list
+     */
+    public NameIndex(List<String> identifiers) {
+        int capacity = 2;
+        while (capacity < identifiers.size() * 2) {
+            capacity <<= 1;
+        }
+        names = new String[capacity];
+        indexes = new int[capacity];
+        mask = capacity - 1;
+        size = identifiers.size();
+        for (int i = 0; i < identifiers.size(); i++) {
+            String identifier = identifiers.get(i);
+            int slot = slot(identifier);
+            //First occurrence wins, like List.indexOf
+            if (names[slot] == null) {
+                names[slot] = identifier;
+                indexes[slot] = i;
+            }
+        }
+    }
+
+    private int slot(String name) {
+        int h = name.hashCode() * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        String candidate;
+        while ((candidate = names[i]) != null && !candidate.equals(name)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * @param name identifier
+     * @return index of the identifier, -1 if it isn't in the dictionary
+     */
+    public int indexOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        int slot = slot(name);
+        return names[slot] == null ? -1 : indexes[slot];
+    }
+
+    /**
+     * @return number of identifiers
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.classhandler.ClassHandler;
+import com.ericsson.mts.asn1.registry.MainRegistry;
+import com.ericsson.mts.asn1.translator.AbstractEnumeratedTranslator;
+import com.ericsson.mts.asn1.translator.AbstractTranslator;
+import org.slf4j.Logger;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Estimate the heap retained by parsed translators, for a 64-bit JVM with compressed references : 12 bytes of object
+ * header, 4 bytes references, objects aligned on 8 bytes. Fields of the library are walked by reflection, JDK maps
+ * and collections through their API. The registry isn't walked, but a String naming a parsed entry is followed to
+ * it since encoders and decoders look entries up by name.
+ */
+final class RetainedSizeEstimator {
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    //HashMap.Node and ConcurrentHashMap.Node : header, hash, key, value, next
+    private static final int MAP_ENTRY = 32;
+
+    private final MainRegistry registry;
+    private Deque<Object> references;
+    private final Map<Class<?>, Long> shallowSizes = new HashMap<>();
+    private final Map<Class<?>, List<Field>> referenceFields = new HashMap<>();
+
+    RetainedSizeEstimator(MainRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @param roots objects to walk
+     * @return estimated size in bytes of the objects reachable from roots, each counted once
+     */
+    long estimate(Collection<?> roots) {
+        return estimate(roots, object -> {
+        });
+    }
+
+    /**
+     * @param roots   objects to walk
+     * @param visitor called once with each object reachable from roots
+     * @return estimated size in bytes of the objects reachable from roots, each counted once
+     */
+    long estimate(Collection<?> roots, Consumer<Object> visitor) {
+        Map<Object, Boolean> visited = new IdentityHashMap<>();
+        references = new ArrayDeque<>(roots);
+        Deque<Object> literals = new ArrayDeque<>();
+        long size = 0;
+        while (!references.isEmpty() || !literals.isEmpty()) {
+            boolean followNames = !references.isEmpty();
+            Object object = followNames ? references.pop() : literals.pop();
+            if (visited.put(object, Boolean.TRUE) == null) {
+                visitor.accept(object);
+                //Names of enumerated items and class fields aren't references, even if an entry has the same name
+                boolean literal = !followNames || object instanceof AbstractEnumeratedTranslator || object instanceof ClassHandler;
+                size += visit(object, literal ? literals : references, followNames);
+            }
+        }
+        return size;
+    }
+
+    private long visit(Object object, Deque<Object> stack, boolean followNames) {
+        Class<?> type = object.getClass();
+        if (object instanceof MainRegistry || object instanceof Class || object instanceof Logger
+                || object instanceof ClassLoader || object instanceof Thread || object instanceof Enum) {
+            return 0;
+        }
+        if (object instanceof String) {
+            String string = (String) object;
+            Object parsed = followNames ? registry.getParsed(string) : null;
+            if (parsed != null) {
+                references.push(parsed);
+            }
+            return align(HEADER + REFERENCE + 8) + array(string.length() * (isLatin1(string) ? 1 : 2));
+        }
+        if (type.isArray()) {
+            return visitArray(object, stack);
+        }
+        if (object instanceof BigInteger) {
+            return shallowSize(type) + array(4 * (((BigInteger) object).bitLength() / 32 + 1));
+        }
+        if (object instanceof BitSet) {
+            return shallowSize(type) + array(((BitSet) object).size() / 8);
+        }
+        if (object instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                push(stack, entry.getKey());
+                push(stack, entry.getValue());
+            }
+            return shallowSize(type) + table(map.size());
+        }
+        if (object instanceof Collection) {
+            Collection<?> collection = (Collection<?>) object;
+            for (Object element : collection) {
+                push(stack, element);
+            }
+            if (object instanceof List) {
+                return shallowSize(type) + array(REFERENCE * collection.size());
+            }
+            //HashSet and its HashMap
+            return shallowSize(type) + align(HEADER + 6 * REFERENCE + 8) + table(collection.size());
+        }
+        if (!type.getName().startsWith("java.")) {
+            for (Field field : referenceFields(type)) {
+                try {
+                    push(stack, field.get(object));
+                } catch (IllegalAccessException e) {
+                    //Not walked, only its shallow size is counted
+                }
+            }
+        }
+        return shallowSize(type);
+    }
+
+    private long visitArray(Object array, Deque<Object> stack) {
+        Class<?> componentType = array.getClass().getComponentType();
+        if (!componentType.isPrimitive()) {
+            Object[] objects = (Object[]) array;
+            for (Object element : objects) {
+                push(stack, element);
+            }
+            return array((long) REFERENCE * objects.length);
+        }
+        return array((long) fieldSize(componentType) * Array.getLength(array));
+    }
+
+    private static void push(Deque<Object> stack, Object object) {
+        if (object != null) {
+            stack.push(object);
+        }
+    }
+
+    private long shallowSize(Class<?> type) {
+        Long size = shallowSizes.get(type);
+        if (size == null) {
+            long fields = 0;
+            for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fields += fieldSize(field.getType());
+                    }
+                }
+            }
+            size = align(HEADER + fields);
+            shallowSizes.put(type, size);
+        }
+        return size;
+    }
+
+    private List<Field> referenceFields(Class<?> type) {
+        List<Field> fields = referenceFields.get(type);
+        if (fields == null) {
+            fields = new ArrayList<>();
+            for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    //The bindings of a parameterized translator are counted with the types using them, through their
+                    //parent binding, not through the cache of all the bindings of the translator
+                    boolean bindingCache = clazz == AbstractTranslator.class && field.getName().equals("bindings");
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive() && !bindingCache) {
+                        try {
+                            field.setAccessible(true);
+                            fields.add(field);
+                        } catch (RuntimeException e) {
+                            //Field of a module which isn't open, only counted in the shallow size
+                        }
+                    }
+                }
+            }
+            referenceFields.put(type, fields);
+        }
+        return fields;
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    private static boolean isLatin1(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param size number of entries
+     * @return size of the entries and table of a hash map with the default load factor
+     */
+    private static long table(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) * 2 - 1);
+        return array((long) REFERENCE * capacity) + (long) MAP_ENTRY * size;
+    }
+
+    private static long array(long contentSize) {
+        return align(ARRAY_HEADER + contentSize);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
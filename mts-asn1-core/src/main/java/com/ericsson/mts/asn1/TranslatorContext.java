@@ -10,16 +10,106 @@
 
 package com.ericsson.mts.asn1;
 
-import java.util.HashMap;
+import java.math.BigInteger;
+import java.util.Arrays;
 
+/**
+ * Values of the components referenced by component relation constraints (@.id), used by open types to find their type
+ * in an object set. Each SEQUENCE gives an int slot to the components referenced by its fields and pushes a frame of
+ * slots when it is encoded or decoded, so one instance is reused for a whole message. Values fitting in an int are
+ * kept as int, others as String. Instances are not thread-safe : use one per encoded or decoded message.
+ */
 public class TranslatorContext {
-    private HashMap<String, String> fields = new HashMap<>();
+    private static final byte UNSET = 0;
+    private static final byte INT = 1;
+    private static final byte STRING = 2;
+
+    private byte[] kinds = new byte[8];
+    private int[] intValues = new int[8];
+    private String[] stringValues = new String[8];
+    //Frame of the current SEQUENCE is [base, top)
+    private int base = 0;
+    private int top = 0;
+    //Absolute slot written by putKey, -1 if the component being translated isn't referenced
+    private int target = -1;
+
+    /**
+     * Push a frame of unset slots.
+     *
+     * @param slotCount number of slots of the frame
+     * @return previous frame, to give back to {@link #leave(int)}
+     */
+    public int enter(int slotCount) {
+        int previousBase = base;
+        base = top;
+        top += slotCount;
+        if (top > kinds.length) {
+            int capacity = Math.max(top, kinds.length * 2);
+            kinds = Arrays.copyOf(kinds, capacity);
+            intValues = Arrays.copyOf(intValues, capacity);
+            stringValues = Arrays.copyOf(stringValues, capacity);
+        }
+        for (int i = base; i < top; i++) {
+            kinds[i] = UNSET;
+            stringValues[i] = null;
+        }
+        target = -1;
+        return previousBase;
+    }
+
+    /**
+     * Pop the current frame.
+     *
+     * @param previousBase value returned by {@link #enter(int)}
+     */
+    public void leave(int previousBase) {
+        top = base;
+        base = previousBase;
+        target = -1;
+    }
+
+    /**
+     * Select the slot written by the next {@link #putKey(BigInteger)}.
+     *
+     * @param slot slot in the current frame, or -1 if the next component isn't referenced
+     */
+    public void setTarget(int slot) {
+        target = slot < 0 ? -1 : base + slot;
+    }
+
+    public void putKey(BigInteger value) {
+        if (target < 0) {
+            return;
+        }
+        if (value.bitLength() < 32) {
+            kinds[target] = INT;
+            intValues[target] = value.intValue();
+        } else {
+            kinds[target] = STRING;
+            stringValues[target] = value.toString();
+        }
+    }
+
+    public boolean isIntKey(int slot) {
+        return kinds[base + slot] == INT;
+    }
 
-    public void put(String key, String value) {
-        fields.put(key, value);
+    public int getIntKey(int slot) {
+        return intValues[base + slot];
     }
 
-    public String get(String key) {
-        return fields.get(key);
+    /**
+     * @param slot slot in the current frame
+     * @return the value as a String, or null if it is unset
+     */
+    public String getKey(int slot) {
+        switch (kinds[base + slot]) {
+            case INT:
+                return String.valueOf(intValues[base + slot]);
+            case STRING:
+                return stringValues[base + slot];
+            default:
+                return null;
+        }
     }
 }
@@ -148,6 +148,22 @@ public class ClassHandler {
         return abstractTranslator;
     }
 
+    /**
+     * Same as {@link #getTypeTranslator(String, String, String)} for an INTEGER unique key
+     *
+     * @param fieldName field name
+     * @param objectSetIdentifier object set identifier
+     * @param uniqueKey value of the unique key
+     * @return translator of the field
+     */
+    public AbstractTranslator getTypeTranslator(String fieldName, String objectSetIdentifier, int uniqueKey) {
+        AbstractTranslator abstractTranslator = mainRegistry.getClassObjectSet(objectSetIdentifier).getTranslatorForField(uniqueKey, fieldName);
+        if (abstractTranslator == null) {
+            throw new RuntimeException("Failed to get ClassObjectSet for identifier " + objectSetIdentifier + ", key " + uniqueKey + " and fieldName " + fieldName);
+        }
+        return abstractTranslator;
+    }
+
     /**
      * USe to get translator associate with a field name
      *
@@ -181,6 +197,21 @@ public class ClassHandler {
         return fieldName;
     }
 
+    /**
+     * Open type fields (type fields) are the ones without a translator in the class
+     *
+     * @param syntax field syntax
+     * @return field name if it's an open type field, null otherwise
+     */
+    String getOpenTypeFieldName(String syntax) {
+        for (Field field : fields) {
+            if (syntax.equals(field.getSyntax()) || syntax.equals(field.getName())) {
+                return field.getType() == null ? field.getName() : null;
+            }
+        }
+        return null;
+    }
+
     /**
      * Use during classObject parsing.
      *
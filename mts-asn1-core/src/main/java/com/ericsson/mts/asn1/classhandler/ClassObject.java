@@ -28,7 +28,10 @@ public class ClassObject {
     private ClassHandler classtype;
     private Logger logger = LoggerFactory.getLogger(ClassObject.class.getSimpleName());
     private List<Map<String, String>> fieldMap = new ArrayList<>();
-    private Map<String, ASN1Parser.AsnTypeContext> settingsMap = new HashMap<>();
+    //Translators of the types set in a local object, created with the object so that no parse tree is kept
+    private Map<String, AbstractTranslator> settingsTranslators = new HashMap<>();
+    //Types which can't be created, the error is thrown when they are used
+    private Map<String, RuntimeException> settingsErrors = new HashMap<>();
 
     /**
      * Intialize ClassObject by parsing objectAssignmentContext
@@ -68,8 +71,13 @@ public class ClassObject {
                 if (definedSyntaxTokenContext.literal() != null && definedSyntaxTokenContext.literal().IDENTIFIER() != null) {
                     unknowsFields.add(definedSyntaxTokenContext.literal().IDENTIFIER().getText());
                 } else if (definedSyntaxTokenContext.setting() != null) {
-                    unknowsFields.add("In settingsMap at " + settingsMap.size());
-                    settingsMap.put(unknowsFields.get(unknowsFields.size() - 1), definedSyntaxTokenContext.setting().asnType());
+                    String setting = "In settingsMap at " + (settingsTranslators.size() + settingsErrors.size());
+                    unknowsFields.add(setting);
+                    try {
+                        settingsTranslators.put(setting, mainRegistry.getTranslator(definedSyntaxTokenContext.setting().asnType()));
+                    } catch (RuntimeException e) {
+                        settingsErrors.put(setting, e);
+                    }
                 } else {
                     throw new NotHandledCaseException("comma");
                 }
@@ -153,21 +161,7 @@ public class ClassObject {
                 //Unique key syntax isn't at the first position everytime, so we have to restart iteration
                 for (Map.Entry<String, String> entry : map.entrySet()) {
                     if (entry.getKey().equals(componentName)) {
-                        AbstractTranslator abstractTranslator;
-                        if (settingsMap.containsKey(componentName)) {
-                            abstractTranslator = mainRegistry.getTranslator(settingsMap.get(componentName));
-                        } else {
-                            abstractTranslator = mainRegistry.getTranslatorFromName(entry.getValue());
-                        }
-                        if (null != abstractTranslator) {
-                            return abstractTranslator;
-                        } else {
-                            abstractTranslator = classtype.getTypeTranslator(entry.getKey());
-                            if (abstractTranslator == null) {
-                                throw new RuntimeException(entry.getKey());
-                            }
-                            return abstractTranslator;
-                        }
+                        return getTranslator(entry);
                     }
                 }
             }
@@ -175,4 +169,50 @@ public class ClassObject {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private AbstractTranslator getTranslator(Map.Entry<String, String> entry) {
+        AbstractTranslator abstractTranslator;
+        if (settingsTranslators.containsKey(entry.getValue())) {
+            //Setting of a local object, the value is its settingsTranslators key
+            abstractTranslator = settingsTranslators.get(entry.getValue());
+        } else if (settingsErrors.containsKey(entry.getValue())) {
+            throw settingsErrors.get(entry.getValue());
+        } else {
+            abstractTranslator = mainRegistry.getTranslatorFromName(entry.getValue());
+        }
+        if (null != abstractTranslator) {
+            return abstractTranslator;
+        } else {
+            abstractTranslator = classtype.getTypeTranslator(entry.getKey());
+            if (abstractTranslator == null) {
+                throw new RuntimeException(entry.getKey());
+            }
+            return abstractTranslator;
+        }
+    }
+
+    /**
+     * Add the open type translators of this object to an object set index, under the syntax and the name of the
+     * field
+     *
+     * @param index object set index
+     * @param uniqueKeySyntax unique key syntax
+     */
+    void addTo(ObjectSetIndex index, String uniqueKeySyntax) {
+        for (Map<String, String> map : fieldMap) {
+            String uniqueKeyName = map.get(uniqueKeySyntax);
+            if (uniqueKeyName == null) {
+                continue;
+            }
+            String uniqueKeyValue = mainRegistry.getConstantFromName(uniqueKeyName).getValue();
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                String fieldName = classtype.getOpenTypeFieldName(entry.getKey());
+                if (fieldName != null) {
+                    AbstractTranslator abstractTranslator = getTranslator(entry);
+                    index.add(uniqueKeyValue, entry.getKey(), abstractTranslator);
+                    index.add(uniqueKeyValue, fieldName, abstractTranslator);
+                }
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ public class ClassObjectSet {
     private ArrayList<String> objects = new ArrayList<>(); //object nor object set
     private HashMap<String, ClassObject> localObjects = new HashMap<>();
     private boolean hasEllipsis = false;
+    private volatile ObjectSetIndex index;
 
     /**
      * Initialize objectSet by parsing associate context
@@ -93,6 +94,75 @@ public class ClassObjectSet {
      * @return target translator
      */
     public AbstractTranslator getTranslatorForField(String uniqueKey, String componentName) {
+        AbstractTranslator abstractTranslator = index().get(uniqueKey, componentName);
+        if (abstractTranslator != null || classType.getOpenTypeFieldName(componentName) != null) {
+            return abstractTranslator;
+        }
+        //Only open type fields are indexed
+        return searchTranslatorForField(uniqueKey, componentName);
+    }
+
+    /**
+     * Open type : Return translator for a given key and name
+     * @param uniqueKey unique key value as an int
+     * @param componentName translator name
+     * @return target translator
+     */
+    public AbstractTranslator getTranslatorForField(int uniqueKey, String componentName) {
+        AbstractTranslator abstractTranslator = index().get(uniqueKey, componentName);
+        if (abstractTranslator != null || classType.getOpenTypeFieldName(componentName) != null) {
+            return abstractTranslator;
+        }
+        //Only open type fields are indexed
+        return searchTranslatorForField(String.valueOf(uniqueKey), componentName);
+    }
+
+    /**
+     * Build the index used by getTranslatorForField, done by MainRegistry once all the objects are parsed
+     */
+    public void buildIndex() {
+        index();
+    }
+
+    private ObjectSetIndex index() {
+        ObjectSetIndex objectSetIndex = index;
+        if (objectSetIndex == null) {
+            synchronized (this) {
+                objectSetIndex = index;
+                if (objectSetIndex == null) {
+                    objectSetIndex = new ObjectSetIndex();
+                    addTo(objectSetIndex);
+                    index = objectSetIndex;
+                }
+            }
+        }
+        return objectSetIndex;
+    }
+
+    /**
+     * Add the objects of this set to an index, in the order of the linear search
+     * @param objectSetIndex index
+     */
+    private void addTo(ObjectSetIndex objectSetIndex) {
+        for (String object : objects) {
+            ClassObject classObject = localObjects.get(object);
+            if (classObject == null) {
+                classObject = mainRegistry.getClassObject(object);
+            }
+            if (classObject != null) {
+                classObject.addTo(objectSetIndex, classType.getUniqueKeyName());
+            } else {
+                ClassObjectSet classObjectSet = mainRegistry.getClassObjectSet(object);
+                if (classObjectSet != null) {
+                    classObjectSet.addTo(objectSetIndex);
+                } else {
+                    throw new RuntimeException("Can't find object " + object + " in class object set " + toString());
+                }
+            }
+        }
+    }
+
+    private AbstractTranslator searchTranslatorForField(String uniqueKey, String componentName) {
         ClassObject classObject;
         ClassObjectSet classObjectSet;
         AbstractTranslator abstractTranslator;
@@ -112,7 +182,7 @@ public class ClassObjectSet {
                 //if the object is an object set
                 classObjectSet = mainRegistry.getClassObjectSet(object);
                 if (classObjectSet != null) {
-                    abstractTranslator = classObjectSet.getTranslatorForField(uniqueKey, componentName);
+                    abstractTranslator = classObjectSet.searchTranslatorForField(uniqueKey, componentName);
                     if (abstractTranslator != null) {
                         return abstractTranslator;
                     }
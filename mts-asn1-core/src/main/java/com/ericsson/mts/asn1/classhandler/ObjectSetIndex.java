@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1.classhandler;
+
+import com.ericsson.mts.asn1.translator.AbstractTranslator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flattened view of an object set : open type translators by unique key value and component name. INTEGER keys are
+ * stored in an open addressing table of ints, other keys in a HashMap. When several objects have the same key, the
+ * first one added wins, like the linear search of the object set.
+ */
+final class ObjectSetIndex {
+    private int[] keys = new int[16];
+    private Object[] values = new Object[16];
+    private int size = 0;
+    private final Map<String, Map<String, AbstractTranslator>> otherKeys = new HashMap<>();
+
+    /**
+     * @param uniqueKey unique key value
+     * @return the value as an int, or null if it isn't an integer fitting in an int
+     */
+    static Integer toIntKey(String uniqueKey) {
+        int length = uniqueKey.length();
+        if (length == 0 || length > 10) {
+            return null;
+        }
+        int start = uniqueKey.charAt(0) == '-' ? 1 : 0;
+        if (start == length) {
+            return null;
+        }
+        long value = 0;
+        for (int i = start; i < length; i++) {
+            char c = uniqueKey.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        value = start == 1 ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return null;
+        }
+        return (int) value;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, AbstractTranslator> components(int key) {
+        int i = slot(key);
+        if (values[i] == null) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                i = slot(key);
+            }
+            keys[i] = key;
+            values[i] = new HashMap<String, AbstractTranslator>();
+            size++;
+        }
+        return (Map<String, AbstractTranslator>) values[i];
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Add a translator if there isn't already one for this key and component.
+     *
+     * @param uniqueKey unique key value
+     * @param componentName component name
+     * @param translator translator of the component
+     */
+    void add(String uniqueKey, String componentName, AbstractTranslator translator) {
+        Integer intKey = toIntKey(uniqueKey);
+        Map<String, AbstractTranslator> components;
+        if (intKey != null) {
+            components = components(intKey);
+        } else {
+            components = otherKeys.computeIfAbsent(uniqueKey, key -> new HashMap<>());
+        }
+        components.putIfAbsent(componentName, translator);
+    }
+
+    @SuppressWarnings("unchecked")
+    AbstractTranslator get(int uniqueKey, String componentName) {
+        Object components = values[slot(uniqueKey)];
+        if (components == null) {
+            return null;
+        }
+        return ((Map<String, AbstractTranslator>) components).get(componentName);
+    }
+
+    AbstractTranslator get(String uniqueKey, String componentName) {
+        Integer intKey = toIntKey(uniqueKey);
+        if (intKey != null) {
+            return get(intKey.intValue(), componentName);
+        }
+        Map<String, AbstractTranslator> components = otherKeys.get(uniqueKey);
+        return components == null ? null : components.get(componentName);
+    }
+}
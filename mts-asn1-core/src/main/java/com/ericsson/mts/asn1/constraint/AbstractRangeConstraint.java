@@ -12,6 +12,7 @@ package com.ericsson.mts.asn1.constraint;
 
 import com.ericsson.mts.asn1.registry.MainRegistry;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -45,6 +46,16 @@ public abstract class AbstractRangeConstraint extends AbstractConstraint {
         this.areubNumber = isNumber;
     }
 
+    boolean dependsOn(List<String> parameterNames) {
+        return (!arelbNumber && isParameter(lowerBound, parameterNames))
+                || (!areubNumber && isParameter(upperBound, parameterNames));
+    }
+
+    private boolean isParameter(String bound, List<String> parameterNames) {
+        //Parameters with a builtin governor (INTEGER : ub) are not listed, they are not known constants either
+        return bound != null && (parameterNames.contains(bound) || !mainRegistry.hasConstant(bound));
+    }
+
     void updateValue(Map<String, String> registry) {
         if (arelbNumber && areubNumber) {
             return;
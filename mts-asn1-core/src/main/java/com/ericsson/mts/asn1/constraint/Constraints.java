@@ -207,11 +207,30 @@ public class Constraints {
     }
 
     /**
-     * Update value when a size constraint depend on a parameter
+     * Check if a bound of the size constraint is one of the given parameters or isn't a known constant
+     * @param parameterNames parameter names
+     * @return true if the size constraint depends on a parameter, false otherwise
+     */
+    public boolean sizeConstraintDependsOn(List<String> parameterNames) {
+        return sizeConstraint != null && sizeConstraint.dependsOn(parameterNames);
+    }
+
+    /**
+     * Get lower bound, a bound which is a parameter is read from the registry. The constraint isn't modified.
      * @param registry parameter registry
+     * @return lower bound
+     */
+    public BigInteger getLowerBound(Map<String, String> registry) {
+        return sizeConstraint.getLowerBound(registry);
+    }
+
+    /**
+     * Get upper bound, a bound which is a parameter is read from the registry. The constraint isn't modified.
+     * @param registry parameter registry
+     * @return upper bound
      */
-    public void updateSizeConstraint(Map<String, String> registry) {
-        sizeConstraint.updateValue(registry);
+    public BigInteger getUpperBound(Map<String, String> registry) {
+        return sizeConstraint.getUpperBound(registry);
     }
 
     //Methods of ClassFieldConstraint
@@ -13,6 +13,8 @@ package com.ericsson.mts.asn1.constraint;
 import com.ericsson.mts.asn1.registry.MainRegistry;
 
 import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Use when SIZE keyword appears X.680 51.5
@@ -24,21 +26,31 @@ class SizeConstraint extends AbstractRangeConstraint {
     }
 
     BigInteger getLowerBound() {
-        if (arelbNumber) {
-            return new BigInteger(lowerBound);
-        } else {
-            return new BigInteger(mainRegistry.getConstantFromName(lowerBound).getValue());
-        }
+        return getLowerBound(Collections.emptyMap());
     }
 
     BigInteger getUpperBound() {
+        return getUpperBound(Collections.emptyMap());
+    }
+
+    BigInteger getLowerBound(Map<String, String> registry) {
+        return resolve(lowerBound, arelbNumber, registry);
+    }
+
+    BigInteger getUpperBound(Map<String, String> registry) {
         if (null == upperBound) {
             return null;
         }
-        if (areubNumber) {
-            return new BigInteger(upperBound);
+        return resolve(upperBound, areubNumber, registry);
+    }
+
+    private BigInteger resolve(String bound, boolean isNumber, Map<String, String> registry) {
+        if (isNumber) {
+            return new BigInteger(bound);
+        } else if (registry.containsKey(bound)) {
+            return new BigInteger(registry.get(bound));
         } else {
-            return new BigInteger(mainRegistry.getConstantFromName(upperBound).getValue());
+            return new BigInteger(mainRegistry.getConstantFromName(bound).getValue());
         }
     }
 }
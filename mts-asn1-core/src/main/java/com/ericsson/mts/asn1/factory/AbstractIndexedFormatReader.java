@@ -0,0 +1,312 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1.factory;
+
+import com.ericsson.mts.asn1.NameIndex;
+import com.ericsson.mts.asn1.exception.EncodingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Base of the readers which index their document once. Nodes are numbered in document order, a node is followed by
+ * its own nodes and knows the number of the node after them : going to the next field or element is an array read.
+ * A field is looked up from the last field found in its object, so fields read in document order are found without
+ * scanning. The position is kept in int arrays.
+ * <p>
+ * Subclasses tokenize the document with {@link #addNode} and {@link #closeNode}, then read the value of the node
+ * returned by {@link #valueNode}.
+ */
+public abstract class AbstractIndexedFormatReader implements FormatReader {
+    protected Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
+    private final String ignoredObject;
+
+    //Index of the nodes : name in the parent object, number of the node after it and its own nodes, number of child
+    //nodes, last child found
+    private String[] names = new String[64];
+    private int[] ends = new int[64];
+    private int[] sizes = new int[64];
+    private int[] lastChilds = new int[64];
+    private int count = 0;
+
+    //Current node and, if it was entered as an array, its next element. The parents are in the stacks
+    private int currentNode = 0;
+    private boolean array = false;
+    private int cursor = 1;
+    private int[] nodeStack = new int[16];
+    private int[] cursorStack = new int[16];
+    private boolean[] arrayStack = new boolean[16];
+    private int depth = 0;
+
+    /**
+     * @param ignoredObject name of the object which is the root node itself, entering and leaving it doesn't move. Null
+     *                      if the root node contains the objects by their name.
+     */
+    protected AbstractIndexedFormatReader(String ignoredObject) {
+        this.ignoredObject = ignoredObject;
+    }
+
+    /**
+     * Add a node after the nodes already added. Until it is closed, the node has no child.
+     *
+     * @param name name of the node in its parent, null for an element of an array
+     * @param parent number of the parent node, -1 for the root
+     * @return number of the node
+     */
+    protected final int addNode(String name, int parent) {
+        if (count == names.length) {
+            int length = count * 2;
+            names = Arrays.copyOf(names, length);
+            ends = Arrays.copyOf(ends, length);
+            sizes = Arrays.copyOf(sizes, length);
+            lastChilds = Arrays.copyOf(lastChilds, length);
+            grow(length);
+        }
+        names[count] = name;
+        ends[count] = count + 1;
+        if (parent != -1) {
+            sizes[parent]++;
+        }
+        return count++;
+    }
+
+    /**
+     * Called when the index grows, subclasses grow their own node arrays to the new length.
+     *
+     * @param length new length of the node arrays
+     */
+    protected void grow(int length) {
+    }
+
+    /**
+     * The nodes added after node up to now are its own nodes.
+     *
+     * @param node number of the node
+     */
+    protected final void closeNode(int node) {
+        ends[node] = count;
+    }
+
+    /**
+     * @param node number of a node
+     * @return true if node is an object, whose child nodes can be looked up by name
+     */
+    protected abstract boolean isObject(int node);
+
+    protected final int nodeCount() {
+        return count;
+    }
+
+    protected final String nodeName(int node) {
+        return names[node];
+    }
+
+    protected final int nodeEnd(int node) {
+        return ends[node];
+    }
+
+    protected final int nodeSize(int node) {
+        return sizes[node];
+    }
+
+    protected final int currentNode() {
+        return currentNode;
+    }
+
+    /**
+     * @param path names of the nodes from the root node separated by '/', an element of an array by its index
+     * @return the node at path, or -1
+     */
+    protected final int nodeAt(String path) {
+        int node = 0;
+        for (String segment : path.split("/")) {
+            int found = -1;
+            int index = -1;
+            for (int child = node + 1; child < ends[node]; child = ends[child]) {
+                index++;
+                if (segment.equals(names[child]) || (names[child] == null && segment.equals(String.valueOf(index)))) {
+                    found = child;
+                    break;
+                }
+            }
+            if (found == -1) {
+                return -1;
+            }
+            node = found;
+        }
+        return node;
+    }
+
+    /**
+     * @return the field of an object, found from the last field found, or -1
+     */
+    private int child(int node, String name) {
+        if (!isObject(node)) {
+            return -1;
+        }
+        int last = lastChilds[node];
+        int start = last == 0 ? node + 1 : ends[last];
+        for (int child = start; child < ends[node]; child = ends[child]) {
+            if (name.equals(names[child])) {
+                lastChilds[node] = child;
+                return child;
+            }
+        }
+        for (int child = node + 1; child < start; child = ends[child]) {
+            if (name.equals(names[child])) {
+                lastChilds[node] = child;
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    private int existingChild(int node, String name) {
+        int child = name == null ? -1 : child(node, name);
+        if (child == -1) {
+            throw new EncodingException("Could not find field " + name + " in " + names[node]);
+        }
+        return child;
+    }
+
+    /**
+     * @return the next element if the current node was entered as an array, otherwise the current node
+     */
+    private int fromArray() {
+        if (!array) {
+            return currentNode;
+        }
+        if (cursor >= ends[currentNode]) {
+            throw new EncodingException("No element left in array " + names[currentNode]);
+        }
+        int element = cursor;
+        cursor = ends[cursor];
+        return element;
+    }
+
+    /**
+     * @param name field name, null for the next element of an array
+     * @return the next element if the current node is an array and the element is read without name or isn't an
+     * object, otherwise the field name of the current object or of the next element
+     */
+    protected final int valueNode(String name) {
+        int node = fromArray();
+        if (node != currentNode && (name == null || !isObject(node))) {
+            return node;
+        }
+        return existingChild(node, name);
+    }
+
+    private void push() {
+        if (depth == nodeStack.length) {
+            nodeStack = Arrays.copyOf(nodeStack, depth * 2);
+            cursorStack = Arrays.copyOf(cursorStack, depth * 2);
+            arrayStack = Arrays.copyOf(arrayStack, depth * 2);
+        }
+        nodeStack[depth] = currentNode;
+        cursorStack[depth] = cursor;
+        arrayStack[depth] = array;
+        depth++;
+    }
+
+    private void enter(int node, boolean array) {
+        currentNode = node;
+        this.array = array;
+        cursor = node + 1;
+    }
+
+    private void pop() {
+        depth--;
+        currentNode = nodeStack[depth];
+        cursor = cursorStack[depth];
+        array = arrayStack[depth];
+    }
+
+    private boolean isIgnored(String name) {
+        return ignoredObject != null && ignoredObject.equals(name);
+    }
+
+    @Override
+    public void enterObject(String name) {
+        logger.trace("Enter object {}", name);
+        if (!isIgnored(name)) {
+            int node = fromArray();
+            int object = name != null ? existingChild(node, name) : node;
+            push();
+            enter(object, false);
+        }
+    }
+
+    @Override
+    public void leaveObject(String name) {
+        logger.trace("Leave object {}", name);
+        if (!isIgnored(name)) {
+            pop();
+        }
+    }
+
+    @Override
+    public int enterArray(String name) {
+        int node = existingChild(currentNode, name);
+        push();
+        enter(node, true);
+        logger.trace("Enter array {}, size={}", name, sizes[node]);
+        return sizes[node];
+    }
+
+    @Override
+    public void leaveArray(String name) {
+        logger.trace("Leave array {}", name);
+        pop();
+    }
+
+    @Override
+    public List<String> fieldsValue() {
+        List<String> stringList = new ArrayList<>(sizes[currentNode]);
+        if (isObject(currentNode)) {
+            for (int child = currentNode + 1; child < ends[currentNode]; child = ends[child]) {
+                stringList.add(names[child]);
+            }
+        }
+        return stringList;
+    }
+
+    @Override
+    public String firstFieldValue() {
+        if (!isObject(currentNode) || sizes[currentNode] == 0) {
+            throw new EncodingException("No field in " + names[currentNode]);
+        }
+        return names[currentNode + 1];
+    }
+
+    @Override
+    public BitSet fieldsPresence(NameIndex names) {
+        BitSet present = new BitSet(names.size());
+        if (isObject(currentNode)) {
+            for (int child = currentNode + 1; child < ends[currentNode]; child = ends[child]) {
+                int index = names.indexOf(this.names[child]);
+                if (index != -1) {
+                    present.set(index);
+                }
+            }
+        }
+        return present;
+    }
+
+    @Override
+    public String printCurrentnode() {
+        return names[currentNode] + " : " + fieldsValue();
+    }
+}
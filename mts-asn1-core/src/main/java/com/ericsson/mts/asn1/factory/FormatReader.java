@@ -10,7 +10,10 @@
 
 package com.ericsson.mts.asn1.factory;
 
+import com.ericsson.mts.asn1.NameIndex;
+
 import java.math.BigInteger;
+import java.util.BitSet;
 import java.util.List;
 
 public interface FormatReader {
@@ -33,6 +36,31 @@ public interface FormatReader {
 
     List<String> fieldsValue();
 
+    /**
+     * @return name of the first field of the current object, the chosen alternative of a CHOICE
+     */
+    default String firstFieldValue() {
+        return fieldsValue().get(0);
+    }
+
+    /**
+     * Fields present in the current object, as a bitmap indexed like the names of the type. Fields that aren't in
+     * the names are ignored.
+     *
+     * @param names field names of the type
+     * @return bit i is set if the field of index i is present
+     */
+    default BitSet fieldsPresence(NameIndex names) {
+        BitSet present = new BitSet(names.size());
+        for (String field : fieldsValue()) {
+            int index = names.indexOf(field);
+            if (index != -1) {
+                present.set(index);
+            }
+        }
+        return present;
+    }
+
     String stringValue(String name);
 
     String printCurrentnode();
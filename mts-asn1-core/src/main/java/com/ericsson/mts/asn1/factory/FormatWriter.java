@@ -17,11 +17,23 @@ import java.math.BigInteger;
 public interface FormatWriter {
 
     static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X", b));
+        char[] hex = new char[bytes.length * 2];
+        bytesToHex(bytes, hex);
+        return new String(hex);
+    }
+
+    /**
+     * Write the upper case hexadecimal digits of bytes, two per byte.
+     *
+     * @param bytes bytes to write
+     * @param hex destination, at least twice as long as bytes
+     */
+    static void bytesToHex(byte[] bytes, char[] hex) {
+        String digits = "0123456789ABCDEF";
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = digits.charAt((bytes[i] >> 4) & 0xF);
+            hex[2 * i + 1] = digits.charAt(bytes[i] & 0xF);
         }
-        return sb.toString();
     }
 
     void enterObject(String name);
@@ -11,13 +11,22 @@
 package com.ericsson.mts.asn1.registry;
 
 import com.ericsson.mts.asn1.ASN1Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -51,6 +60,14 @@ class IndexingRegistry {
         return valueIndexingRegistry.remove(identifier);
     }
 
+    boolean containsConstant(String identifier) {
+        return valueIndexingRegistry.containsKey(identifier);
+    }
+
+    boolean containsTranslator(String identifier) {
+        return typeIndixingRegistry.containsKey(identifier) || parameterizedIndixingregistry.containsKey(identifier);
+    }
+
     ASN1Parser.TypeAssignmentContext getTranslatorContext(String identifier) {
         LOG.trace("Parse " + identifier + " as a translator");
         return typeIndixingRegistry.remove(identifier);
@@ -133,6 +150,72 @@ class IndexingRegistry {
         return arrayList;
     }
 
+    /**
+     * Keep only the assignments reachable from root assignments, following every identifier of their parse trees :
+     * references, actual parameters, object sets, objects and classes. Identifiers which aren't assignments (fields,
+     * parameters) are followed too, they can only keep more assignments than needed. The retained contexts are
+     * detached from their module, so the parse trees of the other assignments can be collected.
+     *
+     * @param roots identifiers of the root assignments
+     */
+    void retainReachable(Collection<String> roots) {
+        Set<String> reachable = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(roots);
+        Deque<ParseTree> trees = new ArrayDeque<>();
+        while (!pending.isEmpty()) {
+            String identifier = pending.poll();
+            if (!reachable.add(identifier)) {
+                continue;
+            }
+            ParserRuleContext context = getAssignmentContext(identifier);
+            if (context == null) {
+                continue;
+            }
+            trees.push(context);
+            while (!trees.isEmpty()) {
+                ParseTree tree = trees.pop();
+                if (tree instanceof TerminalNode) {
+                    if (((TerminalNode) tree).getSymbol().getType() == ASN1Parser.IDENTIFIER) {
+                        pending.add(tree.getText());
+                    }
+                } else {
+                    for (int i = 0; i < tree.getChildCount(); i++) {
+                        trees.push(tree.getChild(i));
+                    }
+                }
+            }
+        }
+
+        int dropped = 0;
+        for (Map<String, ? extends ParserRuleContext> indexingRegistry : Arrays.asList(valueIndexingRegistry, typeIndixingRegistry,
+                parameterizedIndixingregistry, objectClassIndexingRegistry, objectAssignmentContextHashMap)) {
+            Iterator<? extends Map.Entry<String, ? extends ParserRuleContext>> it = indexingRegistry.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, ? extends ParserRuleContext> entry = it.next();
+                if (reachable.contains(entry.getKey())) {
+                    entry.getValue().parent = null;
+                } else {
+                    it.remove();
+                    dropped++;
+                }
+            }
+        }
+        LOG.debug("{} identifiers reachable from {}, {} assignments dropped", reachable.size(), roots, dropped);
+    }
+
+    private ParserRuleContext getAssignmentContext(String identifier) {
+        if (typeIndixingRegistry.containsKey(identifier)) {
+            return typeIndixingRegistry.get(identifier);
+        } else if (parameterizedIndixingregistry.containsKey(identifier)) {
+            return parameterizedIndixingregistry.get(identifier);
+        } else if (valueIndexingRegistry.containsKey(identifier)) {
+            return valueIndexingRegistry.get(identifier);
+        } else if (objectAssignmentContextHashMap.containsKey(identifier)) {
+            return objectAssignmentContextHashMap.get(identifier);
+        }
+        return objectClassIndexingRegistry.get(identifier);
+    }
+
     /**
      * @return true if all contexts are consume, false otherwise
      */
@@ -21,7 +21,12 @@ import com.ericsson.mts.asn1.exception.UnknownIdentifierException;
 import com.ericsson.mts.asn1.factory.AbstractTranslatorFactory;
 import com.ericsson.mts.asn1.translator.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Parse(lazy parsing) and store all ASN.1 objects.
@@ -40,6 +45,8 @@ public class MainRegistry {
     private ParsedRegistry<ClassObject> classObjectParsedRegistry = new ParsedRegistry<>();
     //Object set
     private ParsedRegistry<ClassObjectSet> classObjectSetParsedRegistry = new ParsedRegistry<>();
+    //All translators created, including anonymous ones
+    private final List<AbstractTranslator> createdTranslators = Collections.synchronizedList(new ArrayList<>());
 
     public MainRegistry(AbstractTranslatorFactory abstractTranslatorFactory) {
         this.abstractTranslatorFactory = abstractTranslatorFactory;
@@ -49,6 +56,21 @@ public class MainRegistry {
         indexingRegistry.addAssignment(assignmentContext);
     }
 
+    /**
+     * Drop the assignments which aren't reachable from the root types, before parsing.
+     *
+     * @param rootTypeNames names of the root types
+     * @throws UnknownIdentifierException if a root type isn't defined in the grammar
+     */
+    public void retainReachable(Collection<String> rootTypeNames) {
+        for (String rootTypeName : rootTypeNames) {
+            if (typeTranslatorParsedRegistry.get(rootTypeName) == null && !indexingRegistry.containsTranslator(rootTypeName)) {
+                throw new UnknownIdentifierException(rootTypeName);
+            }
+        }
+        indexingRegistry.retainReachable(rootTypeNames);
+    }
+
     public boolean checkIndexingRegistry() {
         return indexingRegistry.checkRegistry();
     }
@@ -66,6 +88,10 @@ public class MainRegistry {
         return abstractConstant;
     }
 
+    public boolean hasConstant(String identifier) {
+        return valueTranslatorParsedRegistry.get(identifier) != null || indexingRegistry.containsConstant(identifier);
+    }
+
     public AbstractConstant getConstant(ASN1Parser.BuiltinValueContext builtinValueContext) {
         if (null != builtinValueContext.integerValue()) {
             //Primitive case
@@ -98,7 +124,15 @@ public class MainRegistry {
 
     //Translators
 
-    public synchronized AbstractTranslator getTranslatorFromName(final String identifier) {
+    public AbstractTranslator getTranslatorFromName(final String identifier) {
+        AbstractTranslator abstractTranslator = typeTranslatorParsedRegistry.get(identifier);
+        if (null != abstractTranslator) {
+            return abstractTranslator;
+        }
+        return parseTranslatorFromName(identifier);
+    }
+
+    private synchronized AbstractTranslator parseTranslatorFromName(final String identifier) {
         AbstractTranslator abstractTranslator = typeTranslatorParsedRegistry.get(identifier);
         if (null != abstractTranslator) {
             return abstractTranslator;
@@ -163,6 +197,12 @@ public class MainRegistry {
     }
 
     private AbstractTranslator createTranslator(String translatorIdentifier, ASN1Parser.AsnTypeContext asnTypeContext, ASN1Parser.ParameterListContext parameterListContext) {
+        AbstractTranslator abstractTranslator = instantiateTranslator(translatorIdentifier, asnTypeContext, parameterListContext);
+        createdTranslators.add(abstractTranslator);
+        return abstractTranslator;
+    }
+
+    private AbstractTranslator instantiateTranslator(String translatorIdentifier, ASN1Parser.AsnTypeContext asnTypeContext, ASN1Parser.ParameterListContext parameterListContext) {
         if (asnTypeContext.builtinType() != null) {
             if (asnTypeContext.builtinType().sequenceOfType() != null) {
                 AbstractSequenceOfTranslator abstractTranslator = abstractTranslatorFactory.sequenceOfTranslator();
@@ -184,6 +224,12 @@ public class MainRegistry {
     }
 
     private AbstractTranslator createTranslator(String identifier, ASN1Parser.BuiltinTypeContext builtinTypeContext, List<ASN1Parser.ConstraintContext> constraintContexts) throws NotHandledCaseException {
+        AbstractTranslator abstractTranslator = instantiateTranslator(identifier, builtinTypeContext, constraintContexts);
+        createdTranslators.add(abstractTranslator);
+        return abstractTranslator;
+    }
+
+    private AbstractTranslator instantiateTranslator(String identifier, ASN1Parser.BuiltinTypeContext builtinTypeContext, List<ASN1Parser.ConstraintContext> constraintContexts) throws NotHandledCaseException {
         if (builtinTypeContext.octetStringType() != null) {
             AbstractOctetStringTranslator octetStringTranslator = abstractTranslatorFactory.octetStringTranslator();
             octetStringTranslator.setName(identifier);
@@ -257,6 +303,60 @@ public class MainRegistry {
         }
     }
 
+    /**
+     * @return sorted names of the types parsed so far which have no parameters
+     */
+    public List<String> getTypeNames() {
+        List<String> typeNames = new ArrayList<>();
+        for (Map.Entry<String, AbstractTranslator> entry : typeTranslatorParsedRegistry.getRegistry().entrySet()) {
+            if (!entry.getValue().isParameterized()) {
+                typeNames.add(entry.getKey());
+            }
+        }
+        Collections.sort(typeNames);
+        return typeNames;
+    }
+
+    /**
+     * @param identifier name of a type, value, class, object or object set
+     * @return the parsed translator, constant, class handler, object or object set with this name, or null
+     */
+    public Object getParsed(String identifier) {
+        for (ParsedRegistry<?> parsedRegistry : parsedRegistries()) {
+            Object parsed = parsedRegistry.get(identifier);
+            if (parsed != null) {
+                return parsed;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the translators, constants, class handlers, objects and object sets parsed so far
+     */
+    public List<Object> getParsed() {
+        List<Object> parsed = new ArrayList<>();
+        for (ParsedRegistry<?> parsedRegistry : parsedRegistries()) {
+            parsed.addAll(parsedRegistry.getRegistry().values());
+        }
+        return parsed;
+    }
+
+    private List<ParsedRegistry<?>> parsedRegistries() {
+        return Arrays.asList(typeTranslatorParsedRegistry, valueTranslatorParsedRegistry, classHandlerParsedRegistry,
+                classObjectParsedRegistry, classObjectSetParsedRegistry);
+    }
+
+    /**
+     * Compile all the translators created so far, see {@link AbstractTranslator#compile()}
+     */
+    public void compileTranslators() {
+        //Compiling can create new translators, they are compiled too
+        for (int i = 0; i < createdTranslators.size(); i++) {
+            createdTranslators.get(i).compile();
+        }
+    }
+
     // Objects
 
     public ClassObject getClassObject(String identifier) {
@@ -315,6 +415,15 @@ public class MainRegistry {
         }
     }
 
+    /**
+     * Build the open type index of all the object sets, see {@link ClassObjectSet#buildIndex()}
+     */
+    public void indexClassObjectSets() {
+        for (ClassObjectSet classObjectSet : classObjectSetParsedRegistry.getRegistry().values()) {
+            classObjectSet.buildIndex();
+        }
+    }
+
     //Classes
 
     public ClassHandler getClassHandler(String identifier) {
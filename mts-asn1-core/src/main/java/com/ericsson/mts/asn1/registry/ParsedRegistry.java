@@ -11,20 +11,22 @@
 package com.ericsson.mts.asn1.registry;
 
 
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ParsedRegistry<T> {
-    private HashMap<String, T> registry = new HashMap<>();
+    //Read without lock by encoders and decoders once parsed
+    private Map<String, T> registry = new ConcurrentHashMap<>();
 
-    public HashMap<String, T> getRegistry() {
+    public Map<String, T> getRegistry() {
         return registry;
     }
 
-    public synchronized void add(String identifier, T abstractTranslator) {
+    public void add(String identifier, T abstractTranslator) {
         registry.put(identifier, abstractTranslator);
     }
 
-    public synchronized T get(String identifier) {
+    public T get(String identifier) {
         return registry.get(identifier);
     }
 }
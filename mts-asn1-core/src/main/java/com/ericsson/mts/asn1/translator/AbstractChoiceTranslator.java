@@ -12,6 +12,7 @@ package com.ericsson.mts.asn1.translator;
 import com.ericsson.mts.asn1.ASN1Parser;
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.NameIndex;
 import com.ericsson.mts.asn1.TranslatorContext;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.factory.FormatReader;
@@ -20,6 +21,7 @@ import com.ericsson.mts.asn1.registry.MainRegistry;
 import org.javatuples.Pair;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public abstract class AbstractChoiceTranslator extends AbstractTranslator {
@@ -27,6 +29,8 @@ public abstract class AbstractChoiceTranslator extends AbstractTranslator {
     protected List<Pair<String, AbstractTranslator>> fieldList = new ArrayList<>();
     protected List<Pair<String, AbstractTranslator>> extensionFieldList = new ArrayList<>();
     protected boolean optionalExtensionMarker = false;
+    //Root alternatives then extension alternatives
+    protected NameIndex alternativeNames = new NameIndex(Collections.emptyList());
 
     public AbstractTranslator init(MainRegistry mainRegistry, ASN1Parser.ChoiceTypeContext ctx) throws NotHandledCaseException {
 
@@ -57,29 +61,33 @@ public abstract class AbstractChoiceTranslator extends AbstractTranslator {
                 }
             }
         }
+        List<String> names = new ArrayList<>();
+        fieldList.forEach(pair -> names.add(pair.getValue0()));
+        extensionFieldList.forEach(pair -> names.add(pair.getValue0()));
+        alternativeNames = new NameIndex(names);
         return this;
     }
 
     @Override
     public final void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
         reader.enterObject(name);
-        doEncode(s, reader, reader.fieldsValue().get(0));
+        doEncode(s, reader, translatorContext, reader.firstFieldValue());
         reader.leaveObject(name);
     }
 
-    public abstract void doEncode(BitArray s, FormatReader reader, String choiceValue) throws Exception;
+    public abstract void doEncode(BitArray s, FormatReader reader, TranslatorContext translatorContext, String choiceValue) throws Exception;
 
     @Override
     public void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
         writer.enterObject(name);
         try {
-            doDecode(s, writer);
+            doDecode(s, writer, translatorContext);
         } finally {
             writer.leaveObject(name);
         }
     }
 
-    public abstract void doDecode(BitInputStream s, FormatWriter writer) throws Exception;
+    public abstract void doDecode(BitInputStream s, FormatWriter writer, TranslatorContext translatorContext) throws Exception;
 
     @Override
     public String toString() {
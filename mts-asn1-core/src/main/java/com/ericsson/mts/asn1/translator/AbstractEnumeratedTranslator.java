@@ -12,6 +12,7 @@ package com.ericsson.mts.asn1.translator;
 import com.ericsson.mts.asn1.ASN1Parser;
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.NameIndex;
 import com.ericsson.mts.asn1.TranslatorContext;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.factory.FormatReader;
@@ -19,6 +20,7 @@ import com.ericsson.mts.asn1.factory.FormatWriter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public abstract class AbstractEnumeratedTranslator extends AbstractTranslator {
@@ -27,6 +29,8 @@ public abstract class AbstractEnumeratedTranslator extends AbstractTranslator {
     protected boolean exceptionSpec = false;
     protected boolean hasExtensionMarker = false;
     protected ArrayList<String> additionalFieldsList = new ArrayList<>();
+    protected NameIndex rootNames = new NameIndex(Collections.emptyList());
+    protected NameIndex additionalNames = new NameIndex(Collections.emptyList());
 
     public AbstractTranslator init(ASN1Parser.EnumeratedTypeContext enumeratedTypeContext) {
         if (enumeratedTypeContext.enumerations().ELLIPSIS() != null) {
@@ -64,6 +68,8 @@ public abstract class AbstractEnumeratedTranslator extends AbstractTranslator {
                 }
             });
         }
+        rootNames = new NameIndex(fieldList);
+        additionalNames = new NameIndex(additionalFieldsList);
         return this;
     }
 
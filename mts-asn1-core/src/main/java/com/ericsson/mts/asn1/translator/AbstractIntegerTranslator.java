@@ -58,7 +58,7 @@ public abstract class AbstractIntegerTranslator extends AbstractTranslator {
     public final void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
         BigInteger value = reader.intValue(name);
         if (null != translatorContext) {
-            translatorContext.put(name, value.toString());
+            translatorContext.putKey(value);
         }
         doEncode(s, value);
     }
@@ -69,7 +69,7 @@ public abstract class AbstractIntegerTranslator extends AbstractTranslator {
     public final void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws NotHandledCaseException, IOException {
         BigInteger bigInteger = doDecode(s);
         if (null != translatorContext) {
-            translatorContext.put(name, bigInteger.toString());
+            translatorContext.putKey(bigInteger);
         }
         String namedNumber = namedNumbers.get(bigInteger);
         writer.intValue(name, bigInteger, namedNumber);
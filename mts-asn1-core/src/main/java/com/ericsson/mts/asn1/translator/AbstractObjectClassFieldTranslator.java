@@ -24,12 +24,15 @@ import com.ericsson.mts.asn1.registry.MainRegistry;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public abstract class AbstractObjectClassFieldTranslator extends AbstractTranslator {
     protected ClassHandler classHandler;
     protected String fieldName;
     protected Constraints constraints;
+    //Slot of the target component in the context of the enclosing sequence, set by the sequence
+    protected int targetSlot = -1;
+    private final BindingState<String> objectSetIdentifier = new BindingState<>(String.class,
+            binding -> binding.getRegister().get(constraints.getObjectSetName()));
 
     public AbstractTranslator init(MainRegistry mainRegistry, ASN1Parser.ObjectClassFieldTypeContext objectClassFieldTypeContext, List<ASN1Parser.ConstraintContext> constraintContext) {
         if (objectClassFieldTypeContext.definedObjectClass().IDENTIFIER(0) != null) {
@@ -60,18 +63,60 @@ public abstract class AbstractObjectClassFieldTranslator extends AbstractTransla
 
     @Override
     public final void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
-        doEncode(name, s, reader, translatorContext, getRegister(parameters));
+        doEncode(name, s, reader, translatorContext, getBinding(parameters));
     }
 
     @Override
     public final void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
-        doDecode(name, s, writer, translatorContext, getRegister(parameters));
+        doDecode(name, s, writer, translatorContext, getBinding(parameters));
     }
 
-    public abstract void doEncode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, Map<String, String> registry) throws Exception;
+    String getTargetComponent() {
+        return constraints.getTargetComponent();
+    }
+
+    void setTargetSlot(int targetSlot) {
+        this.targetSlot = targetSlot;
+    }
+
+    @Override
+    protected void bindChildren(ParameterBinding binding) {
+        getObjectSetIdentifier(binding);
+    }
+
+    /**
+     * @param binding actual parameters
+     * @return identifier of the object set given as parameter, resolved once per binding
+     */
+    protected String getObjectSetIdentifier(ParameterBinding binding) {
+        return objectSetIdentifier.get(binding);
+    }
+
+    /**
+     * Find the type of an open type in the object set, with the value of the target component.
+     *
+     * @param translatorContext context of the enclosing sequence
+     * @param binding actual parameters
+     * @return translator of the open type
+     */
+    protected AbstractTranslator getOpenTypeTranslator(TranslatorContext translatorContext, ParameterBinding binding) {
+        String objectSetIdentifier = getObjectSetIdentifier(binding);
+        if (targetSlot >= 0 && translatorContext != null) {
+            if (translatorContext.isIntKey(targetSlot)) {
+                return classHandler.getTypeTranslator(fieldName, objectSetIdentifier, translatorContext.getIntKey(targetSlot));
+            }
+            String uniqueKey = translatorContext.getKey(targetSlot);
+            if (uniqueKey != null) {
+                return classHandler.getTypeTranslator(fieldName, objectSetIdentifier, uniqueKey);
+            }
+        }
+        throw new NullPointerException("Unique key not found in context for field " + fieldName + " target component " + constraints.getTargetComponent());
+    }
+
+    public abstract void doEncode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, ParameterBinding binding) throws Exception;
 
 
-    protected abstract void doDecode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, Map<String, String> registry) throws Exception;
+    protected abstract void doDecode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, ParameterBinding binding) throws Exception;
 
 
     @Override
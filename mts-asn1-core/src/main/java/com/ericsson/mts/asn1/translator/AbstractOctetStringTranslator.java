@@ -20,7 +20,6 @@ import com.ericsson.mts.asn1.factory.FormatReader;
 import com.ericsson.mts.asn1.factory.FormatWriter;
 import com.ericsson.mts.asn1.registry.MainRegistry;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.List;
@@ -63,7 +62,7 @@ public abstract class AbstractOctetStringTranslator extends AbstractTranslator {
         if (!constraints.hasContentsConstraint()) {
             writer.bytesValue(name, doDecode(s, writer));
         } else {
-            BitInputStream bitInputStream = new BitInputStream(new ByteArrayInputStream(doDecode(s, writer)));
+            BitInputStream bitInputStream = new BitInputStream(doDecode(s, writer));
             constraints.getContentTranslator().decode(name, bitInputStream, writer, translatorContext);
         }
     }
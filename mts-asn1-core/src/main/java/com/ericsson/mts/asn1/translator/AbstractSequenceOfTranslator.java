@@ -20,8 +20,8 @@ import com.ericsson.mts.asn1.factory.FormatWriter;
 import com.ericsson.mts.asn1.registry.MainRegistry;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 public abstract class AbstractSequenceOfTranslator extends AbstractTranslator {
 
@@ -76,26 +76,54 @@ public abstract class AbstractSequenceOfTranslator extends AbstractTranslator {
         }
     }
 
+    @Override
+    public void compile() {
+        if (!isParameterized()) {
+            getBinding(Collections.emptyList());
+        }
+    }
+
+    @Override
+    protected int getBindingChildCount() {
+        return 1;
+    }
+
+    @Override
+    protected void bindChildren(ParameterBinding binding) {
+        getComponentBinding(binding);
+    }
+
+    /**
+     * @param binding binding of this sequence of
+     * @return binding of the component type, null if it isn't parameterized
+     */
+    protected final ParameterBinding getComponentBinding(ParameterBinding binding) {
+        if (!typeTranslator.isParameterized()) {
+            return null;
+        }
+        return binding.getChild(0, typeTranslator, actualParameters);
+    }
+
     @Override
     public final void encode(String inputName, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
         int numberOfComponents = reader.enterArray(inputName);
-        doEncode(s, reader, numberOfComponents, getRegister(parameters));
+        doEncode(s, reader, translatorContext, numberOfComponents, getBinding(parameters));
         reader.leaveArray(inputName);
     }
 
-    public abstract void doEncode(BitArray s, FormatReader reader, int numberOfComponents, Map<String, String> registry) throws Exception;
+    public abstract void doEncode(BitArray s, FormatReader reader, TranslatorContext translatorContext, int numberOfComponents, ParameterBinding binding) throws Exception;
 
     @Override
     public final void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
         writer.enterArray(name);
         try {
-            doDecode(s, writer, getRegister(parameters));
+            doDecode(s, writer, translatorContext, getBinding(parameters));
         } finally {
             writer.leaveArray(name);
         }
     }
 
-    protected abstract void doDecode(BitInputStream s, FormatWriter writer, Map<String, String> registry) throws Exception;
+    protected abstract void doDecode(BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, ParameterBinding binding) throws Exception;
 
     @Override
     public String toString() {
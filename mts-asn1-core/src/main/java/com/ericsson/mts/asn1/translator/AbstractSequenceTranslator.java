@@ -12,6 +12,7 @@ package com.ericsson.mts.asn1.translator;
 import com.ericsson.mts.asn1.ASN1Parser;
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.NameIndex;
 import com.ericsson.mts.asn1.TranslatorContext;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.factory.FormatReader;
@@ -19,9 +20,9 @@ import com.ericsson.mts.asn1.factory.FormatWriter;
 import com.ericsson.mts.asn1.registry.MainRegistry;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class AbstractSequenceTranslator extends AbstractTranslator {
@@ -32,7 +33,11 @@ public abstract class AbstractSequenceTranslator extends AbstractTranslator {
     protected int extensionAndException = -1;
     protected boolean optionalExtensionMarker = false;
     protected int rootSequenceOptionalCount = 0;
-    protected boolean[] optionalBitmap;
+    private int fieldCount = 0;
+    //Field names, indexed like Field.index
+    protected NameIndex fieldNames = new NameIndex(Collections.emptyList());
+    //Number of context slots of the components referenced by open types, -1 until they are assigned
+    private volatile int keySlotCount = -1;
 
     public AbstractTranslator init(MainRegistry mainRegistry, ASN1Parser.SequenceTypeContext ctx) throws NotHandledCaseException {
         AtomicReference<Boolean> isOptionnal = new AtomicReference<>(false);
@@ -122,7 +127,10 @@ public abstract class AbstractSequenceTranslator extends AbstractTranslator {
                 throw new NotHandledCaseException();
             }
         }
-        optionalBitmap = new boolean[rootSequenceOptionalCount];
+        List<String> names = new ArrayList<>();
+        fieldList.forEach(field -> names.add(field.getName()));
+        additionnalFieldList.forEach(field -> names.add(field.getName()));
+        fieldNames = new NameIndex(names);
         return this;
     }
 
@@ -156,26 +164,110 @@ public abstract class AbstractSequenceTranslator extends AbstractTranslator {
         return init(mainRegistry, ctx);
     }
 
+    @Override
+    public void compile() {
+        keySlotCount();
+        if (!isParameterized()) {
+            getBinding(Collections.emptyList());
+        }
+    }
+
+    @Override
+    protected int getBindingChildCount() {
+        return fieldCount;
+    }
+
+    @Override
+    protected void bindChildren(ParameterBinding binding) {
+        for (Field field : fieldList) {
+            getFieldBinding(binding, field);
+        }
+        for (Field field : additionnalFieldList) {
+            getFieldBinding(binding, field);
+        }
+    }
+
+    /**
+     * @param binding binding of this sequence
+     * @param field field with a parameterized type
+     * @return binding of the field type
+     */
+    protected final ParameterBinding getFieldBinding(ParameterBinding binding, Field field) {
+        if (!field.getType().isParameterized()) {
+            return null;
+        }
+        return binding.getChild(field.index, field.getType(), field.getParameters());
+    }
+
+    int keySlotCount() {
+        int count = keySlotCount;
+        return count >= 0 ? count : assignKeySlots();
+    }
+
+    /**
+     * Give a context slot to each component referenced by an open type of this sequence, and tell the open type
+     * translators which slot to read.
+     *
+     * @return number of slots
+     */
+    private synchronized int assignKeySlots() {
+        if (keySlotCount >= 0) {
+            return keySlotCount;
+        }
+        List<Field> fields = new ArrayList<>(fieldList);
+        fields.addAll(additionnalFieldList);
+        int count = 0;
+        for (Field field : fields) {
+            if (field.getType() instanceof AbstractObjectClassFieldTranslator) {
+                AbstractObjectClassFieldTranslator objectClassFieldTranslator = (AbstractObjectClassFieldTranslator) field.getType();
+                String targetComponent = objectClassFieldTranslator.getTargetComponent();
+                for (Field targetField : fields) {
+                    if (targetField.getName().equals(targetComponent)) {
+                        if (targetField.keySlot < 0) {
+                            targetField.keySlot = count++;
+                        }
+                        objectClassFieldTranslator.setTargetSlot(targetField.keySlot);
+                        break;
+                    }
+                }
+            }
+        }
+        keySlotCount = count;
+        return count;
+    }
+
     @Override
     public final void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
         reader.enterObject(name);
-        doEncode(s, reader, new TranslatorContext(), reader.fieldsValue(), getRegister(parameters));
+        TranslatorContext context = translatorContext == null ? new TranslatorContext() : translatorContext;
+        int previousFrame = context.enter(keySlotCount());
+        try {
+            doEncode(s, reader, context, reader.fieldsPresence(fieldNames), getBinding(parameters));
+        } finally {
+            context.leave(previousFrame);
+        }
         reader.leaveObject(name);
     }
 
-    public abstract void doEncode(BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> inputFieldList, Map<String, String> registry) throws Exception;
+    /**
+     * @param presentFields fields present in the input, indexed like Field.index
+     */
+    public abstract void doEncode(BitArray s, FormatReader reader, TranslatorContext translatorContext, BitSet presentFields, ParameterBinding binding) throws Exception;
 
     @Override
     public final void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
         writer.enterObject(name);
+        TranslatorContext context = translatorContext == null ? new TranslatorContext() : translatorContext;
+        int previousFrame = context.enter(keySlotCount());
         try {
-            doDecode(s, writer, new TranslatorContext(), getRegister(parameters));
+            doDecode(s, writer, context, getBinding(parameters));
         } finally {
+            context.leave(previousFrame);
             writer.leaveObject(name);
         }
     }
 
-    protected abstract void doDecode(BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, Map<String, String> registry) throws Exception;
+    protected abstract void doDecode(BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, ParameterBinding binding) throws Exception;
 
     @Override
     public String toString() {
@@ -186,7 +278,6 @@ public abstract class AbstractSequenceTranslator extends AbstractTranslator {
                 + ", extensionAndException=" + extensionAndException
                 + ", optionalExtensionMarker=" + optionalExtensionMarker
                 + ", rootSequenceOptionalCount=" + rootSequenceOptionalCount
-                + ", optionalBitmap=" + Arrays.toString(optionalBitmap)
                 + '}';
     }
 
@@ -196,8 +287,13 @@ public abstract class AbstractSequenceTranslator extends AbstractTranslator {
         AbstractTranslator type;
         boolean isOptionnal;
         List<String> parameters = new ArrayList<>();
+        //Context slot when an open type references this component, -1 otherwise
+        int keySlot = -1;
+        //Index of the field binding in the sequence bindings
+        final int index;
 
         public Field(String name, AbstractTranslator type, Boolean isOptionnal) {
+            this.index = fieldCount++;
             this.name = name;
             this.type = type;
             this.isOptionnal = isOptionnal;
@@ -223,5 +319,13 @@ public abstract class AbstractSequenceTranslator extends AbstractTranslator {
             return isOptionnal;
         }
 
+        public int getIndex() {
+            return index;
+        }
+
+        public int getKeySlot() {
+            return keySlot;
+        }
+
     }
 }
@@ -21,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class AbstractTranslator {
     protected Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
@@ -35,6 +36,9 @@ public abstract class AbstractTranslator {
             return str.toString();
         }
     };
+    //One binding per distinct list of actual parameters
+    private final ConcurrentHashMap<List<String>, ParameterBinding> bindings = new ConcurrentHashMap<>();
+    private volatile ParameterBinding emptyBinding;
 
 
     public String getName() {
@@ -65,6 +69,20 @@ public abstract class AbstractTranslator {
         }
     }
 
+    /**
+     * Resolve what only depends on the schema (constraints, bounds, ...) so that encode and decode don't have to.
+     * Called by MainRegistry once all the types are parsed, translators must also work if it has not been called.
+     */
+    public void compile() {
+    }
+
+    /**
+     * @return true if the type has formal parameters
+     */
+    public boolean isParameterized() {
+        return !parameters.isEmpty();
+    }
+
     public List<String> getParameters() {
         List<String> parameterList = new ArrayList<>();
         for (Parameter parameter : parameters) {
@@ -114,6 +132,53 @@ public abstract class AbstractTranslator {
         return register;
     }
 
+    /**
+     * Get the unique binding of this translator for a list of actual parameters, creating it the first time.
+     *
+     * @param values actual parameters, or a binding of this translator
+     * @return binding
+     */
+    protected final ParameterBinding getBinding(List<String> values) {
+        if (values instanceof ParameterBinding && ((ParameterBinding) values).getTranslator() == this) {
+            return (ParameterBinding) values;
+        }
+        if (values.isEmpty()) {
+            ParameterBinding binding = emptyBinding;
+            if (binding == null) {
+                binding = createBinding(values);
+                emptyBinding = binding;
+            }
+            return binding;
+        }
+        ParameterBinding binding = bindings.get(values);
+        return binding == null ? createBinding(values) : binding;
+    }
+
+    private ParameterBinding createBinding(List<String> values) {
+        ParameterBinding created = new ParameterBinding(this, values, getRegister(values), getBindingChildCount());
+        ParameterBinding binding = bindings.putIfAbsent(created, created);
+        if (binding != null) {
+            return binding;
+        }
+        bindChildren(created);
+        return created;
+    }
+
+    /**
+     * @return number of parameterized components a binding of this translator refers to
+     */
+    protected int getBindingChildCount() {
+        return 0;
+    }
+
+    /**
+     * Called once when a binding is created, to create the bindings of the components.
+     *
+     * @param binding new binding
+     */
+    protected void bindChildren(ParameterBinding binding) {
+    }
+
     protected class Parameter {
         private String type;
         private String name;
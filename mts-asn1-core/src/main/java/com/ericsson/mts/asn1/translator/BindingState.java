@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1.translator;
+
+import java.util.function.Function;
+
+/**
+ * What a translator resolves once per binding, for instance the constraints bound by the actual parameters. The
+ * owning translator creates its state with the type of the value and how to resolve it, and reads the value of a
+ * binding with {@link #get(ParameterBinding)}. A translator owns at most one state.
+ *
+ * @param <T> type of the resolved value
+ */
+public final class BindingState<T> {
+    private final Class<T> type;
+    private final Function<ParameterBinding, T> resolver;
+
+    /**
+     * @param type type of the resolved value
+     * @param resolver resolution of the value from the actual parameters, must not return null
+     */
+    public BindingState(Class<T> type, Function<ParameterBinding, T> resolver) {
+        this.type = type;
+        this.resolver = resolver;
+    }
+
+    /**
+     * @param binding binding of the owning translator
+     * @return value for this binding, resolved the first time
+     */
+    public T get(ParameterBinding binding) {
+        Object value = binding.getState();
+        if (value == null) {
+            //Resolution has no side effect, concurrent threads store equal values
+            value = resolver.apply(binding);
+            binding.setState(value);
+        }
+        return type.cast(value);
+    }
+}
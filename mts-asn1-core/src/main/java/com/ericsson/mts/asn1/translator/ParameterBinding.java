@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1.translator;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instance of a parameterized type for one list of actual parameters. There is one binding per translator and per
+ * distinct list, created when the schema is compiled : it holds the parameters register, the bindings of the
+ * parameterized components and what the translator resolved with these parameters, see {@link BindingState}. A binding is
+ * itself the list of actual parameters, passing it to {@link AbstractTranslator#encode} or
+ * {@link AbstractTranslator#decode} avoids any lookup.
+ */
+public final class ParameterBinding extends AbstractList<String> {
+    private final AbstractTranslator translator;
+    private final List<String> values;
+    private final Map<String, String> register;
+    private final ParameterBinding[] children;
+    private volatile Object state;
+
+    ParameterBinding(AbstractTranslator translator, List<String> values, Map<String, String> register, int childCount) {
+        this.translator = translator;
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+        this.register = register;
+        this.children = new ParameterBinding[childCount];
+    }
+
+    AbstractTranslator getTranslator() {
+        return translator;
+    }
+
+    /**
+     * @return map of the formal parameters names to their actual values, an unknown name is mapped to itself
+     */
+    public Map<String, String> getRegister() {
+        return register;
+    }
+
+    /**
+     * Binding of a parameterized component.
+     *
+     * @param index index of the component in the translator, below the child count of the translator
+     * @param childTranslator translator of the component
+     * @param parameterNames names of the parameters given to the component, resolved with the register
+     * @return binding of the component
+     */
+    public ParameterBinding getChild(int index, AbstractTranslator childTranslator, List<String> parameterNames) {
+        ParameterBinding child = children[index];
+        if (child == null) {
+            List<String> childValues = new ArrayList<>(parameterNames.size());
+            for (String parameterName : parameterNames) {
+                childValues.add(register.get(parameterName));
+            }
+            //Bindings are unique, concurrent threads store the same instance
+            child = childTranslator.getBinding(childValues);
+            children[index] = child;
+        }
+        return child;
+    }
+
+    /**
+     * @return value of the {@link BindingState} of the translator, null if not resolved yet
+     */
+    Object getState() {
+        return state;
+    }
+
+    void setState(Object state) {
+        this.state = state;
+    }
+
+    @Override
+    public String get(int index) {
+        return values.get(index);
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public String toString() {
+        return translator.getName() + values;
+    }
+}
@@ -19,12 +19,13 @@ import com.ericsson.mts.asn1.factory.FormatReader;
 import com.ericsson.mts.asn1.factory.FormatWriter;
 import com.ericsson.mts.asn1.registry.MainRegistry;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 public class ReferenceTranslator extends AbstractTranslator {
     private AbstractTranslator referencedTranslator;
+    //Names of the parameters given to the referenced translator
+    private volatile List<String> referencedParameters;
 
     public AbstractTranslator init(MainRegistry mainRegistry, ASN1Parser.ReferencedTypeContext referencedTypeContext) {
         if (referencedTypeContext.definedType().DOT() != null) {
@@ -43,37 +44,66 @@ public class ReferenceTranslator extends AbstractTranslator {
         return init(mainRegistry, referencedTypeContext);
     }
 
+    @Override
+    public void compile() {
+        if (!isParameterized()) {
+            getBinding(Collections.emptyList());
+        }
+    }
+
+    @Override
+    protected int getBindingChildCount() {
+        return 1;
+    }
+
+    @Override
+    protected void bindChildren(ParameterBinding binding) {
+        if (referencedTranslator.isParameterized()) {
+            binding.getChild(0, referencedTranslator, referencedParameters());
+        }
+    }
+
+    private List<String> referencedParameters() {
+        List<String> parametersNeeded = referencedParameters;
+        if (parametersNeeded == null) {
+            parametersNeeded = referencedTranslator.getParameters();
+            referencedParameters = parametersNeeded;
+        }
+        return parametersNeeded;
+    }
+
+    AbstractTranslator getReferencedTranslator() {
+        return referencedTranslator;
+    }
+
+    /**
+     * @param binding binding of this translator
+     * @return binding of the referenced translator, null if it isn't parameterized
+     */
+    ParameterBinding getReferencedBinding(ParameterBinding binding) {
+        if (!referencedTranslator.isParameterized()) {
+            return null;
+        }
+        return binding.getChild(0, referencedTranslator, referencedParameters());
+    }
+
     @Override
     public final void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
         logger.trace("Enter {} encoder, name {}", this.getClass().getSimpleName(), this.name);
-        Map<String, String> registry = getRegister(parameters);
-        List<String> parametersNeeded = referencedTranslator.getParameters();
-        if (parametersNeeded.isEmpty()) {
+        if (!referencedTranslator.isParameterized()) {
             referencedTranslator.encode(name, s, reader, translatorContext);
         } else {
-            //Building parameter list to pass to target translator
-            List<String> inputParameters = new ArrayList<>();
-            for (String parameter : parametersNeeded) {
-                inputParameters.add(registry.get(parameter));
-            }
-            referencedTranslator.encode(name, s, reader, translatorContext, inputParameters);
+            referencedTranslator.encode(name, s, reader, translatorContext, getBinding(parameters).getChild(0, referencedTranslator, referencedParameters()));
         }
     }
 
     @Override
     public final void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
         logger.trace("Enter {} translator, name {}", this.getClass().getSimpleName(), this.name);
-        Map<String, String> registry = getRegister(parameters);
-        List<String> parametersNeeded = referencedTranslator.getParameters();
-        if (parametersNeeded.isEmpty()) {
+        if (!referencedTranslator.isParameterized()) {
             referencedTranslator.decode(name, s, writer, translatorContext);
         } else {
-            //Building parameter list to pass to target translator
-            List<String> inputParameters = new ArrayList<>();
-            for (String parameter : parametersNeeded) {
-                inputParameters.add(registry.get(parameter));
-            }
-            referencedTranslator.decode(name, s, writer, translatorContext, inputParameters);
+            referencedTranslator.decode(name, s, writer, translatorContext, getBinding(parameters).getChild(0, referencedTranslator, referencedParameters()));
         }
     }
 }
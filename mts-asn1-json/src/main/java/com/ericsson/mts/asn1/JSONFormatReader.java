@@ -10,133 +10,214 @@
 
 package com.ericsson.mts.asn1;
 
-import com.ericsson.mts.asn1.factory.FormatReader;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.ericsson.mts.asn1.factory.AbstractIndexedFormatReader;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Stack;
+import java.util.Arrays;
 
-public class JSONFormatReader implements FormatReader {
-    private Logger logger = LoggerFactory.getLogger(JSONFormatReader.class.getSimpleName());
-
-    private String ignoredNode;
-    private JsonNode currentNode;
-    private Stack<JsonNode> stack = new Stack<>();
-    private Stack<Integer> arrayStack = new Stack<>();
+/**
+ * Read a JSON document from a flat index of its values, built in one pass of a JsonParser. The values are the nodes
+ * of an {@link AbstractIndexedFormatReader}.
+ */
+public class JSONFormatReader extends AbstractIndexedFormatReader {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final byte OBJECT = 0;
+    private static final byte ARRAY = 1;
+    private static final byte STRING = 2;
+    private static final byte NUMBER = 3;
+    private static final byte TRUE = 4;
+    private static final byte FALSE = 5;
+    private static final byte NULL = 6;
+
+    //Type and String or Number of each value
+    private byte[] types = new byte[64];
+    private Object[] values = new Object[64];
 
     public JSONFormatReader(InputStream inputStream, String ignoredNode) throws IOException {
-        this.ignoredNode = ignoredNode;
-        ObjectMapper mapper = new ObjectMapper();
-        currentNode = mapper.readTree(inputStream);
-    }
-
-    private JsonNode getFromStack(JsonNode node) {
-        if (currentNode.isArray()) {
-            Integer currentIndex = arrayStack.pop();
-            arrayStack.push(currentIndex + 1);
-            return currentNode.get(currentIndex);
+        super(ignoredNode);
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            index(parser);
+        }
+        if (nodeCount() == 0) {
+            throw new IOException("No JSON content");
         }
-        return node;
     }
 
-    @Override
-    public void enterObject(String name) {
-        logger.trace("Enter object {}", name);
-        if (!ignoredNode.equals(name)) {
-            stack.push(currentNode);
-            currentNode = getFromStack(currentNode);
-            if (name != null) {
-                currentNode = currentNode.get(name);
+    private void index(JsonParser parser) throws IOException {
+        int[] open = new int[16];
+        int openCount = 0;
+        String name = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            switch (token) {
+                case FIELD_NAME:
+                    name = parser.getCurrentName();
+                    continue;
+                case END_OBJECT:
+                case END_ARRAY:
+                    closeNode(open[--openCount]);
+                    if (openCount == 0) {
+                        //Only the first value of the input is read
+                        return;
+                    }
+                    continue;
+                default:
+                    break;
             }
-            if (currentNode == null) {
-                throw new NullPointerException("Name : " + name);
+            int node = addNode(name, openCount > 0 ? open[openCount - 1] : -1);
+            name = null;
+            switch (token) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    types[node] = token == JsonToken.START_OBJECT ? OBJECT : ARRAY;
+                    if (openCount == open.length) {
+                        open = Arrays.copyOf(open, openCount * 2);
+                    }
+                    open[openCount++] = node;
+                    break;
+                case VALUE_STRING:
+                    types[node] = STRING;
+                    values[node] = parser.getText();
+                    break;
+                case VALUE_NUMBER_INT:
+                    types[node] = NUMBER;
+                    values[node] = parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? parser.getBigIntegerValue() : (Object) parser.getLongValue();
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    types[node] = NUMBER;
+                    values[node] = parser.getDoubleValue();
+                    break;
+                case VALUE_TRUE:
+                    types[node] = TRUE;
+                    break;
+                case VALUE_FALSE:
+                    types[node] = FALSE;
+                    break;
+                default:
+                    types[node] = NULL;
+                    break;
             }
-        }
-    }
-
-    @Override
-    public void leaveObject(String name) {
-        logger.trace("Leave object {}", name);
-        if (!ignoredNode.equals(name)) {
-            currentNode = stack.pop();
-            if (currentNode == null) {
-                throw new NullPointerException("Name : " + name);
+            if (openCount == 0) {
+                return;
             }
         }
     }
 
     @Override
-    public int enterArray(String name) {
-        logger.trace("Enter array {}", name);
-        stack.push(currentNode);
-        currentNode = currentNode.get(name);
-        arrayStack.push(0);
-        if (currentNode == null) {
-            throw new NullPointerException("Name : " + name);
-        }
-        return currentNode.size();
+    protected void grow(int length) {
+        types = Arrays.copyOf(types, length);
+        values = Arrays.copyOf(values, length);
     }
 
     @Override
-    public void leaveArray(String name) {
-        logger.trace("Leave array {}", name);
-        currentNode = stack.pop();
-        arrayStack.pop();
-        if (currentNode == null) {
-            throw new NullPointerException("Name : " + name);
-        }
+    protected boolean isObject(int node) {
+        return types[node] == OBJECT;
     }
 
     @Override
     public boolean booleanValue(String name) {
-        return getFromStack(currentNode).get(name).booleanValue();
+        return types[valueNode(name)] == TRUE;
     }
 
     @Override
     public String bitsValue(String name) {
-        return getFromStack(currentNode).get(name).textValue();
+        int node = valueNode(name);
+        return types[node] == STRING ? (String) values[node] : null;
     }
 
     @Override
     public String bytesValue(String name) {
-        JsonNode node = getFromStack(currentNode);
-        if (node.isTextual()) {
-            return node.textValue();
-        }
-        return node.get(name).textValue();
-
+        return bitsValue(name);
     }
 
     @Override
     public BigInteger intValue(String name) {
-        return getFromStack(currentNode).get(name).bigIntegerValue();
-    }
-
-    @Override
-    public List<String> fieldsValue() {
-        Iterator<String> fieldNames = getFromStack(currentNode).fieldNames();
-        List<String> stringList = new ArrayList<>();
-        while (fieldNames.hasNext()) {
-            stringList.add(fieldNames.next());
+        int node = valueNode(name);
+        if (types[node] != NUMBER) {
+            return BigInteger.ZERO;
+        }
+        Object number = values[node];
+        if (number instanceof Long) {
+            return BigInteger.valueOf((Long) number);
+        } else if (number instanceof BigInteger) {
+            return (BigInteger) number;
         }
-        return stringList;
+        return BigDecimal.valueOf((Double) number).toBigInteger();
     }
 
     @Override
     public String stringValue(String name) {
-        return getFromStack(currentNode).get(name).asText();
+        int node = valueNode(name);
+        switch (types[node]) {
+            case STRING:
+                return (String) values[node];
+            case NUMBER:
+                return values[node].toString();
+            case TRUE:
+                return "true";
+            case FALSE:
+                return "false";
+            case NULL:
+                return "null";
+            default:
+                return "";
+        }
     }
 
     @Override
     public String printCurrentnode() {
-        return currentNode.toString();
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            write(generator, currentNode());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    private void write(JsonGenerator generator, int node) throws IOException {
+        if (nodeName(node) != null && generator.getOutputContext().inObject()) {
+            generator.writeFieldName(nodeName(node));
+        }
+        switch (types[node]) {
+            case OBJECT:
+            case ARRAY:
+                if (types[node] == OBJECT) {
+                    generator.writeStartObject();
+                } else {
+                    generator.writeStartArray();
+                }
+                for (int child = node + 1; child < nodeEnd(node); child = nodeEnd(child)) {
+                    write(generator, child);
+                }
+                if (types[node] == OBJECT) {
+                    generator.writeEndObject();
+                } else {
+                    generator.writeEndArray();
+                }
+                break;
+            case STRING:
+                generator.writeString((String) values[node]);
+                break;
+            case NUMBER:
+                generator.writeNumber(values[node].toString());
+                break;
+            case TRUE:
+            case FALSE:
+                generator.writeBoolean(types[node] == TRUE);
+                break;
+            default:
+                generator.writeNull();
+                break;
+        }
     }
 }
@@ -20,12 +20,13 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 public class JSONFormatWriter implements FormatWriter {
 
     private Logger logger = LoggerFactory.getLogger(JSONFormatWriter.class.getSimpleName());
-    private Stack<JsonNode> stack = new Stack<>();
+    private Deque<JsonNode> stack = new ArrayDeque<>();
     private JsonNode root = null;
 
 
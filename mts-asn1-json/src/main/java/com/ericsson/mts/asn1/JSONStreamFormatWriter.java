@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.factory.FormatWriter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Write decoded values as JSON text while they are decoded, without building a tree : memory depends on the nesting
+ * depth, not on the size of the message. Gives the same JSON as {@link JSONFormatWriter}. Several messages can be
+ * decoded with the same instance, in NDJSON mode each one is written on its own line.
+ * <p>
+ * Write errors are thrown as {@link UncheckedIOException}.
+ */
+public class JSONStreamFormatWriter implements FormatWriter, Flushable, Closeable {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private Logger logger = LoggerFactory.getLogger(JSONStreamFormatWriter.class.getSimpleName());
+    private final JsonGenerator generator;
+    private final boolean ndjson;
+    private char[] hex = new char[64];
+
+    /**
+     * @param outputStream output of the UTF-8 JSON text, closed by {@link #close()}
+     * @param ndjson true to write each message on its own line
+     */
+    public JSONStreamFormatWriter(OutputStream outputStream, boolean ndjson) {
+        this(create(() -> JSON_FACTORY.createGenerator(outputStream)), ndjson);
+    }
+
+    /**
+     * @param writer output of the JSON text, closed by {@link #close()}
+     * @param ndjson true to write each message on its own line
+     */
+    public JSONStreamFormatWriter(Writer writer, boolean ndjson) {
+        this(create(() -> JSON_FACTORY.createGenerator(writer)), ndjson);
+    }
+
+    /**
+     * @param generator generator of the JSON text, configured by the caller (pretty printer, ...)
+     * @param ndjson true to write each message on its own line
+     */
+    public JSONStreamFormatWriter(JsonGenerator generator, boolean ndjson) {
+        this.generator = generator;
+        this.ndjson = ndjson;
+        if (ndjson) {
+            //The line separator is written after each message instead
+            generator.setRootValueSeparator(new SerializedString(""));
+        }
+    }
+
+    private interface GeneratorSupplier {
+        JsonGenerator get() throws IOException;
+    }
+
+    private static JsonGenerator create(GeneratorSupplier supplier) {
+        try {
+            return supplier.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void name(String name) throws IOException {
+        if (generator.getOutputContext().inObject()) {
+            generator.writeFieldName(name);
+        }
+    }
+
+    private void endValue() throws IOException {
+        if (ndjson && generator.getOutputContext().inRoot()) {
+            generator.writeRaw('\n');
+        }
+    }
+
+    @Override
+    public void enterObject(String name) {
+        logger.trace("Enter object {}", name);
+        try {
+            name(name);
+            generator.writeStartObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void leaveObject(String name) {
+        try {
+            generator.writeEndObject();
+            endValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void enterArray(String name) {
+        logger.trace("Enter array {}", name);
+        try {
+            name(name);
+            generator.writeStartArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void leaveArray(String name) {
+        try {
+            generator.writeEndArray();
+            endValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void stringValue(String name, String value) {
+        try {
+            name(name);
+            generator.writeString(value);
+            endValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void booleanValue(String name, boolean value) {
+        try {
+            name(name);
+            generator.writeBoolean(value);
+            endValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void intValue(String name, BigInteger value, String namedValue) {
+        try {
+            name(name);
+            if (value.bitLength() < 64) {
+                generator.writeNumber(value.longValue());
+            } else {
+                generator.writeNumber(value);
+            }
+            endValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void realValue(String name, BigDecimal value) {
+        try {
+            name(name);
+            generator.writeNumber(value);
+            endValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void bytesValue(String name, byte[] value) {
+        if (hex.length < value.length * 2) {
+            hex = new char[Math.max(value.length * 2, hex.length * 2)];
+        }
+        FormatWriter.bytesToHex(value, hex);
+        try {
+            name(name);
+            generator.writeString(hex, 0, value.length * 2);
+            endValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void bitsValue(String name, String value) {
+        stringValue(name, value);
+    }
+
+    @Override
+    public void nullValue(String name) {
+        try {
+            name(name);
+            generator.writeNull();
+            endValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -10,14 +10,11 @@
 
 package com.ericsson.mts.asn1.plugin;
 
-import com.ericsson.mts.asn1.ASN1Lexer;
 import com.ericsson.mts.asn1.ASN1Parser;
 import com.ericsson.mts.asn1.ASN1ParserBaseVisitor;
+import com.ericsson.mts.asn1.ASN1Translator;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.TypeSpec;
-import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 
 import javax.lang.model.element.Modifier;
 import java.io.IOException;
@@ -56,11 +53,7 @@ class IdentifierVisitor {
          * @throws IOException output file error
          */
         TypeSpec.Builder beginVisit(InputStream stream) throws IOException {
-            CharStream inputStream = CharStreams.fromStream(stream);
-            ASN1Lexer asn1Lexer = new ASN1Lexer(inputStream);
-            CommonTokenStream commonTokenStream = new CommonTokenStream(asn1Lexer);
-            ASN1Parser asn1Parser = new ASN1Parser(commonTokenStream);
-            visitModuleDefinition(asn1Parser.moduleDefinition());
+            visitModuleDefinition(ASN1Translator.parse(stream));
             return builder;
         }
 
@@ -0,0 +1,880 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1.plugin;
+
+import com.ericsson.mts.asn1.ASN1Translator;
+import com.ericsson.mts.asn1.BitArray;
+import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.PERPlan;
+import com.ericsson.mts.asn1.PERTranscoder;
+import com.ericsson.mts.asn1.PERTranslatorFactory;
+import com.ericsson.mts.asn1.exception.EncodingException;
+import com.ericsson.mts.asn1.exception.NotHandledCaseException;
+import com.ericsson.mts.asn1.translator.PERTypeDescriber;
+import com.ericsson.mts.asn1.translator.PERTypeDescriptor;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Modifier;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generate typed PER codecs : a class per ASN.1 type with static methods encoding and decoding its value, without
+ * FormatReader, FormatWriter or grammar parsing at runtime. SEQUENCE, CHOICE and ENUMERATED types are classes, anonymous
+ * ones are nested in the class using them. Other types are Java types encoded in place : long for INTEGER, byte[] for
+ * OCTET STRING and open types (content octets), boolean[] for BIT STRING (long up to 64 fixed bits), arrays for
+ * SEQUENCE OF.
+ */
+public class PERCodecGenerator {
+    private static final ClassName PER_TRANSCODER = ClassName.get(PERTranscoder.class);
+    private static final ClassName PER_PLAN = ClassName.get(PERPlan.class);
+    private static final ClassName BIT_ARRAY = ClassName.get(BitArray.class);
+    private static final ClassName BIT_INPUT_STREAM = ClassName.get(BitInputStream.class);
+    private static final ClassName NOT_HANDLED = ClassName.get(NotHandledCaseException.class);
+    private static final ClassName ENCODING_EXCEPTION = ClassName.get(EncodingException.class);
+    private static final ClassName CHARSETS = ClassName.get(StandardCharsets.class);
+    private static final TypeName BYTES = ArrayTypeName.of(TypeName.BYTE);
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
+    private final String packageName;
+    private final boolean aligned;
+    private final Map<PERTypeDescriptor, Unit> units = new IdentityHashMap<>();
+    private final Deque<Unit> pendingUnits = new ArrayDeque<>();
+    private final List<Unit> topLevelUnits = new ArrayList<>();
+    private final Set<String> topLevelNames = new HashSet<>();
+    private final List<JavaFile> javaFiles = new ArrayList<>();
+
+    /**
+     * A generated class and the names already used in it
+     */
+    private static final class Unit {
+        private final PERTypeDescriptor descriptor;
+        private final ClassName className;
+        private final List<Unit> nestedUnits = new ArrayList<>();
+        private final Set<String> nestedNames = new HashSet<>();
+        private final Set<String> memberNames = new HashSet<>();
+        private final Map<String, String> plans = new HashMap<>();
+        private TypeSpec.Builder builder;
+        private int localCount = 0;
+
+        private Unit(PERTypeDescriptor descriptor, ClassName className) {
+            this.descriptor = descriptor;
+            this.className = className;
+            nestedNames.addAll(className.simpleNames());
+        }
+
+        private String local(String prefix) {
+            return prefix + localCount++;
+        }
+    }
+
+    PERCodecGenerator(List<String> grammarFiles, String generatedPackageName, List<String> typeNames, boolean aligned) throws IOException {
+        this.packageName = generatedPackageName;
+        this.aligned = aligned;
+        List<InputStream> inputStreams = new ArrayList<>();
+        ASN1Translator asn1Translator;
+        try {
+            for (String grammarFile : grammarFiles) {
+                inputStreams.add(new FileInputStream(new File(grammarFile)));
+            }
+            asn1Translator = new ASN1Translator(new PERTranslatorFactory(aligned), inputStreams);
+        } finally {
+            for (InputStream inputStream : inputStreams) {
+                inputStream.close();
+            }
+        }
+        if (typeNames == null || typeNames.isEmpty()) {
+            asn1Translator.parseTranslators();
+            typeNames = asn1Translator.getTypeNames();
+        } else {
+            asn1Translator.parseTranslators(typeNames);
+        }
+
+        PERTypeDescriber describer = new PERTypeDescriber(asn1Translator);
+        for (String typeName : typeNames) {
+            PERTypeDescriptor descriptor;
+            try {
+                descriptor = describer.describe(asn1Translator.codecFor(typeName).getTranslator());
+            } catch (NotHandledCaseException e) {
+                logger.warn("Type {} not generated : {}", typeName, e.getMessage());
+                continue;
+            }
+            if (!units.containsKey(descriptor)) {
+                String name = descriptor.getName() == null ? typeName : descriptor.getName();
+                addUnit(descriptor, ClassName.get(packageName, uniqueName(topLevelNames, javaIdentifier(name))), null);
+            }
+        }
+        while (!pendingUnits.isEmpty()) {
+            generate(pendingUnits.poll());
+        }
+        for (Unit unit : topLevelUnits) {
+            javaFiles.add(JavaFile.builder(packageName, build(unit)).build());
+        }
+    }
+
+    void writeFile(File file) throws IOException {
+        if (file.mkdirs()) {
+            logger.trace("Create directories for path : {}", file.getAbsolutePath());
+        }
+        for (JavaFile javaFile : javaFiles) {
+            javaFile.writeTo(file);
+        }
+    }
+
+    private Unit addUnit(PERTypeDescriptor descriptor, ClassName className, Unit enclosingUnit) {
+        Unit unit = new Unit(descriptor, className);
+        units.put(descriptor, unit);
+        pendingUnits.add(unit);
+        if (enclosingUnit == null) {
+            topLevelUnits.add(unit);
+        } else {
+            enclosingUnit.nestedUnits.add(unit);
+        }
+        return unit;
+    }
+
+    /**
+     * @return class of a SEQUENCE, CHOICE or ENUMERATED type, nested in the enclosing unit if the type is anonymous
+     */
+    private ClassName classOf(PERTypeDescriptor descriptor, Unit enclosingUnit, String hint) {
+        Unit unit = units.get(descriptor);
+        if (unit == null) {
+            if (descriptor.getName() != null) {
+                unit = addUnit(descriptor, ClassName.get(packageName, uniqueName(topLevelNames, javaIdentifier(descriptor.getName()))), null);
+            } else {
+                String simpleName = uniqueName(enclosingUnit.nestedNames, capitalize(javaIdentifier(hint)));
+                unit = addUnit(descriptor, enclosingUnit.className.nestedClass(simpleName), enclosingUnit);
+            }
+        }
+        return unit.className;
+    }
+
+    private TypeName typeOf(PERTypeDescriptor descriptor, Unit unit, String hint) {
+        switch (descriptor.getKind()) {
+            case BOOLEAN:
+                return TypeName.BOOLEAN;
+            case INTEGER:
+                return TypeName.LONG;
+            case OCTET_STRING:
+            case OPEN_TYPE:
+                return BYTES;
+            case BIT_STRING:
+                return isLongBitString(descriptor) ? TypeName.LONG : ArrayTypeName.of(TypeName.BOOLEAN);
+            case CHARACTER_STRING:
+                return ClassName.get(String.class);
+            case SEQUENCE_OF:
+                return ArrayTypeName.of(typeOf(descriptor.getComponents().get(0).getType(), unit, hint + "Item"));
+            default:
+                return classOf(descriptor, unit, hint);
+        }
+    }
+
+    private static boolean isLongBitString(PERTypeDescriptor descriptor) {
+        return descriptor.getPlan().getClause() == PERPlan.Clause.FIXED && descriptor.getPlan().getBitWidth() <= 64;
+    }
+
+    private TypeSpec build(Unit unit) {
+        for (Unit nestedUnit : unit.nestedUnits) {
+            unit.builder.addType(build(nestedUnit));
+        }
+        return unit.builder.build();
+    }
+
+    private void generate(Unit unit) {
+        PERTypeDescriptor descriptor = unit.descriptor;
+        String simpleName = unit.className.simpleName();
+        if (descriptor.getKind() == PERTypeDescriptor.Kind.ENUMERATED) {
+            unit.builder = TypeSpec.enumBuilder(simpleName);
+        } else {
+            unit.builder = TypeSpec.classBuilder(simpleName).addModifiers(Modifier.FINAL);
+        }
+        unit.builder.addModifiers(Modifier.PUBLIC);
+        if (unit.className.enclosingClassName() == null) {
+            unit.builder.addJavadoc("PER codec of the ASN.1 type {@code $L}, generated by mts-asn1-plugin.\n", descriptor.getName() == null ? simpleName : descriptor.getName());
+            unit.builder.addField(FieldSpec.builder(PER_TRANSCODER, "PER", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("new $T($L)", PER_TRANSCODER, aligned)
+                    .build());
+        } else {
+            unit.builder.addModifiers(Modifier.STATIC);
+        }
+
+        switch (descriptor.getKind()) {
+            case SEQUENCE:
+                generateSequence(unit);
+                break;
+            case CHOICE:
+                generateChoice(unit);
+                break;
+            case ENUMERATED:
+                generateEnumerated(unit);
+                break;
+            default:
+                generateCodec(unit);
+        }
+    }
+
+    /**
+     * Class of static methods only, for a named type mapped to a Java type
+     */
+    private void generateCodec(Unit unit) {
+        unit.builder.addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+        TypeName valueType = typeOf(unit.descriptor, unit, "");
+        MethodSpec.Builder encode = encodeMethod(valueType);
+        emitEncode(encode, unit, unit.descriptor, "s", "value", "");
+        MethodSpec.Builder decode = decodeMethod(valueType);
+        decode.addStatement("$T result", valueType);
+        emitDecode(decode, unit, unit.descriptor, "s", "result", "");
+        decode.addStatement("return result");
+        addMethods(unit, valueType, encode, decode);
+    }
+
+    private void generateSequence(Unit unit) {
+        PERTypeDescriptor descriptor = unit.descriptor;
+        List<PERTypeDescriptor.Component> components = descriptor.getComponents();
+        int rootCount = descriptor.getRootCount();
+        String[] fieldNames = new String[components.size()];
+        String[] presence = new String[components.size()];
+        for (int i = 0; i < components.size(); i++) {
+            PERTypeDescriptor.Component component = components.get(i);
+            fieldNames[i] = uniqueName(unit.memberNames, javaIdentifier(component.getName()));
+            TypeName type = typeOf(component.getType(), unit, component.getName());
+            unit.builder.addField(type, fieldNames[i], Modifier.PUBLIC);
+            if (component.isOptional() || i >= rootCount) {
+                if (type.isPrimitive()) {
+                    presence[i] = uniqueName(unit.memberNames, "has" + capitalize(fieldNames[i]));
+                    unit.builder.addField(TypeName.BOOLEAN, presence[i], Modifier.PUBLIC);
+                } else {
+                    presence[i] = fieldNames[i] + " != null";
+                }
+            }
+        }
+
+        MethodSpec.Builder encode = encodeMethod(unit.className);
+        if (descriptor.isExtensible()) {
+            if (components.size() > rootCount) {
+                List<String> extensions = new ArrayList<>();
+                for (int i = rootCount; i < components.size(); i++) {
+                    extensions.add("value." + presence[i]);
+                }
+                encode.addStatement("boolean extended = $L", String.join(" || ", extensions));
+                encode.addStatement("s.writeBit(extended ? 1 : 0)");
+            } else {
+                encode.addStatement("s.writeBit(0)");
+            }
+        }
+        for (int i = 0; i < rootCount; i++) {
+            if (presence[i] != null) {
+                encode.addStatement("s.writeBit(value.$L ? 1 : 0)", presence[i]);
+            }
+        }
+        for (int i = 0; i < rootCount; i++) {
+            if (presence[i] != null) {
+                encode.beginControlFlow("if (value.$L)", presence[i]);
+            }
+            emitEncode(encode, unit, components.get(i).getType(), "s", "value." + fieldNames[i], components.get(i).getName());
+            if (presence[i] != null) {
+                encode.endControlFlow();
+            }
+        }
+        if (descriptor.isExtensible() && components.size() > rootCount) {
+            //Extension additions : bit-map then each addition as an open type
+            encode.beginControlFlow("if (extended)");
+            encode.addStatement("PER.encodeNormallySmallWholeNumber(s, $L)", components.size() - rootCount - 1);
+            for (int i = rootCount; i < components.size(); i++) {
+                encode.addStatement("s.writeBit(value.$L ? 1 : 0)", presence[i]);
+            }
+            encode.addStatement("PER.skipAlignedBits(s)");
+            for (int i = rootCount; i < components.size(); i++) {
+                encode.beginControlFlow("if (value.$L)", presence[i]);
+                String content = unit.local("content");
+                encode.addStatement("$T $L = new $T()", BIT_ARRAY, content, BIT_ARRAY);
+                emitEncode(encode, unit, components.get(i).getType(), content, "value." + fieldNames[i], components.get(i).getName());
+                encode.addStatement("PER.encodeOpenType(s, $L.getBinaryArray())", content);
+                encode.endControlFlow();
+            }
+            encode.endControlFlow();
+        }
+
+        MethodSpec.Builder decode = decodeMethod(unit.className);
+        decode.addStatement("$T result = new $T()", unit.className, unit.className);
+        if (descriptor.isExtensible()) {
+            decode.addStatement("boolean extended = s.readBit() == 1");
+        }
+        String[] present = new String[rootCount];
+        for (int i = 0; i < rootCount; i++) {
+            if (presence[i] != null) {
+                present[i] = unit.local("present");
+                decode.addStatement("boolean $L = s.readBit() == 1", present[i]);
+            }
+        }
+        for (int i = 0; i < rootCount; i++) {
+            if (present[i] != null) {
+                decode.beginControlFlow("if ($L)", present[i]);
+            }
+            emitDecode(decode, unit, components.get(i).getType(), "s", "result." + fieldNames[i], components.get(i).getName());
+            if (present[i] != null) {
+                setPresent(decode, fieldNames[i], presence[i]);
+                decode.endControlFlow();
+            }
+        }
+        if (descriptor.isExtensible()) {
+            decode.beginControlFlow("if (extended)");
+            decode.addStatement("int count = (int) PER.decodeNormallySmallNumberAsLong(s) + 1");
+            decode.addStatement("boolean[] bitmap = new boolean[count]");
+            decode.beginControlFlow("for (int i = 0; i < count; i++)");
+            decode.addStatement("bitmap[i] = s.readBit() == 1");
+            decode.endControlFlow();
+            if (aligned) {
+                decode.addStatement("PER.skipAlignedBits(s)");
+            }
+            for (int i = rootCount; i < components.size(); i++) {
+                decode.beginControlFlow("if (count > $L && bitmap[$L])", i - rootCount, i - rootCount);
+                String content = unit.local("content");
+                decode.addStatement("$T $L = PER.decodeOpenType(s)", BIT_INPUT_STREAM, content);
+                emitDecode(decode, unit, components.get(i).getType(), content, "result." + fieldNames[i], components.get(i).getName());
+                setPresent(decode, fieldNames[i], presence[i]);
+                decode.endControlFlow();
+            }
+            //Unknown additions are skipped
+            decode.beginControlFlow("for (int i = $L; i < count; i++)", components.size() - rootCount);
+            decode.beginControlFlow("if (bitmap[i])");
+            decode.addStatement("PER.decodeOpenType(s)");
+            decode.endControlFlow();
+            decode.endControlFlow();
+            decode.endControlFlow();
+        }
+        decode.addStatement("return result");
+        addMethods(unit, unit.className, encode, decode);
+    }
+
+    private static void setPresent(MethodSpec.Builder decode, String fieldName, String presence) {
+        if (!presence.equals(fieldName + " != null")) {
+            decode.addStatement("result.$L = true", presence);
+        }
+    }
+
+    private void generateChoice(Unit unit) {
+        PERTypeDescriptor descriptor = unit.descriptor;
+        List<PERTypeDescriptor.Component> alternatives = descriptor.getComponents();
+        int rootCount = descriptor.getRootCount();
+        String name = descriptor.getName() == null ? unit.className.simpleName() : descriptor.getName();
+        unit.memberNames.add("choice");
+        TypeName[] types = new TypeName[alternatives.size()];
+        for (int i = 0; i < alternatives.size(); i++) {
+            types[i] = typeOf(alternatives.get(i).getType(), unit, alternatives.get(i).getName());
+            //A constant with the name of a class would obscure it
+            TypeName base = types[i];
+            while (base instanceof ArrayTypeName) {
+                base = ((ArrayTypeName) base).componentType;
+            }
+            if (base instanceof ClassName) {
+                unit.memberNames.addAll(((ClassName) base).simpleNames());
+            }
+        }
+        String[] constants = new String[alternatives.size()];
+        for (int i = 0; i < alternatives.size(); i++) {
+            constants[i] = uniqueName(unit.memberNames, constantName(alternatives.get(i).getName()));
+            unit.builder.addField(FieldSpec.builder(TypeName.INT, constants[i], Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("$L", i)
+                    .build());
+        }
+        unit.builder.addField(FieldSpec.builder(TypeName.INT, "choice", Modifier.PUBLIC)
+                .addJavadoc("Index of the chosen alternative, one of the constants\n")
+                .build());
+        String[] fieldNames = new String[alternatives.size()];
+        for (int i = 0; i < alternatives.size(); i++) {
+            fieldNames[i] = uniqueName(unit.memberNames, javaIdentifier(alternatives.get(i).getName()));
+            unit.builder.addField(types[i], fieldNames[i], Modifier.PUBLIC);
+        }
+
+        MethodSpec.Builder encode = encodeMethod(unit.className);
+        encode.beginControlFlow("switch (value.choice)");
+        for (int i = 0; i < alternatives.size(); i++) {
+            PERTypeDescriptor type = alternatives.get(i).getType();
+            encode.addCode("case $L:\n", constants[i]).addCode("$>");
+            if (i < rootCount) {
+                if (descriptor.isExtensible()) {
+                    encode.addStatement("s.writeBit(0)");
+                }
+                if (rootCount > 1) {
+                    encode.addStatement("PER.encodeConstrainedWholeNumber(s, $L, 0, $L)", i, rootCount - 1);
+                }
+                emitEncode(encode, unit, type, "s", "value." + fieldNames[i], alternatives.get(i).getName());
+            } else {
+                encode.addStatement("s.writeBit(1)");
+                encode.addStatement("PER.encodeNormallySmallWholeNumber(s, $L)", i - rootCount);
+                String content = unit.local("content");
+                encode.addStatement("$T $L = new $T()", BIT_ARRAY, content, BIT_ARRAY);
+                emitEncode(encode, unit, type, content, "value." + fieldNames[i], alternatives.get(i).getName());
+                encode.addStatement("PER.encodeOpenType(s, $L.getBinaryArray())", content);
+            }
+            encode.addStatement("break").addCode("$<");
+        }
+        encode.addCode("default:\n$>")
+                .addStatement("throw new $T(\"Unknown alternative \" + value.choice + $S)", ENCODING_EXCEPTION, " of " + name)
+                .addCode("$<");
+        encode.endControlFlow();
+
+        MethodSpec.Builder decode = decodeMethod(unit.className);
+        decode.addStatement("$T result = new $T()", unit.className, unit.className);
+        if (descriptor.isExtensible()) {
+            decode.beginControlFlow("if (s.readBit() == 1)");
+            decode.addStatement("int index = (int) PER.decodeNormallySmallNumberAsLong(s)");
+            if (alternatives.size() > rootCount) {
+                decode.addStatement("$T content = PER.decodeOpenType(s)", BIT_INPUT_STREAM);
+                decode.beginControlFlow("switch (index)");
+                for (int i = rootCount; i < alternatives.size(); i++) {
+                    decode.addCode("case $L:\n", i - rootCount).addCode("$>");
+                    decode.addStatement("result.choice = $L", constants[i]);
+                    emitDecode(decode, unit, alternatives.get(i).getType(), "content", "result." + fieldNames[i], alternatives.get(i).getName());
+                    decode.addStatement("return result").addCode("$<");
+                }
+                decode.endControlFlow();
+            }
+            decode.addStatement("throw new $T(\"Unknown extension alternative \" + index + $S)", NOT_HANDLED, " of " + name);
+            decode.endControlFlow();
+        }
+        if (rootCount > 1) {
+            decode.addStatement("result.choice = (int) PER.decodeConstrainedNumber(0, $L, s)", rootCount - 1);
+        } else {
+            decode.addStatement("result.choice = $L", constants[0]);
+        }
+        decode.beginControlFlow("switch (result.choice)");
+        for (int i = 0; i < rootCount; i++) {
+            decode.addCode("case $L:\n", constants[i]).addCode("$>");
+            emitDecode(decode, unit, alternatives.get(i).getType(), "s", "result." + fieldNames[i], alternatives.get(i).getName());
+            decode.addStatement("break").addCode("$<");
+        }
+        decode.addCode("default:\n$>")
+                .addStatement("throw new $T(\"Unknown alternative \" + result.choice + $S)", NOT_HANDLED, " of " + name)
+                .addCode("$<");
+        decode.endControlFlow();
+        decode.addStatement("return result");
+        addMethods(unit, unit.className, encode, decode);
+    }
+
+    private void generateEnumerated(Unit unit) {
+        PERTypeDescriptor descriptor = unit.descriptor;
+        List<String> values = descriptor.getValues();
+        int rootCount = descriptor.getRootCount();
+        int additionCount = values.size() - rootCount;
+        String name = descriptor.getName() == null ? unit.className.simpleName() : descriptor.getName();
+        unit.memberNames.add("VALUES");
+        for (String value : values) {
+            unit.builder.addEnumConstant(uniqueName(unit.memberNames, constantName(value)));
+        }
+        unit.builder.addField(FieldSpec.builder(ArrayTypeName.of(unit.className), "VALUES", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("values()")
+                .build());
+
+        MethodSpec.Builder encode = encodeMethod(unit.className);
+        encode.addStatement("int index = value.ordinal()");
+        if (descriptor.isExtensible()) {
+            if (additionCount > 0) {
+                encode.beginControlFlow("if (index >= $L)", rootCount);
+                encode.addStatement("s.writeBit(1)");
+                encode.addStatement("PER.encodeNormallySmallWholeNumber(s, index - $L)", rootCount);
+                encode.addStatement("return");
+                encode.endControlFlow();
+            }
+            encode.addStatement("s.writeBit(0)");
+        }
+        encode.addStatement("PER.encodeConstrainedWholeNumber(s, index, 0, $L)", rootCount - 1);
+
+        MethodSpec.Builder decode = decodeMethod(unit.className);
+        if (descriptor.isExtensible()) {
+            decode.beginControlFlow("if (s.readBit() == 1)");
+            decode.addStatement("int index = (int) PER.decodeNormallySmallNumberAsLong(s)");
+            decode.beginControlFlow("if (index >= $L)", additionCount);
+            decode.addStatement("throw new $T(\"Unknown extension value \" + index + $S)", NOT_HANDLED, " of " + name);
+            decode.endControlFlow();
+            decode.addStatement("return VALUES[$L + index]", rootCount);
+            decode.endControlFlow();
+        }
+        decode.addStatement("return VALUES[(int) PER.decodeConstrainedNumber(0, $L, s)]", rootCount - 1);
+        addMethods(unit, unit.className, encode, decode);
+    }
+
+    private static MethodSpec.Builder encodeMethod(TypeName valueType) {
+        return MethodSpec.methodBuilder("encode")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(BIT_ARRAY, "s")
+                .addParameter(valueType, "value")
+                .addException(IOException.class);
+    }
+
+    private static MethodSpec.Builder decodeMethod(TypeName valueType) {
+        return MethodSpec.methodBuilder("decode")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(valueType)
+                .addParameter(BIT_INPUT_STREAM, "s")
+                .addException(IOException.class);
+    }
+
+    private static void addMethods(Unit unit, TypeName valueType, MethodSpec.Builder encode, MethodSpec.Builder decode) {
+        unit.builder.addMethod(encode.build());
+        unit.builder.addMethod(decode.build());
+        unit.builder.addMethod(MethodSpec.methodBuilder("encode")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(BYTES)
+                .addParameter(valueType, "value")
+                .addException(IOException.class)
+                .addStatement("$T s = new $T()", BIT_ARRAY, BIT_ARRAY)
+                .addStatement("encode(s, value)")
+                .addComment("X.691 11.1 : an empty encoding is replaced by one zero octet")
+                .addStatement("return s.getLength() == 0 ? new byte[1] : s.getBinaryArray()")
+                .build());
+        unit.builder.addMethod(MethodSpec.methodBuilder("decode")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(valueType)
+                .addParameter(BYTES, "bytes")
+                .addException(IOException.class)
+                .addStatement("return decode(new $T(bytes))", BIT_INPUT_STREAM)
+                .build());
+    }
+
+    /**
+     * @return name of a static PERPlan field of the unit, for INTEGER values
+     */
+    private String plan(Unit unit, PERPlan perPlan) {
+        String key = perPlan.getLb() + ".." + perPlan.getUb() + (perPlan.isExtensible() ? ",..." : "");
+        String field = unit.plans.get(key);
+        if (field == null) {
+            field = uniqueName(unit.memberNames, "PLAN_" + unit.plans.size());
+            unit.plans.put(key, field);
+            unit.builder.addField(FieldSpec.builder(PER_PLAN, field, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("$T.constrainedWholeNumber($L, $L, $L, $L)", PER_PLAN, literal(perPlan.getLb()), literal(perPlan.getUb()), perPlan.isExtensible(), aligned)
+                    .build());
+        }
+        return field;
+    }
+
+    private void emitEncode(MethodSpec.Builder method, Unit unit, PERTypeDescriptor descriptor, String s, String value, String hint) {
+        PERPlan perPlan = descriptor.getPlan();
+        switch (descriptor.getKind()) {
+            case BOOLEAN:
+                method.addStatement("$L.writeBit($L ? 1 : 0)", s, value);
+                break;
+            case INTEGER:
+                method.beginControlFlow("if ($L < $L || $L > $L)", value, literal(perPlan.getLb()), value, literal(perPlan.getUb()));
+                method.addStatement("throw new $T(\"Value \" + $L + $S)", perPlan.isExtensible() ? NOT_HANDLED : ENCODING_EXCEPTION, value, " out of range " + perPlan.getLb() + ".." + perPlan.getUb());
+                method.endControlFlow();
+                if (perPlan.isExtensible()) {
+                    method.addStatement("$L.writeBit(0)", s);
+                }
+                //13.2.5 and 13.2.6
+                method.addStatement("PER.encodeConstrainedWholeNumber($L, $L, $L)", s, plan(unit, perPlan), value);
+                break;
+            case OCTET_STRING:
+                emitSizeCheck(method, perPlan, s, value + ".length");
+                switch (perPlan.getClause()) {
+                    case EMPTY:
+                        //17.5
+                        return;
+                    case CONSTRAINED_LENGTH:
+                        //17.8
+                        method.addStatement("PER.encodeConstrainedWholeNumber($L, $L.length, $L, $L)", s, value, perPlan.getLb(), perPlan.getUb());
+                        break;
+                    case SEMI_CONSTRAINED_LENGTH:
+                        //17.8
+                        method.addStatement("PER.encodeLengthDeterminant($L, $L.length$L)", s, value, perPlan.getLb() == 0 ? "" : " - " + perPlan.getLb());
+                        break;
+                    default:
+                        //17.6 and 17.7
+                }
+                method.addStatement("PER.encodeOctetString($L, $L)", s, value);
+                break;
+            case BIT_STRING:
+                if (isLongBitString(descriptor)) {
+                    if (perPlan.isExtensible()) {
+                        method.addStatement("$L.writeBit(0)", s);
+                    }
+                    //16.9 and 16.10
+                    if (perPlan.isAlignValue()) {
+                        method.addStatement("PER.skipAlignedBits($L)", s);
+                    }
+                    method.addStatement("$L.writeBits($L, $L)", s, value, perPlan.getBitWidth());
+                    break;
+                }
+                emitSizeCheck(method, perPlan, s, value + ".length");
+                switch (perPlan.getClause()) {
+                    case FIXED:
+                        //16.9 and 16.10
+                        if (perPlan.isAlignValue()) {
+                            method.addStatement("PER.skipAlignedBits($L)", s);
+                        }
+                        break;
+                    case CONSTRAINED_LENGTH:
+                        //16.11
+                        method.addStatement("PER.encodeConstrainedWholeNumber($L, $L.length, $L, $L)", s, value, perPlan.getLb(), perPlan.getUb());
+                        method.addStatement("PER.skipAlignedBits($L)", s);
+                        break;
+                    default:
+                        //16.11
+                        method.addStatement("PER.encodeSemiConstrainedWholeNumber($L, $L, $L.length)", s, perPlan.getLb(), value);
+                        method.addStatement("PER.skipAlignedBits($L)", s);
+                }
+                String bit = unit.local("i");
+                method.beginControlFlow("for (int $L = 0; $L < $L.length; $L++)", bit, bit, value, bit);
+                method.addStatement("$L.writeBit($L[$L] ? 1 : 0)", s, value, bit);
+                method.endControlFlow();
+                break;
+            case CHARACTER_STRING:
+                emitSizeCheck(method, perPlan, s, value + ".length()");
+                if (perPlan.getClause() == PERPlan.Clause.CONSTRAINED_LENGTH) {
+                    method.addStatement("PER.encodeConstrainedWholeNumber($L, $L.length(), $L, $L)", s, value, perPlan.getLb(), perPlan.getUb());
+                } else if (perPlan.getClause() == PERPlan.Clause.SEMI_CONSTRAINED_LENGTH) {
+                    method.addStatement("PER.encodeSemiConstrainedWholeNumber($L, $L, $L.length())", s, perPlan.getLb(), value);
+                }
+                String characters = unit.local("characters");
+                method.addStatement("byte[] $L = $L.getBytes($T.US_ASCII)", characters, value, CHARSETS);
+                method.addStatement("$L.skipAlignedBits()", s);
+                method.addStatement("$L.writeBytes($L, 0, $L.length)", s, characters, characters);
+                break;
+            case OPEN_TYPE:
+                method.addStatement("PER.encodeOpenType($L, $L)", s, value);
+                break;
+            case SEQUENCE_OF:
+                switch (perPlan.getClause()) {
+                    case FIXED:
+                        // X.691 : clause 20.5
+                        method.beginControlFlow("if ($L.length != $L)", value, perPlan.getUb());
+                        method.addStatement("throw new $T(\"Size \" + $L.length + $S)", ENCODING_EXCEPTION, value, " isn't " + perPlan.getUb());
+                        method.endControlFlow();
+                        break;
+                    case CONSTRAINED_LENGTH:
+                        // X.691 : clause 20.6
+                        emitSizeCheck(method, perPlan, s, value + ".length");
+                        method.addStatement("PER.encodeConstrainedWholeNumber($L, $L.length, $L, $L)", s, value, perPlan.getLb(), perPlan.getUb());
+                        break;
+                    default:
+                        // X.691 : clause 20.6
+                        method.addStatement("PER.encodeLengthDeterminant($L, $L.length)", s, value);
+                }
+                String index = unit.local("i");
+                method.beginControlFlow("for (int $L = 0; $L < $L.length; $L++)", index, index, value, index);
+                emitEncode(method, unit, descriptor.getComponents().get(0).getType(), s, value + "[" + index + "]", hint + "Item");
+                method.endControlFlow();
+                break;
+            default:
+                method.addStatement("$T.encode($L, $L)", classOf(descriptor, unit, hint), s, value);
+        }
+    }
+
+    /**
+     * Check the size against the constraint and write the extension bit
+     */
+    private static void emitSizeCheck(MethodSpec.Builder method, PERPlan perPlan, String s, String size) {
+        String condition;
+        String range;
+        switch (perPlan.getClause()) {
+            case EMPTY:
+                condition = size + " != 0";
+                range = "0";
+                break;
+            case SEMI_CONSTRAINED_LENGTH:
+                condition = size + " < " + perPlan.getLb();
+                range = perPlan.getLb() + "..MAX";
+                break;
+            default:
+                condition = size + " < " + perPlan.getLb() + " || " + size + " > " + perPlan.getUb();
+                range = perPlan.getLb() + ".." + perPlan.getUb();
+        }
+        method.beginControlFlow("if ($L)", condition);
+        method.addStatement("throw new $T(\"Size \" + $L + $S)", perPlan.isExtensible() ? NOT_HANDLED : ENCODING_EXCEPTION, size, " out of range " + range);
+        method.endControlFlow();
+        if (perPlan.isExtensible()) {
+            method.addStatement("$L.writeBit(0)", s);
+        }
+    }
+
+    private void emitDecode(MethodSpec.Builder method, Unit unit, PERTypeDescriptor descriptor, String s, String target, String hint) {
+        PERPlan perPlan = descriptor.getPlan();
+        switch (descriptor.getKind()) {
+            case BOOLEAN:
+                method.addStatement("$L = $L.readBit() == 1", target, s);
+                break;
+            case INTEGER:
+                emitExtensionCheck(method, perPlan, s, "Extended value");
+                method.addStatement("$L = PER.decodeConstrainedNumber($L, $L)", target, plan(unit, perPlan), s);
+                break;
+            case OCTET_STRING:
+                emitExtensionCheck(method, perPlan, s, "Extended size");
+                switch (perPlan.getClause()) {
+                    case EMPTY:
+                        //17.5
+                        method.addStatement("$L = new byte[0]", target);
+                        break;
+                    case FIXED:
+                        //17.6 and 17.7
+                        method.addStatement("$L = PER.decodeOctetString($L, $L)", target, s, perPlan.getLb());
+                        break;
+                    case CONSTRAINED_LENGTH:
+                        //17.8
+                        method.addStatement("$L = PER.decodeOctetString($L, (int) PER.decodeConstrainedNumber($L, $L, $L))", target, s, perPlan.getLb(), perPlan.getUb(), s);
+                        break;
+                    default:
+                        //17.8
+                        method.addStatement("$L = PER.decodeOctetString($L, PER.decodeLengthDeterminant($L)$L)", target, s, s, perPlan.getLb() == 0 ? "" : " + " + perPlan.getLb());
+                }
+                break;
+            case BIT_STRING:
+                emitExtensionCheck(method, perPlan, s, "Extended size");
+                String length;
+                switch (perPlan.getClause()) {
+                    case FIXED:
+                        //16.9 and 16.10
+                        if (perPlan.isAlignValue()) {
+                            method.addStatement("PER.skipAlignedBits($L)", s);
+                        }
+                        if (isLongBitString(descriptor)) {
+                            method.addStatement("$L = $L.readBits($L)", target, s, perPlan.getBitWidth());
+                            return;
+                        }
+                        length = String.valueOf(perPlan.getBitWidth());
+                        break;
+                    case CONSTRAINED_LENGTH:
+                        //16.11
+                        length = unit.local("length");
+                        method.addStatement("int $L = (int) PER.decodeConstrainedNumber($L, $L, $L)", length, perPlan.getLb(), perPlan.getUb(), s);
+                        method.addStatement("PER.skipAlignedBits($L)", s);
+                        break;
+                    default:
+                        //16.11
+                        length = unit.local("length");
+                        method.addStatement("int $L = (int) PER.decodeSemiConstraintNumberAsLong($L, $L)", length, perPlan.getLb(), s);
+                        method.addStatement("PER.skipAlignedBits($L)", s);
+                }
+                method.addStatement("$L = new boolean[$L]", target, length);
+                String bit = unit.local("i");
+                method.beginControlFlow("for (int $L = 0; $L < $L; $L++)", bit, bit, length, bit);
+                method.addStatement("$L[$L] = $L.readBit() == 1", target, bit, s);
+                method.endControlFlow();
+                break;
+            case CHARACTER_STRING:
+                emitExtensionCheck(method, perPlan, s, "Extended size");
+                String size;
+                if (perPlan.getClause() == PERPlan.Clause.FIXED) {
+                    size = String.valueOf(perPlan.getLb());
+                } else if (perPlan.getClause() == PERPlan.Clause.CONSTRAINED_LENGTH) {
+                    size = "(int) PER.decodeConstrainedNumber(" + perPlan.getLb() + ", " + perPlan.getUb() + ", " + s + ")";
+                } else {
+                    size = "(int) PER.decodeSemiConstraintNumberAsLong(" + perPlan.getLb() + ", " + s + ")";
+                }
+                method.addStatement("$L = new String($L.readAlignedByteArray($L), $T.US_ASCII)", target, s, size, CHARSETS);
+                break;
+            case OPEN_TYPE:
+                method.addStatement("$L = PER.decodeOpenType($L).toByteArray()", target, s);
+                break;
+            case SEQUENCE_OF:
+                String count = unit.local("count");
+                switch (perPlan.getClause()) {
+                    case FIXED:
+                        // X.691 : clause 20.5
+                        method.addStatement("int $L = $L", count, perPlan.getUb());
+                        break;
+                    case CONSTRAINED_LENGTH:
+                        // X.691 : clause 20.6
+                        method.addStatement("int $L = (int) PER.decodeConstrainedNumber($L, $L, $L)", count, perPlan.getLb(), perPlan.getUb(), s);
+                        break;
+                    default:
+                        // X.691 : clause 20.6
+                        method.addStatement("int $L = PER.decodeLengthDeterminant($L)", count, s);
+                }
+                PERTypeDescriptor componentType = descriptor.getComponents().get(0).getType();
+                TypeName base = typeOf(componentType, unit, hint + "Item");
+                int dimensions = 0;
+                while (base instanceof ArrayTypeName) {
+                    base = ((ArrayTypeName) base).componentType;
+                    dimensions++;
+                }
+                char[] brackets = new char[2 * dimensions];
+                for (int i = 0; i < dimensions; i++) {
+                    brackets[2 * i] = '[';
+                    brackets[2 * i + 1] = ']';
+                }
+                method.addStatement("$L = new $T[$L]$L", target, base, count, new String(brackets));
+                String index = unit.local("i");
+                method.beginControlFlow("for (int $L = 0; $L < $L; $L++)", index, index, count, index);
+                emitDecode(method, unit, componentType, s, target + "[" + index + "]", hint + "Item");
+                method.endControlFlow();
+                break;
+            default:
+                method.addStatement("$L = $T.decode($L)", target, classOf(descriptor, unit, hint), s);
+        }
+    }
+
+    private static void emitExtensionCheck(MethodSpec.Builder method, PERPlan perPlan, String s, String message) {
+        if (perPlan.isExtensible()) {
+            method.beginControlFlow("if ($L.readBit() == 1)", s);
+            method.addStatement("throw new $T($S)", NOT_HANDLED, message);
+            method.endControlFlow();
+        }
+    }
+
+    private static String literal(long value) {
+        return value + "L";
+    }
+
+    private static String javaIdentifier(String name) {
+        String identifier = name.replace('-', '_');
+        return SourceVersion.isKeyword(identifier) ? identifier + "_" : identifier;
+    }
+
+    private static String capitalize(String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * @return initiating-message or initiatingMessage as INITIATING_MESSAGE
+     */
+    private static String constantName(String name) {
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '-') {
+                c = '_';
+            } else if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(name.charAt(i - 1))) {
+                constant.append('_');
+            }
+            constant.append(Character.toUpperCase(c));
+        }
+        return constant.toString();
+    }
+
+    private static String uniqueName(Set<String> usedNames, String name) {
+        String unique = name;
+        for (int i = 2; !usedNames.add(unique); i++) {
+            unique = name + i;
+        }
+        return unique;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1.plugin;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Generate typed PER codecs of the types of a grammar, see {@link PERCodecGenerator}. The generated code needs
+ * mts-asn1-per at runtime.
+ */
+@Mojo(name = "generatePERCodecs")
+public class PERCodecMojo extends AbstractMojo {
+    private Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
+
+    @Parameter(defaultValue = "target/generated-sources")
+    private String outputFile;
+
+    @Parameter
+    private String outputPackage;
+
+    @Parameter
+    private List<String> grammarFiles;
+
+    //Types to generate with the types they use, all the types without parameters by default
+    @Parameter
+    private List<String> types;
+
+    @Parameter(defaultValue = "true")
+    private boolean aligned;
+
+    public void execute() throws MojoExecutionException {
+        if (outputPackage == null) {
+            outputPackage = "";
+        }
+
+        try {
+            new PERCodecGenerator(grammarFiles, outputPackage, types, aligned).writeFile(new File(outputFile));
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1.plugin;
+
+import com.ericsson.mts.asn1.ASN1Translator;
+import com.ericsson.mts.asn1.BitArray;
+import com.ericsson.mts.asn1.JSONFormatReader;
+import com.ericsson.mts.asn1.JSONFormatWriter;
+import com.ericsson.mts.asn1.PERTranscoder;
+import com.ericsson.mts.asn1.PERTranslatorFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.lang.reflect.Array;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Generate the S1AP codecs and compile them. The generated codecs must decode and encode back the S1AP messages and the
+ * content of their open types, whose types are given by the interpreted decoding. The interpreted codec must encode
+ * the messages back too.
+ */
+class PERCodecGeneratorTests {
+    private static final String PACKAGE = "generated.s1ap";
+
+    @TempDir
+    Path directory;
+
+    private ASN1Translator asn1Translator;
+    private ClassLoader classLoader;
+    private int openTypes;
+
+    @Test
+    void sameEncodingAsInterpreted() throws Exception {
+        String grammarFile = Paths.get(getClass().getResource("/grammar/S1AP/S1AP.asn").toURI()).toString();
+        asn1Translator = new ASN1Translator(new PERTranslatorFactory(true), Collections.singletonList(getClass().getResourceAsStream("/grammar/S1AP/S1AP.asn")));
+        asn1Translator.parseTranslators();
+        classLoader = compile(new PERCodecGenerator(Collections.singletonList(grammarFile), PACKAGE, null, true));
+
+        List<Path> messages;
+        try (Stream<Path> stream = Files.walk(Paths.get(getClass().getResource("/data/S1AP").toURI()))) {
+            messages = stream.filter(path -> path.toString().endsWith(".bin")).sorted().collect(Collectors.toList());
+        }
+        assertFalse(messages.isEmpty());
+        for (Path path : messages) {
+            byte[] message = Files.readAllBytes(path);
+            JsonNode json = roundTrip("S1AP-PDU", message, path.getFileName().toString());
+            BitArray bitArray = new BitArray();
+            asn1Translator.codecFor("S1AP-PDU").encode(bitArray, new JSONFormatReader(new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)), "S1AP-PDU"));
+            assertArrayEquals(message, bitArray.getBinaryArray(), path.getFileName().toString());
+        }
+        assertTrue(openTypes > 0);
+    }
+
+    /**
+     * Decode and encode bytes with the generated codec of a type, then the open types of the value
+     *
+     * @return interpreted decoding of the bytes, null for a primitive type
+     */
+    private JsonNode roundTrip(String typeName, byte[] bytes, String path) throws Exception {
+        Class<?> generated = classLoader.loadClass(PACKAGE + "." + javaIdentifier(typeName));
+        Class<?> valueType = generated.getMethod("decode", byte[].class).getReturnType();
+        Object value = generated.getMethod("decode", byte[].class).invoke(null, bytes);
+        assertArrayEquals(bytes, (byte[]) generated.getMethod("encode", valueType).invoke(null, value), path);
+
+        JSONFormatWriter formatWriter = new JSONFormatWriter();
+        asn1Translator.codecFor(typeName).decode(bytes, formatWriter);
+        walk(value, formatWriter.getJsonNode(), path);
+        return formatWriter.getJsonNode();
+    }
+
+    /**
+     * Find the open types of a generated value, their type is given by the interpreted decoding
+     */
+    private void walk(Object value, JsonNode json, String path) throws Exception {
+        if (value == null || json == null) {
+            return;
+        }
+        if (value.getClass().isArray()) {
+            if (!value.getClass().getComponentType().isPrimitive()) {
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    walk(Array.get(value, i), json.get(i), path + "/" + i);
+                }
+            }
+            return;
+        }
+        if (!value.getClass().getName().startsWith(PACKAGE + ".")) {
+            return;
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = json.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            Object fieldValue = value.getClass().getField(javaIdentifier(field.getKey())).get(value);
+            String fieldPath = path + "/" + field.getKey();
+            if (fieldValue instanceof byte[] && field.getValue().isObject() && field.getValue().size() == 1) {
+                //Open type : content octets, the interpreted codec gives the type as the only key
+                openTypes++;
+                roundTrip(field.getValue().fieldNames().next(), (byte[]) fieldValue, fieldPath);
+            } else {
+                walk(fieldValue, field.getValue(), fieldPath);
+            }
+        }
+    }
+
+    private ClassLoader compile(PERCodecGenerator generator) throws Exception {
+        Path sources = directory.resolve("sources");
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        generator.writeFile(sources.toFile());
+
+        List<String> arguments = new ArrayList<>(Arrays.asList("-d", classes.toString(), "-proc:none", "-nowarn",
+                "-classpath", classPath(PERTranscoder.class) + File.pathSeparator + classPath(BitArray.class)));
+        try (Stream<Path> stream = Files.walk(sources)) {
+            stream.filter(path -> path.toString().endsWith(".java")).forEach(path -> arguments.add(path.toString()));
+        }
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, arguments.toArray(new String[0])));
+        return new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    private static String classPath(Class<?> type) throws Exception {
+        return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+
+    private static String javaIdentifier(String name) {
+        String identifier = name.replace('-', '_');
+        return SourceVersion.isKeyword(identifier) ? identifier + "_" : identifier;
+    }
+}
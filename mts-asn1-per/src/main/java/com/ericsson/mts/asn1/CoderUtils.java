@@ -9,6 +9,8 @@
  */
 package com.ericsson.mts.asn1;
 
+import com.ericsson.mts.asn1.factory.FormatWriter;
+
 public class CoderUtils {
 
     public static int getIntegerLength(int value) {
@@ -60,10 +62,6 @@ public class CoderUtils {
     }
 
     public static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X", b));
-        }
-        return sb.toString();
+        return FormatWriter.bytesToHex(bytes);
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.translator.PERCompiler;
+import com.ericsson.mts.asn1.translator.PERProgramCompiler;
+
+/**
+ * Build codecs specialized for PER from the codecs of an {@link ASN1Translator}, see {@link PERCompiler}. The
+ * encoding is the same, constructs that aren't specialized use the interpreted translators.
+ */
+public final class PERCodecCompiler {
+    private final PERCompiler perCompiler;
+    private final PERProgramCompiler perProgramCompiler;
+
+    /**
+     * @param perTranscoder transcoder of the {@link PERTranslatorFactory} that built the translators
+     */
+    public PERCodecCompiler(PERTranscoder perTranscoder) {
+        this.perCompiler = new PERCompiler(perTranscoder);
+        this.perProgramCompiler = new PERProgramCompiler(perTranscoder);
+    }
+
+    /**
+     * @param codec codec returned by {@link ASN1Translator#codecFor(String)}
+     * @return compiled codec of the same type
+     */
+    public ASN1Codec compile(ASN1Codec codec) {
+        return new ASN1Codec(codec.getTypeName(), perCompiler.compile(codec.getTranslator()));
+    }
+
+    /**
+     * Only decoding runs a program : there are no encoding instructions, the returned codec keeps the translator of
+     * codec and encodes with it, at the same speed.
+     *
+     * @param codec codec returned by {@link ASN1Translator#codecFor(String)}
+     * @return codec of the same type decoding with a flat program, see {@link PERProgramCompiler}
+     */
+    public ASN1Codec compileProgram(ASN1Codec codec) {
+        return new ASN1Codec(codec.getTypeName(), codec.getTranslator(), perProgramCompiler.compile(codec.getTranslator()));
+    }
+}
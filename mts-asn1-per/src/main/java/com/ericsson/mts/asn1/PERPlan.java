@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.exception.NotHandledCaseException;
+
+import java.math.BigInteger;
+
+/**
+ * Immutable PER encoding plan of a type : the X.691 clause selected from the PER-visible constraints, with the bounds
+ * and the field size it needs. Translators build it once, so encoding and decoding don't look at constraints anymore.
+ */
+public final class PERPlan {
+    public enum Clause {
+        //Constraints not supported, encoding or decoding throws a NotHandledCaseException
+        NOT_HANDLED,
+        //Size bounds depend on parameters, the plan is built on each call
+        PARAMETERIZED,
+        //Zero length, nothing is encoded
+        EMPTY,
+        //Fixed size or constrained whole number without length, bitWidth bits (octet-aligned if alignValue)
+        FIXED,
+        //Length encoded as a constrained whole number between lb and ub
+        CONSTRAINED_LENGTH,
+        //Length encoded as a length determinant or a semi-constrained whole number from lb
+        SEMI_CONSTRAINED_LENGTH,
+        //Whole number with a range greater than 64K : length in octets then value (X.691 11.5.7.4)
+        INDEFINITE_LENGTH,
+        //Whole number with bounds that don't fit in a long, bigLb and bigUb must be used
+        BIG_RANGE
+    }
+
+    private static final PERPlan PARAMETERIZED = new PERPlan(Clause.PARAMETERIZED, 0, 0, false, false, 0, false, null, null, null);
+
+    private final Clause clause;
+    private final long lb;
+    private final long ub;
+    private final boolean upperBounded;
+    private final boolean extensible;
+    private final int bitWidth;
+    private final boolean alignValue;
+    private final BigInteger bigLb;
+    private final BigInteger bigUb;
+    private final String reason;
+
+    private PERPlan(Clause clause, long lb, long ub, boolean upperBounded, boolean extensible, int bitWidth, boolean alignValue, BigInteger bigLb, BigInteger bigUb, String reason) {
+        this.clause = clause;
+        this.lb = lb;
+        this.ub = ub;
+        this.upperBounded = upperBounded;
+        this.extensible = extensible;
+        this.bitWidth = bitWidth;
+        this.alignValue = alignValue;
+        this.bigLb = bigLb;
+        this.bigUb = bigUb;
+        this.reason = reason;
+    }
+
+    public static PERPlan notHandled(String reason) {
+        return new PERPlan(Clause.NOT_HANDLED, 0, 0, false, false, 0, false, null, null, reason);
+    }
+
+    public static PERPlan parameterized() {
+        return PARAMETERIZED;
+    }
+
+    /**
+     * @param clause selected clause
+     * @param lb lower bound
+     * @param ub upper bound, ignored if upperBounded is false
+     * @param upperBounded true if there is an upper bound
+     * @param extensible true if an extension bit is encoded
+     * @param bitWidth number of bits of the value or of the constrained length
+     * @param alignValue true if the value is octet-aligned
+     * @return a plan
+     */
+    public static PERPlan of(Clause clause, long lb, long ub, boolean upperBounded, boolean extensible, int bitWidth, boolean alignValue) {
+        return new PERPlan(clause, lb, ub, upperBounded, extensible, bitWidth, alignValue, null, null, null);
+    }
+
+    public static PERPlan bigRange(BigInteger lb, BigInteger ub, boolean extensible) {
+        return new PERPlan(Clause.BIG_RANGE, 0, 0, true, extensible, 0, false, lb, ub, null);
+    }
+
+    /**
+     * Plan of a constrained whole number X.691 11.5
+     *
+     * @param lb lower bound
+     * @param ub upper bound
+     * @param extensible true if an extension bit is encoded
+     * @param aligned true for the ALIGNED variant
+     * @return a FIXED plan when the range is up to 64K, INDEFINITE_LENGTH otherwise (11.5.7.4)
+     */
+    public static PERPlan constrainedWholeNumber(long lb, long ub, boolean extensible, boolean aligned) {
+        long max = ub - lb;
+        if (max < 255) {
+            return of(Clause.FIXED, lb, ub, true, extensible, 64 - Long.numberOfLeadingZeros(max), false);
+        } else if (max == 255) {
+            return of(Clause.FIXED, lb, ub, true, extensible, 8, aligned);
+        } else if (max < 65536) {
+            return of(Clause.FIXED, lb, ub, true, extensible, 16, aligned);
+        } else {
+            //bitWidth is the maximum number of octets of the value
+            return of(Clause.INDEFINITE_LENGTH, lb, ub, true, extensible, (64 - Long.numberOfLeadingZeros(max) + 7) / 8, aligned);
+        }
+    }
+
+    public Clause getClause() {
+        return clause;
+    }
+
+    public long getLb() {
+        return lb;
+    }
+
+    public long getUb() {
+        return ub;
+    }
+
+    public boolean isUpperBounded() {
+        return upperBounded;
+    }
+
+    public boolean isExtensible() {
+        return extensible;
+    }
+
+    public int getBitWidth() {
+        return bitWidth;
+    }
+
+    public boolean isAlignValue() {
+        return alignValue;
+    }
+
+    public BigInteger getBigLb() {
+        return bigLb;
+    }
+
+    public BigInteger getBigUb() {
+        return bigUb;
+    }
+
+    /**
+     * Throw the NotHandledCaseException of a NOT_HANDLED plan.
+     */
+    public void checkHandled() {
+        if (clause == Clause.NOT_HANDLED) {
+            throw new NotHandledCaseException(reason);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PERPlan{" +
+                "clause=" + clause +
+                ", lb=" + (bigLb != null ? bigLb : lb) +
+                ", ub=" + (bigUb != null ? bigUb : (upperBounded ? String.valueOf(ub) : "unset")) +
+                ", extensible=" + extensible +
+                ", bitWidth=" + bitWidth +
+                ", alignValue=" + alignValue +
+                (reason != null ? ", reason=" + reason : "") +
+                '}';
+    }
+}
@@ -16,7 +16,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.math.BigInteger;
 
 import static java.math.BigInteger.ONE;
@@ -59,6 +58,9 @@ public class PERTranscoder {
      * @throws IOException Input exception
      */
     public BigInteger decodeConstrainedNumber(BigInteger lb, BigInteger ub, BitInputStream stream) throws IOException {
+        if (isLongRange(lb, ub)) {
+            return BigInteger.valueOf(decodeConstrainedNumber(lb.longValue(), ub.longValue(), stream));
+        }
         logger.trace("decodeConstrainedNumber min=" + lb + ", max=" + ub);
         BigInteger n;
         BigInteger max = ub.subtract(lb);
@@ -122,6 +124,86 @@ public class PERTranscoder {
         return n;
     }
 
+    /**
+     * Decode of the constrained whole number ITU-T X.691. 10.5, when both bounds fit in a long.
+     *
+     * @param lb lower bound
+     * @param ub upper bound
+     * @param stream binary stream
+     * @return number decoded
+     * @throws IOException Input exception
+     */
+    public long decodeConstrainedNumber(long lb, long ub, BitInputStream stream) throws IOException {
+        if (lb > ub || ub - lb < 0) {
+            throw new IllegalArgumentException("illegal ranges lb=" + lb + ", ub=" + ub);
+        }
+        long max = ub - lb;
+        long n;
+        if (max < 255) {
+            //1. Range less than or equal to 255 : bit-field of the minimum size for the range
+            n = stream.readBits(bitLength(max));
+        } else if (max == 255) {
+            //2. Range exactly 256 : one octet-aligned octet
+            if (aligned) {
+                skipAlignedBits(stream);
+            }
+            n = stream.readBits(8);
+        } else if (max < 65536) {
+            //3. Range 257 to 64K : two octet-aligned octets
+            if (aligned) {
+                skipAlignedBits(stream);
+            }
+            n = stream.readBits(16);
+        } else {
+            //4. Range greater than 64K : length then minimum number of octets
+            int intLen = (int) decodeConstrainedNumber(1, toByteCount(bitLength(max)), stream);
+            if (aligned) {
+                skipAlignedBits(stream);
+            }
+            n = stream.readBits(intLen * 8);
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("decodeConstrainedNumber min={}, max={}, result={}", lb, ub, n + lb);
+        }
+        return n + lb;
+    }
+
+    /**
+     * Decode a constrained whole number X.691 11.5 with a precompiled plan
+     *
+     * @param plan FIXED or INDEFINITE_LENGTH plan built by {@link PERPlan#constrainedWholeNumber}
+     * @param stream binary stream
+     * @return number decoded
+     * @throws IOException input exception
+     */
+    public long decodeConstrainedNumber(PERPlan plan, BitInputStream stream) throws IOException {
+        int nBits;
+        if (plan.getClause() == PERPlan.Clause.INDEFINITE_LENGTH) {
+            nBits = (int) decodeConstrainedNumber(1, plan.getBitWidth(), stream) * 8;
+        } else {
+            nBits = plan.getBitWidth();
+        }
+        if (plan.isAlignValue()) {
+            skipAlignedBits(stream);
+        }
+        return stream.readBits(nBits) + plan.getLb();
+    }
+
+    /**
+     * Check if a constrained whole number can be handled with longs : ub - lb + 1 must not overflow.
+     *
+     * @param lb lower bound
+     * @param ub upper bound
+     * @return true if both bounds are lower than 2^62 in absolute value
+     */
+    public static boolean isLongRange(BigInteger lb, BigInteger ub) {
+        return lb != null && ub != null && lb.bitLength() < 63 && ub.bitLength() < 63;
+    }
+
+    private static int bitLength(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
     public int toByteCount(int bitCount) {
         int byteCount = 0;
         while (bitCount > 0) {
@@ -161,6 +243,21 @@ public class PERTranscoder {
         return len;
     }
 
+    /**
+     * Decode the normally small number ITU-T X.691. 10.6 as a long.
+     *
+     * @param stream binary stream
+     * @return normally small number
+     * @throws IOException input exception
+     */
+    public long decodeNormallySmallNumberAsLong(BitInputStream stream) throws IOException {
+        if (stream.readBit() == 0) {
+            //10.6.1
+            return stream.readBits(6);
+        }
+        return decodeSemiConstraintNumberAsLong(0, stream);
+    }
+
     /**
      * Decode the normally small number ITU-T X.691. 10.6 NOTE (Tutorial) This
      * procedure is used when encoding a non-negative whole number that is
@@ -215,6 +312,25 @@ public class PERTranscoder {
         return decodeUnsignedIntegerValueAsBytes(intLen, stream).add(BigInteger.valueOf(lb));
     }
 
+    /**
+     * Decode the semi-constrained whole number ITU-T X.691. 10.7, when the value fits in a long.
+     *
+     * @param lb lower bound
+     * @param stream binary input
+     * @return unsigned integer
+     * @throws IOException input exception
+     */
+    public long decodeSemiConstraintNumberAsLong(long lb, BitInputStream stream) throws IOException {
+        int intLen = decodeLengthDeterminant(stream);
+        if (intLen > 7) {
+            throw new NotHandledCaseException("Semi-constrained whole number of " + intLen + " octets doesn't fit in a long");
+        }
+        if (aligned) {
+            skipAlignedBits(stream);
+        }
+        return stream.readBits(intLen * 8) + lb;
+    }
+
     /**
      * Decode n bytes as a unsigned integer
      *
@@ -223,7 +339,10 @@ public class PERTranscoder {
      * @return unsigned integer decoded
      * @throws IOException input exception
      */
-    private BigInteger decodeUnsignedIntegerValueAsBytes(int n, InputStream stream) throws IOException {
+    private BigInteger decodeUnsignedIntegerValueAsBytes(int n, BitInputStream stream) throws IOException {
+        if (n < 8) {
+            return BigInteger.valueOf(stream.readBits(n * 8));
+        }
         byte[] bytes = new byte[n + 1];
         if (-1 == stream.read(bytes, 1, n)) {
             throw new RuntimeException();
@@ -239,7 +358,11 @@ public class PERTranscoder {
      * @return decoded integer
      * @throws IOException input exception
      */
-    protected BigInteger decodeSignedIntegerValueAsBytes(int n, InputStream stream) throws IOException {
+    protected BigInteger decodeSignedIntegerValueAsBytes(int n, BitInputStream stream) throws IOException {
+        if (n > 0 && n <= 8) {
+            //Sign extension of the n octets read
+            return BigInteger.valueOf(stream.readBits(n * 8) << (64 - n * 8) >> (64 - n * 8));
+        }
         byte[] bytes = new byte[n];
         if (-1 == stream.read(bytes)) {
             throw new RuntimeException();
@@ -256,15 +379,17 @@ public class PERTranscoder {
      * @throws IOException input exception
      */
     public int decodeLengthDeterminant(BitInputStream stream) throws IOException {
-        skipAlignedBits(stream);
-        int result = stream.read();
+        if (aligned) {
+            skipAlignedBits(stream);
+        }
+        int result = (int) stream.readBits(8);
         if ((result & 0b10000000) != 0b00000000) {
             if ((result & 0b11000000) == 0b10000000) {
                 // NOTE 2. b) ("n" less than 16K) two octets
                 // containing "n" with bit 8 of the first octet
                 // set to 1 and bit 7 set to zero;
                 result = (result & 0x3f) << 8;
-                result |= stream.read();
+                result |= (int) stream.readBits(8);
             } else if ((result & 0b11000000) == 0b11000000) {
                 // WARNING! Large N doesn't supported NOW!
                 // NOTE 2. b) (large "n") a single octet containing a count "m"
@@ -292,13 +417,87 @@ public class PERTranscoder {
      * @throws IOException input exception
      */
     public byte[] decodeOctetString(BitInputStream stream, BigInteger len) throws IOException {
-        if (len.compareTo(new BigInteger("2")) <= 0) {
-            return stream.readUnalignedByteArray(len.intValueExact());
-        } else if (len.compareTo(BigInteger.valueOf(64L * 1024L)) < 0) {
-            return stream.readAlignedByteArray(len.intValueExact());
+        return decodeOctetString(stream, len.intValueExact());
+    }
+
+    /**
+     * Decode an octet string ITU-T X.691. 17. Encoding the octetstring type
+     *
+     * @param stream binary stream
+     * @param len octet string length
+     * @return octet string as a byte array
+     * @throws IOException input exception
+     */
+    public byte[] decodeOctetString(BitInputStream stream, int len) throws IOException {
+        if (len >= 64 * 1024) {
+            throw new NotHandledCaseException("Octet string of " + len + " octets");
+        } else if (len <= 2 || !aligned) {
+            return stream.readUnalignedByteArray(len);
         } else {
-            throw new RuntimeException("unsupported case");
+            return stream.readAlignedByteArray(len);
+        }
+    }
+
+    /**
+     * Encode the octets of an octet string, read by {@link #decodeOctetString(BitInputStream, int)}
+     *
+     * @param s binary output stream
+     * @param octets octet string content
+     */
+    public void encodeOctetString(BitArray s, byte[] octets) {
+        if (octets.length >= 64 * 1024) {
+            throw new NotHandledCaseException("Octet string of " + octets.length + " octets");
+        } else if (octets.length > 2 && aligned) {
+            s.skipAlignedBits();
+        }
+        s.writeBytes(octets, 0, octets.length);
+    }
+
+    /**
+     * Encode an open type X.691 11.2 : length determinant followed by the content octets
+     *
+     * @param s binary output stream
+     * @param content encoding of the content, an empty encoding is replaced by one zero octet
+     * @throws IOException output stream exception
+     */
+    public void encodeOpenType(BitArray s, byte[] content) throws IOException {
+        if (content.length == 0) {
+            content = new byte[1];
+        }
+        encodeLengthDeterminant(s, content.length);
+        s.writeBytes(content, 0, content.length);
+    }
+
+    /**
+     * Decode an open type X.691 11.2
+     *
+     * @param stream binary stream
+     * @return stream of the content octets, the input stream is positioned after them
+     * @throws IOException input exception
+     */
+    public BitInputStream decodeOpenType(BitInputStream stream) throws IOException {
+        int len = decodeLengthDeterminant(stream);
+        if (len >= 16384) {
+            throw new NotHandledCaseException("Open type fragmentation");
+        }
+        return decodeContentOctets(stream, len);
+    }
+
+    /**
+     * Content octets following a length determinant : open type, extension addition or choice extension. They are
+     * read in place when the stream is on an octet boundary, which is always the case in the ALIGNED variant, and
+     * copied otherwise.
+     *
+     * @param stream binary stream
+     * @param len number of octets of the content
+     * @return stream of the content octets, the input stream is positioned after them
+     * @throws IOException input exception
+     */
+    public BitInputStream decodeContentOctets(BitInputStream stream, int len) throws IOException {
+        if (stream.isAligned()) {
+            return stream.slice(len);
         }
+        return new BitInputStream(stream.readUnalignedByteArray(len));
     }
 
     /**
@@ -328,8 +527,14 @@ public class PERTranscoder {
     public String readsBitsAsString(BitInputStream s, int n) throws IOException {
         StringBuilder sb = new StringBuilder(n);
         if (aligned) {
-            for (int i = 0; i < n; i++) {
-                sb.append(s.readBit() == 0 ? '0' : '1');
+            int i = 0;
+            while (i < n) {
+                int count = Math.min(64, n - i);
+                long bits = s.readBits(count);
+                for (int j = count - 1; j >= 0; j--) {
+                    sb.append((bits >>> j & 1) == 0 ? '0' : '1');
+                }
+                i += count;
             }
 
         } else {
@@ -343,8 +548,10 @@ public class PERTranscoder {
      *
      * @param stream binary stream
      */
-    public void skipAlignedBits(InputStream stream) {
-        ((BitInputStream) stream).skipUnreadedBits();
+    public void skipAlignedBits(BitInputStream stream) {
+        if (aligned) {
+            stream.skipUnreadedBits();
+        }
     }
 
     //Output stream part
@@ -381,6 +588,10 @@ public class PERTranscoder {
      * @throws IOException ouput stream exception
      */
     public void encodeConstrainedWholeNumber(BitArray s, BigInteger number, BigInteger lb, BigInteger ub) throws IOException {
+        if (isLongRange(lb, ub) && number.bitLength() < 64) {
+            encodeConstrainedWholeNumber(s, number.longValue(), lb.longValue(), ub.longValue());
+            return;
+        }
         logger.trace("encodeConstrainedWholeNumber : number(DEC)=" + number.toString(10) + ", lb=" + lb + ", ub=" + ub);
         BigInteger range = ub.subtract(lb).add(ONE);
         BigInteger value = number.subtract(lb);
@@ -411,6 +622,87 @@ public class PERTranscoder {
         }
     }
 
+    /**
+     * Encode a constrained whole number : X.691 11.5, when both bounds fit in a long
+     *
+     * @param s binary ouput stream
+     * @param number value to encode
+     * @param lb lower bound
+     * @param ub upper bound
+     * @throws IOException ouput stream exception
+     */
+    public void encodeConstrainedWholeNumber(BitArray s, long number, long lb, long ub) throws IOException {
+        if (logger.isTraceEnabled()) {
+            logger.trace("encodeConstrainedWholeNumber : number(DEC)={}, lb={}, ub={}", number, lb, ub);
+        }
+        long max = ub - lb;
+        if (lb > ub || max < 0) {
+            throw new InvalidParameterException("Bad range " + lb + ".." + ub);
+        }
+        long value = number - lb;
+        if (max == 0) {
+            return;
+        }
+        if (max < 255) {
+            s.writeBits(value, bitLength(max));
+        } else if (max == 255) {
+            if (aligned) {
+                s.skipAlignedBits();
+            }
+            s.writeBits(value, 8);
+        } else if (max < 65536) {
+            if (aligned) {
+                s.skipAlignedBits();
+            }
+            s.writeBits(value, 16);
+        } else {
+            //11.5.7.4 (The indefinite length case.)
+            s.writeBits(value, toByteCount(bitLength(value)) * 8);
+        }
+    }
+
+    /**
+     * Encode a constrained whole number X.691 11.5 with a precompiled plan
+     *
+     * @param s binary ouput stream
+     * @param plan FIXED or INDEFINITE_LENGTH plan built by {@link PERPlan#constrainedWholeNumber}
+     * @param number value to encode, must be in the plan range
+     * @throws IOException ouput stream exception
+     */
+    public void encodeConstrainedWholeNumber(BitArray s, PERPlan plan, long number) throws IOException {
+        long value = number - plan.getLb();
+        int nBits;
+        if (plan.getClause() == PERPlan.Clause.INDEFINITE_LENGTH) {
+            int octetLength = toByteCount(bitLength(value));
+            encodeConstrainedWholeNumber(s, octetLength, 1, plan.getBitWidth());
+            nBits = octetLength * 8;
+        } else {
+            nBits = plan.getBitWidth();
+        }
+        if (plan.isAlignValue()) {
+            s.skipAlignedBits();
+        }
+        s.writeBits(value, nBits);
+    }
+
+    /**
+     * Encode a normally small whole number : X.691 11.6, from a long
+     *
+     * @param s binary ouput stream
+     * @param number value to encode
+     * @throws IOException ouput stream exception
+     */
+    public void encodeNormallySmallWholeNumber(BitArray s, long number) throws IOException {
+        if (number >= 0 && number <= 63) {
+            s.writeBits(number, 7);
+        } else if (number >= 64) {
+            s.writeBit(1);
+            encodeSemiConstrainedWholeNumber(s, 0, number);
+        } else {
+            throw new InvalidParameterException("Negative normally small whole number : " + number);
+        }
+    }
+
     /**
      * Encode a normally whole number : X.691 11.6
      *
@@ -441,43 +733,47 @@ public class PERTranscoder {
      * @throws IOException ouput stream exception
      */
     public void encodeBitField(BitArray s, String string, int length) throws IOException {
-        int[] value = stringToBytes(string);
         int i = 0, j = 0;
-        int currentByte;
         while (i < length) {
-            currentByte = value[j] & 0xf;
-            for (int l = 0; l < 4 && i + l < length; l++) {
-                if ((currentByte >> (3 - l) & 0x01) == 0x01) {
-                    s.writeBit(1);
-                } else {
-                    s.writeBit(0);
-                }
+            int nibble = Character.digit(string.charAt(j), 16);
+            if (nibble < 0) {
+                throw new EncodingException("Not an hexadecimal digit : " + string.charAt(j));
             }
+            int count = Math.min(4, length - i);
+            s.writeBits(nibble >> (4 - count), count);
             i += 4;
             j++;
         }
     }
 
     public void encodeBitString(BitArray s, String string) throws IOException {
-        byte[] bytes = string.getBytes();
-        for (byte digit : bytes) {
-            if (digit == 49) {
+        for (int i = 0; i < string.length(); i++) {
+            char digit = string.charAt(i);
+            if (digit == '1') {
                 s.writeBit(1);
-            } else if (digit == 48) {
+            } else if (digit == '0') {
                 s.writeBit(0);
             } else {
-                throw new EncodingException("Not equals to 1 or 0 : " + digit);
+                throw new EncodingException("Not equals to 1 or 0 : " + (int) digit);
             }
         }
     }
 
-    private int[] stringToBytes(String value) {
-        String[] strings = value.split("");
-        int[] result = new int[value.length()];
-        for (int i = 0; i < value.length(); i++) {
-            result[i] = Integer.parseInt(strings[i], 16);
+    /**
+     * Encoding a constrained length determinant X.691 13.2.6, when both bounds fit in a long
+     *
+     * @param s binary output stream
+     * @param length length to encode
+     * @param lb lower bound
+     * @param ub upper bound
+     * @throws IOException output stream exception
+     */
+    public void encodeConstrainedLengthDeterminant(BitArray s, long length, long lb, long ub) throws IOException {
+        if (ub < 65536) {
+            this.encodeConstrainedWholeNumber(s, length, lb, ub);
+        } else {
+            this.encodeLengthDeterminant(s, (int) length);
         }
-        return result;
     }
 
     /**
@@ -506,16 +802,28 @@ public class PERTranscoder {
      * @throws IOException output stream exception
      */
     public void encodeLengthDeterminant(BitArray s, BigInteger length) throws IOException {
-        logger.trace("encodeLengthDeterminant : length=" + length);
+        encodeLengthDeterminant(s, length.intValueExact());
+    }
+
+    /**
+     * Encode a length determinant X.691 11.9
+     *
+     * @param s binary ouput stream
+     * @param length length to encode
+     * @throws IOException output stream exception
+     */
+    public void encodeLengthDeterminant(BitArray s, int length) throws IOException {
+        logger.trace("encodeLengthDeterminant : length={}", length);
         if (aligned) {
             s.skipAlignedBits();
         }
-        if (length.compareTo(BigInteger.valueOf(128)) < 0) {
-            s.write(length.intValueExact() & 0b01111111);
-        } else if (length.compareTo(BigInteger.valueOf(16384)) < 0) {
-            int value = length.intValueExact();
-            s.write((((value >> 8)) & 0x3f | 0b10000000) & 0b10111111);
-            s.write(value & 0xff);
+        if (length < 0) {
+            throw new InvalidParameterException("Negative length : " + length);
+        } else if (length < 128) {
+            s.writeBits(length, 8);
+        } else if (length < 16384) {
+            // 10 followed by the length on 14 bits
+            s.writeBits(length | 0x8000, 16);
         } else {
             throw new UnsupportedOperationException("number of 16k chunks not supported");
         }
@@ -544,15 +852,41 @@ public class PERTranscoder {
      * @throws IOException output stream exception
      */
     private void encodeBitField(BitArray s, BigInteger bitField, int length) throws IOException {
-        for (int i = length - 1; i >= 0; i--) {
-            if (((bitField.shiftRight(i)).and(ONE)).equals(ONE)) {
-                s.writeBit(1);
-            } else {
-                s.writeBit(0);
-            }
+        if (length < 64 && bitField.bitLength() < 64) {
+            s.writeBits(bitField.longValue(), length);
+            return;
+        }
+        //Write 64 bits chunks, most significant first
+        int remaining = length;
+        while (remaining > 0) {
+            int count = remaining % 64 == 0 ? 64 : remaining % 64;
+            remaining -= count;
+            s.writeBits(bitField.shiftRight(remaining).longValue(), count);
         }
     }
 
+    /**
+     * Encode a semi constrained whole number X.691 11.7, when the value fits in a long
+     *
+     * @param s binary ouput stream
+     * @param lb lower bound
+     * @param number number to encode
+     * @throws IOException output stream exception
+     */
+    public void encodeSemiConstrainedWholeNumber(BitArray s, long lb, long number) throws IOException {
+        long value = number - lb;
+        if (value < 0) {
+            throw new InvalidParameterException("Value " + number + " lower than lower bound " + lb);
+        }
+        //11.3 : minimum number of octets, at least one
+        int octetLength = toByteCount(bitLength(value));
+        encodeLengthDeterminant(s, octetLength);
+        if (aligned) {
+            s.skipAlignedBits();
+        }
+        s.writeBits(value, octetLength * 8);
+    }
+
     /**
      * Encode a semi constrained whole number X.691 11.7
      *
@@ -562,6 +896,10 @@ public class PERTranscoder {
      * @throws IOException output stream exception
      */
     public void encodeSemiConstrainedWholeNumber(BitArray s, BigInteger lb, BigInteger number) throws IOException {
+        if (lb.bitLength() < 63 && number.bitLength() < 63) {
+            encodeSemiConstrainedWholeNumber(s, lb.longValue(), number.longValue());
+            return;
+        }
         int octetLength = number.bitLength() / 8 + ((number.bitLength() % 8 != 0) ? 1 : 0) - lb.intValueExact();
         logger.trace("encodeSemiConstrainedWholeNumber : value=" + String.format("%x", number).toUpperCase() + ", length=" + octetLength);
         encodeLengthDeterminant(s, BigInteger.valueOf(octetLength));
@@ -25,6 +25,10 @@ public class PERTranslatorFactory extends AbstractTranslatorFactory {
         this.perTranscoder = perTranscoder;
     }
 
+    public PERTranscoder getPerTranscoder() {
+        return perTranscoder;
+    }
+
     @Override
     public AbstractBitStringTranslator bitStringTranslator() {
         return new PERBitStringTranslator(perTranscoder);
@@ -12,6 +12,7 @@ package com.ericsson.mts.asn1.translator;
 
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.PERPlan;
 import com.ericsson.mts.asn1.PERTranscoder;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.factory.FormatReader;
@@ -22,19 +23,34 @@ import java.math.BigInteger;
 
 public class PERBitStringTranslator extends AbstractBitStringTranslator {
     private PERTranscoder perTranscoder;
+    private volatile PERPlan plan;
 
     public PERBitStringTranslator(PERTranscoder perTranscoder) {
         this.perTranscoder = perTranscoder;
     }
 
     @Override
-    public void doEncode(BitArray s, FormatReader reader, String value) throws IOException {
-        logger.trace("Enter {} encoder, name {}", this.getClass().getSimpleName(), this.name);
+    public void compile() {
+        plan();
+    }
+
+    PERPlan plan() {
+        PERPlan perPlan = plan;
+        if (perPlan == null) {
+            perPlan = buildPlan();
+            plan = perPlan;
+        }
+        return perPlan;
+    }
+
+    private PERPlan buildPlan() {
         BigInteger ub;
         BigInteger lb;
         boolean ubUnset = false;
 
-        if (constraints.hasSingleValueConstraints()) {
+        if (constraints == null) {
+            return PERPlan.notHandled("Unconstrained bit string " + name);
+        } else if (constraints.hasSingleValueConstraints()) {
             ub = lb = constraints.getSingleValueConstraint();
         } else if (constraints.hasSizeConstraint()) {
             ub = constraints.getUpperBound();
@@ -45,7 +61,7 @@ public class PERBitStringTranslator extends AbstractBitStringTranslator {
         }
 
         if (constraints.hasContentsConstraint()) {
-            throw new NotHandledCaseException();
+            return PERPlan.notHandled("Contents constraint on " + name);
         }
 
         if (lb == null) {
@@ -58,12 +74,40 @@ public class PERBitStringTranslator extends AbstractBitStringTranslator {
 
         if (!namedBitList.isEmpty()) {
             //16.2, 16.3
-            throw new NotHandledCaseException();
+            return PERPlan.notHandled("Named bits on " + name);
+        }
+
+        long lower = lb.longValueExact();
+        long upper = ub.longValueExact();
+        boolean extensible = constraints.isExtensible();
+        if (upper == 0) {
+            return PERPlan.notHandled("Empty bit string " + name);
+        } else if (lower == upper && upper <= 16) {
+            //16.9
+            return PERPlan.of(PERPlan.Clause.FIXED, lower, upper, true, extensible, (int) upper, false);
+        } else if (lower == upper && upper <= 65536) {
+            //16.10
+            return PERPlan.of(PERPlan.Clause.FIXED, lower, upper, true, extensible, (int) upper, true);
+        } else if (!ubUnset && upper <= 65536) {
+            //16.11
+            return PERPlan.of(PERPlan.Clause.CONSTRAINED_LENGTH, lower, upper, true, extensible, 0, false);
+        } else if (ubUnset) {
+            //16.11
+            return PERPlan.of(PERPlan.Clause.SEMI_CONSTRAINED_LENGTH, lower, upper, false, extensible, 0, false);
+        } else {
+            return PERPlan.notHandled("Bit string " + name + " larger than 64K");
         }
+    }
 
-        if (constraints.isExtensible()) {
+    @Override
+    public void doEncode(BitArray s, FormatReader reader, String value) throws IOException {
+        logger.trace("Enter {} encoder, name {}", this.getClass().getSimpleName(), this.name);
+        PERPlan perPlan = plan();
+        perPlan.checkHandled();
+
+        if (perPlan.isExtensible()) {
             //16.6
-            if (lb.compareTo(BigInteger.valueOf(value.length())) > 0 || ub.compareTo(BigInteger.valueOf(value.length())) < 0) {
+            if (perPlan.getLb() > value.length() || perPlan.getUb() < value.length()) {
                 throw new NotHandledCaseException();
             } else {
                 s.writeBit(0);
@@ -72,102 +116,58 @@ public class PERBitStringTranslator extends AbstractBitStringTranslator {
 
         value = value.trim();
 
-        if (BigInteger.ZERO.equals(ub)) {
-            throw new NotHandledCaseException();
-        } else if (lb.equals(ub) && BigInteger.valueOf(16).compareTo(ub) >= 0) {
-            //16.9
-            perTranscoder.encodeBitString(s, value);
-        } else if (lb.equals(ub) && BigInteger.valueOf(65536).compareTo(ub) >= 0) {
-            //16.10
-            perTranscoder.skipAlignedBits(s);
-            perTranscoder.encodeBitString(s, value);
-        } else {
-            //16.11
-            if (!ubUnset && ub.compareTo(BigInteger.valueOf(65536)) <= 0) {
-                perTranscoder.encodeConstrainedWholeNumber(s, BigInteger.valueOf(value.length()), lb, ub);
-            } else if (ubUnset) {
-                perTranscoder.encodeSemiConstrainedWholeNumber(s, lb, BigInteger.valueOf(value.length()));
-            } else {
-                throw new RuntimeException();
-            }
-
-            perTranscoder.skipAlignedBits(s);
-            perTranscoder.encodeBitString(s, value);
+        switch (perPlan.getClause()) {
+            case FIXED:
+                //16.9 and 16.10
+                if (perPlan.isAlignValue()) {
+                    perTranscoder.skipAlignedBits(s);
+                }
+                break;
+            case CONSTRAINED_LENGTH:
+                //16.11
+                perTranscoder.encodeConstrainedWholeNumber(s, value.length(), perPlan.getLb(), perPlan.getUb());
+                perTranscoder.skipAlignedBits(s);
+                break;
+            default:
+                //16.11
+                perTranscoder.encodeSemiConstrainedWholeNumber(s, perPlan.getLb(), value.length());
+                perTranscoder.skipAlignedBits(s);
         }
+        perTranscoder.encodeBitString(s, value);
         logger.trace("Encode value={} , length={}", value, value.length());
     }
 
     @Override
     public String doDecode(BitInputStream s, FormatWriter writer) throws NotHandledCaseException, IOException {
         logger.trace("Enter {} translator, name {}", this.getClass().getSimpleName(), this.name);
-        BigInteger ub;
-        BigInteger lb;
-        boolean isExtendedBitString = false;
-        boolean ubUnset = false;
-
+        PERPlan perPlan = plan();
+        perPlan.checkHandled();
 
-        if (constraints.hasSingleValueConstraints()) {
-            ub = lb = constraints.getSingleValueConstraint();
-        } else if (constraints.hasSizeConstraint()) {
-            ub = constraints.getUpperBound();
-            lb = constraints.getLowerBound();
-        } else {
-            ub = null;
-            lb = BigInteger.ZERO;
-        }
-
-        if (constraints.hasContentsConstraint()) {
-            throw new NotHandledCaseException();
-        }
-
-        if (lb == null) {
-            lb = BigInteger.ZERO;
-        }
-        if (ub == null) {
-            ub = lb;
-            ubUnset = true;
-        }
-
-        if (!namedBitList.isEmpty()) {
-            //16.2, 16.3
-            throw new NotHandledCaseException();
-        }
-
-        if (constraints.isExtensible()) {
+        if (perPlan.isExtensible() && 1 == s.readBit()) {
             //16.6
-            isExtendedBitString = (1 == s.readBit());
+            long length = perTranscoder.decodeSemiConstraintNumberAsLong(perPlan.getLb(), s);
+            throw new NotHandledCaseException(String.valueOf(length));
         }
 
-        if (isExtendedBitString) {
-            //16.6
-            BigInteger length = perTranscoder.decodeSemiConstraintNumber(lb.intValue(), s);
-            throw new NotHandledCaseException(length.toString());
-        } else {
-            if (BigInteger.ZERO.equals(ub)) {
-                throw new RuntimeException();
-            } else if (lb.equals(ub) && BigInteger.valueOf(16).compareTo(ub) >= 0) {
-                //16.9
-                return perTranscoder.readsBitsAsString(s, ub.intValue());
-            } else if (lb.equals(ub) && BigInteger.valueOf(65536).compareTo(ub) >= 0) {
-                //16.10
-                perTranscoder.skipAlignedBits(s);
-                return perTranscoder.readsBitsAsString(s, ub.intValue());
-            } else {
-                //16.11
-                BigInteger length;
-                if (!ubUnset && ub.compareTo(BigInteger.valueOf(65536)) <= 0) {
-                    length = perTranscoder.decodeConstrainedNumber(lb, ub, s);
-                } else if (ubUnset) {
-                    length = perTranscoder.decodeSemiConstraintNumber(lb.intValue(), s);
-                } else {
-                    throw new RuntimeException();
+        int length;
+        switch (perPlan.getClause()) {
+            case FIXED:
+                //16.9 and 16.10
+                if (perPlan.isAlignValue()) {
+                    perTranscoder.skipAlignedBits(s);
                 }
-
-                perTranscoder.skipAlignedBits(s);
-                String value = perTranscoder.readsBitsAsString(s, length.intValue());
-                logger.trace("Decode value={} , length={}", value, length);
-                return value;
-            }
+                return perTranscoder.readsBitsAsString(s, perPlan.getBitWidth());
+            case CONSTRAINED_LENGTH:
+                //16.11
+                length = (int) perTranscoder.decodeConstrainedNumber(perPlan.getLb(), perPlan.getUb(), s);
+                break;
+            default:
+                //16.11
+                length = (int) perTranscoder.decodeSemiConstraintNumberAsLong(perPlan.getLb(), s);
         }
+        perTranscoder.skipAlignedBits(s);
+        String value = perTranscoder.readsBitsAsString(s, length);
+        logger.trace("Decode value={} , length={}", value, length);
+        return value;
     }
 }
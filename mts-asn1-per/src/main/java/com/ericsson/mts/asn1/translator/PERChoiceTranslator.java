@@ -13,14 +13,12 @@ package com.ericsson.mts.asn1.translator;
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
 import com.ericsson.mts.asn1.PERTranscoder;
+import com.ericsson.mts.asn1.TranslatorContext;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.exception.UnknownIdentifierException;
 import com.ericsson.mts.asn1.factory.FormatReader;
 import com.ericsson.mts.asn1.factory.FormatWriter;
-import org.javatuples.Pair;
 
-import java.io.ByteArrayInputStream;
-import java.math.BigInteger;
 
 public class PERChoiceTranslator extends AbstractChoiceTranslator {
     private PERTranscoder perTranscoder;
@@ -30,60 +28,55 @@ public class PERChoiceTranslator extends AbstractChoiceTranslator {
     }
 
     @Override
-    public void doEncode(BitArray s, FormatReader reader, String choiceValue) throws Exception {
+    public void doEncode(BitArray s, FormatReader reader, TranslatorContext translatorContext, String choiceValue) throws Exception {
         logger.trace("Enter {} encoder, name {}", this.getClass().getSimpleName(), this.name);
         int index;
         AbstractTranslator abstractTranslator;
 
         if (fieldList.size() == 1) {
             if (fieldList.get(0).getValue0().equals(choiceValue)) {
-                fieldList.get(0).getValue1().encode(choiceValue, s, reader, null);
+                fieldList.get(0).getValue1().encode(choiceValue, s, reader, translatorContext);
                 return;
             } else {
                 throw new UnknownIdentifierException(choiceValue + " isn't part of translator " + this.name);
             }
         }
 
-        for (Pair<String, AbstractTranslator> pair : fieldList) {
-            if (choiceValue.equals(pair.getValue0())) {
-                abstractTranslator = pair.getValue1();
-                index = fieldList.indexOf(pair);
-                if (optionalExtensionMarker) {
-                    s.writeBit(0);
-                }
-                perTranscoder.encodeConstrainedWholeNumber(s, BigInteger.valueOf(index), BigInteger.ZERO, BigInteger.valueOf(fieldList.size() - 1L));
-                abstractTranslator.encode(choiceValue, s, reader, null);
-                return;
-            }
+        index = alternativeNames.indexOf(choiceValue);
+        if (index == -1) {
+            throw new UnknownIdentifierException(choiceValue + " isn't part of translator " + this.name);
+        } else if (index >= fieldList.size()) {
+            //Encode optional extension bit 1 also !
+            throw new NotHandledCaseException("In " + this.name + ", need length to encode additional extension choice " + choiceValue);
+        }
+        abstractTranslator = fieldList.get(index).getValue1();
+        if (optionalExtensionMarker) {
+            s.writeBit(0);
         }
-        //Encode optional extension bit 1 also !
-        throw new NotHandledCaseException("In " + this.name + ", need length to encode additional extension choice " + choiceValue);
+        perTranscoder.encodeConstrainedWholeNumber(s, index, 0, fieldList.size() - 1L);
+        abstractTranslator.encode(choiceValue, s, reader, translatorContext);
     }
 
     @Override
-    public void doDecode(BitInputStream s, FormatWriter writer) throws Exception {
+    public void doDecode(BitInputStream s, FormatWriter writer, TranslatorContext translatorContext) throws Exception {
         logger.trace("Enter {} translator, name {}", this.getClass().getSimpleName(), this.name);
         boolean choiceWithinAdditionalValues = false;
         if (optionalExtensionMarker) {
             choiceWithinAdditionalValues = (1 == s.readBit());
         }
 
-        BigInteger index;
+        int index;
         if (!choiceWithinAdditionalValues) {
             if (fieldList.size() < 64) {
-                index = perTranscoder.decodeConstrainedNumber(BigInteger.ZERO, BigInteger.valueOf(fieldList.size() - 1L), s);
+                index = (int) perTranscoder.decodeConstrainedNumber(0, fieldList.size() - 1L, s);
             } else {
-                index = perTranscoder.decodeNormallySmallNumber(s);
+                index = (int) perTranscoder.decodeNormallySmallNumberAsLong(s);
             }
-            fieldList.get(index.intValue()).getValue1().decode(fieldList.get(index.intValue()).getValue0(), s, writer, null);
+            fieldList.get(index).getValue1().decode(fieldList.get(index).getValue0(), s, writer, translatorContext);
         } else {
-            index = perTranscoder.decodeNormallySmallNumber(s);
-            byte[] choiceData = new byte[perTranscoder.decodeLengthDeterminant(s)];
-            if (-1 == s.read(choiceData)) {
-                throw new RuntimeException();
-            }
-
-            extensionFieldList.get(index.intValue() - fieldList.size() - 1).getValue1().decode(extensionFieldList.get(index.intValue() - fieldList.size() - 1).getValue0(), new BitInputStream(new ByteArrayInputStream(choiceData)), writer, null);
+            index = (int) perTranscoder.decodeNormallySmallNumberAsLong(s);
+            BitInputStream choiceData = perTranscoder.decodeContentOctets(s, perTranscoder.decodeLengthDeterminant(s));
+            extensionFieldList.get(index - fieldList.size() - 1).getValue1().decode(extensionFieldList.get(index - fieldList.size() - 1).getValue0(), choiceData, writer, translatorContext);
         }
     }
 }
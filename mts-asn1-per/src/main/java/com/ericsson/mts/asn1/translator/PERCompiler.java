@@ -0,0 +1,612 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1.translator;
+
+import com.ericsson.mts.asn1.BitArray;
+import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.NameIndex;
+import com.ericsson.mts.asn1.PERPlan;
+import com.ericsson.mts.asn1.PERTranscoder;
+import com.ericsson.mts.asn1.TranslatorContext;
+import com.ericsson.mts.asn1.exception.EncodingException;
+import com.ericsson.mts.asn1.exception.InvalidParameterException;
+import com.ericsson.mts.asn1.exception.NotHandledCaseException;
+import com.ericsson.mts.asn1.exception.UnknownIdentifierException;
+import com.ericsson.mts.asn1.factory.FormatReader;
+import com.ericsson.mts.asn1.factory.FormatWriter;
+import org.javatuples.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compile the translators of a type into a tree of PER nodes specialized for one binding : plans and bounds are
+ * resolved once, field layouts and alternatives are arrays, references are removed and the components are called
+ * without parameters. Translators without a specialized node are kept and called with their binding, so the
+ * encoding is the same as the interpreted one.
+ */
+public final class PERCompiler {
+    private static final List<String> NO_PARAMETERS = Collections.emptyList();
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
+    private final PERTranscoder perTranscoder;
+    //A node is registered before its components are compiled, so that recursive types are compiled once
+    private final Map<ParameterBinding, AbstractTranslator> nodes = new IdentityHashMap<>();
+    //Contents of open types, compiled the first time they are encoded or decoded
+    private final ConcurrentHashMap<AbstractTranslator, AbstractTranslator> openTypes = new ConcurrentHashMap<>();
+
+    public PERCompiler(PERTranscoder perTranscoder) {
+        this.perTranscoder = perTranscoder;
+    }
+
+    /**
+     * @param translator translator of a type, from a compiled registry
+     * @return translator with the same encoding
+     */
+    public AbstractTranslator compile(AbstractTranslator translator) {
+        return compile(translator, null);
+    }
+
+    private synchronized AbstractTranslator compile(AbstractTranslator translator, ParameterBinding binding) {
+        ParameterBinding resolvedBinding = binding == null ? translator.getBinding(NO_PARAMETERS) : binding;
+        AbstractTranslator node = nodes.get(resolvedBinding);
+        if (node == null) {
+            node = createNode(translator, resolvedBinding);
+            nodes.put(resolvedBinding, node);
+        }
+        return node;
+    }
+
+    private AbstractTranslator openType(AbstractTranslator typeTranslator) {
+        AbstractTranslator node = openTypes.get(typeTranslator);
+        if (node == null) {
+            node = compile(typeTranslator);
+            openTypes.putIfAbsent(typeTranslator, node);
+        }
+        return node;
+    }
+
+    private AbstractTranslator createNode(AbstractTranslator translator, ParameterBinding binding) {
+        if (translator instanceof ReferenceTranslator) {
+            ReferenceTranslator referenceTranslator = (ReferenceTranslator) translator;
+            return compile(referenceTranslator.getReferencedTranslator(), referenceTranslator.getReferencedBinding(binding));
+        } else if (translator instanceof PERSequenceTranslator) {
+            PERSequenceTranslator sequenceTranslator = (PERSequenceTranslator) translator;
+            if (sequenceTranslator.rootSequenceOptionalCount <= 65536) {
+                SequenceNode node = new SequenceNode(sequenceTranslator);
+                nodes.put(binding, node);
+                node.types = new AbstractTranslator[node.names.length];
+                List<AbstractSequenceTranslator.Field> fields = new ArrayList<>(sequenceTranslator.fieldList);
+                fields.addAll(sequenceTranslator.additionnalFieldList);
+                for (int i = 0; i < fields.size(); i++) {
+                    node.types[i] = compile(fields.get(i).getType(), sequenceTranslator.getFieldBinding(binding, fields.get(i)));
+                }
+                return node;
+            }
+        } else if (translator instanceof PERChoiceTranslator) {
+            PERChoiceTranslator choiceTranslator = (PERChoiceTranslator) translator;
+            if (!choiceTranslator.fieldList.isEmpty()) {
+                ChoiceNode node = new ChoiceNode(choiceTranslator);
+                nodes.put(binding, node);
+                node.rootTypes = compileAlternatives(choiceTranslator.fieldList);
+                node.extensionTypes = compileAlternatives(choiceTranslator.extensionFieldList);
+                return node;
+            }
+        } else if (translator instanceof PEREnumeratedTranslator) {
+            PEREnumeratedTranslator enumeratedTranslator = (PEREnumeratedTranslator) translator;
+            if (!enumeratedTranslator.fieldList.isEmpty()) {
+                return new EnumeratedNode(enumeratedTranslator);
+            }
+        } else if (translator instanceof PERIntegerTranslator) {
+            PERIntegerTranslator integerTranslator = (PERIntegerTranslator) translator;
+            PERPlan plan = integerTranslator.plan();
+            if (plan.getClause() == PERPlan.Clause.FIXED || plan.getClause() == PERPlan.Clause.INDEFINITE_LENGTH) {
+                return new IntegerNode(integerTranslator, plan);
+            }
+        } else if (translator instanceof PERSequenceOfTranslator) {
+            PERSequenceOfTranslator sequenceOfTranslator = (PERSequenceOfTranslator) translator;
+            PERPlan plan = sequenceOfTranslator.resolvePlan(binding);
+            PERPlan.Clause clause = plan.getClause();
+            if (clause == PERPlan.Clause.FIXED || clause == PERPlan.Clause.SEMI_CONSTRAINED_LENGTH
+                    || (clause == PERPlan.Clause.CONSTRAINED_LENGTH && plan.getLb() <= plan.getUb())) {
+                SequenceOfNode node = new SequenceOfNode(sequenceOfTranslator, plan);
+                nodes.put(binding, node);
+                node.componentType = compile(sequenceOfTranslator.typeTranslator, sequenceOfTranslator.getComponentBinding(binding));
+                return node;
+            }
+        } else if (translator instanceof PERObjectClassFieldTranslator) {
+            AbstractTranslator node = createObjectClassFieldNode((PERObjectClassFieldTranslator) translator, binding);
+            if (node != null) {
+                return node;
+            }
+        }
+        logger.debug("{} is not compiled", translator.getName());
+        return translator.isParameterized() ? new InterpretedNode(translator, binding) : translator;
+    }
+
+    private AbstractTranslator[] compileAlternatives(List<Pair<String, AbstractTranslator>> alternatives) {
+        AbstractTranslator[] types = new AbstractTranslator[alternatives.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = compile(alternatives.get(i).getValue1());
+        }
+        return types;
+    }
+
+    private AbstractTranslator createObjectClassFieldNode(PERObjectClassFieldTranslator translator, ParameterBinding binding) {
+        if (translator.constraints.hasSingleValueConstraints()) {
+            return null;
+        }
+        AbstractTranslator typeTranslator;
+        try {
+            typeTranslator = translator.classHandler.getTypeTranslator(translator.fieldName);
+        } catch (RuntimeException e) {
+            //Thrown again by the interpreted translator when it is used
+            return null;
+        }
+        if (typeTranslator != null) {
+            return compile(typeTranslator);
+        } else if (translator.constraints.getTargetComponent() != null) {
+            return new OpenTypeNode(translator, binding);
+        }
+        return null;
+    }
+
+    /**
+     * Translator without a specialized node, called with its binding.
+     */
+    private static final class InterpretedNode extends AbstractTranslator {
+        private final AbstractTranslator translator;
+        private final ParameterBinding binding;
+
+        InterpretedNode(AbstractTranslator translator, ParameterBinding binding) {
+            this.translator = translator;
+            this.binding = binding;
+            setName(translator.getName());
+        }
+
+        @Override
+        public void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            translator.encode(name, s, reader, translatorContext, binding);
+        }
+
+        @Override
+        public void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            translator.decode(name, s, writer, translatorContext, binding);
+        }
+    }
+
+    private final class SequenceNode extends AbstractTranslator {
+        private final boolean extensible;
+        private final int optionalCount;
+        private final int[] optionalFields;
+        private final int keySlotCount;
+        private final NameIndex fieldNames;
+        private final int rootCount;
+        //Root fields then extension additions
+        private final String[] names;
+        private final boolean[] optional;
+        private final int[] keySlots;
+        private AbstractTranslator[] types;
+
+        SequenceNode(PERSequenceTranslator translator) {
+            setName(translator.getName());
+            extensible = translator.hasEllipsis || translator.optionalExtensionMarker || (translator.extensionAndException != -1);
+            optionalCount = translator.rootSequenceOptionalCount;
+            keySlotCount = translator.keySlotCount();
+            fieldNames = translator.fieldNames;
+            rootCount = translator.fieldList.size();
+            List<AbstractSequenceTranslator.Field> fields = new ArrayList<>(translator.fieldList);
+            fields.addAll(translator.additionnalFieldList);
+            names = new String[fields.size()];
+            optional = new boolean[fields.size()];
+            keySlots = new int[fields.size()];
+            optionalFields = new int[optionalCount];
+            int optionalIndex = 0;
+            for (int i = 0; i < names.length; i++) {
+                AbstractSequenceTranslator.Field field = fields.get(i);
+                names[i] = field.getName();
+                optional[i] = field.getOptionnal();
+                keySlots[i] = field.getKeySlot();
+                if (i < rootCount && optional[i]) {
+                    optionalFields[optionalIndex++] = i;
+                }
+            }
+        }
+
+        @Override
+        public void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            reader.enterObject(name);
+            TranslatorContext context = translatorContext == null ? new TranslatorContext() : translatorContext;
+            int previousFrame = context.enter(keySlotCount);
+            try {
+                BitSet presentFields = reader.fieldsPresence(fieldNames);
+                if (extensible) {
+                    if (presentFields.nextSetBit(rootCount) != -1) {
+                        throw new NotHandledCaseException();
+                    }
+                    s.writeBit(0);
+                }
+                long preamble = 0;
+                int preambleLength = 0;
+                for (int field : optionalFields) {
+                    preamble = (preamble << 1) | (presentFields.get(field) ? 1 : 0);
+                    preambleLength++;
+                    if (preambleLength == 64) {
+                        s.writeBits(preamble, 64);
+                        preamble = 0;
+                        preambleLength = 0;
+                    }
+                }
+                s.writeBits(preamble, preambleLength);
+                for (int i = 0; i < rootCount; i++) {
+                    if (presentFields.get(i)) {
+                        context.setTarget(keySlots[i]);
+                        types[i].encode(names[i], s, reader, context, NO_PARAMETERS);
+                    } else if (!optional[i]) {
+                        throw new InvalidParameterException("Sequence " + this.name + " need field " + names[i]);
+                    }
+                }
+            } finally {
+                context.leave(previousFrame);
+            }
+            reader.leaveObject(name);
+        }
+
+        @Override
+        public void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            writer.enterObject(name);
+            TranslatorContext context = translatorContext == null ? new TranslatorContext() : translatorContext;
+            int previousFrame = context.enter(keySlotCount);
+            try {
+                boolean isExtendedSequence = extensible && 1 == s.readBit();
+                long preamble = 0;
+                boolean[] largePreamble = null;
+                if (optionalCount <= 64) {
+                    preamble = s.readBits(optionalCount);
+                } else {
+                    largePreamble = new boolean[optionalCount];
+                    for (int i = 0; i < largePreamble.length; i++) {
+                        largePreamble[i] = (1 == s.readBit());
+                    }
+                }
+                int optionalBitmapIndex = 0;
+                for (int i = 0; i < rootCount; i++) {
+                    boolean present = true;
+                    if (optional[i]) {
+                        if (largePreamble == null) {
+                            present = ((preamble >>> (optionalCount - 1 - optionalBitmapIndex)) & 1) != 0;
+                        } else {
+                            present = largePreamble[optionalBitmapIndex];
+                        }
+                        optionalBitmapIndex++;
+                    }
+                    if (present) {
+                        context.setTarget(keySlots[i]);
+                        types[i].decode(names[i], s, writer, context, NO_PARAMETERS);
+                    }
+                }
+                if (isExtendedSequence) {
+                    decodeExtensionAdditions(s, writer, context);
+                }
+            } finally {
+                context.leave(previousFrame);
+                writer.leaveObject(name);
+            }
+        }
+
+        private void decodeExtensionAdditions(BitInputStream s, FormatWriter writer, TranslatorContext context) throws Exception {
+            boolean[] additionalBitmap = new boolean[perTranscoder.decodeNormallySmallNumber(s).intValueExact() + 1];
+            for (int i = 0; i < additionalBitmap.length; i++) {
+                additionalBitmap[i] = (1 == s.readBit());
+            }
+            if (perTranscoder.isAligned()) {
+                perTranscoder.skipAlignedBits(s);
+            }
+            for (int i = 0; i < additionalBitmap.length; i++) {
+                if (additionalBitmap[i]) {
+                    BitInputStream data = perTranscoder.decodeContentOctets(s, perTranscoder.decodeLengthDeterminant(s));
+                    int field = rootCount + i;
+                    if (field < names.length) {
+                        context.setTarget(keySlots[field]);
+                        types[field].decode(names[field], data, writer, context, NO_PARAMETERS);
+                    } else {
+                        logger.error("skipped additional field of " + data.available() + " bytes");
+                    }
+                }
+            }
+        }
+    }
+
+    private final class ChoiceNode extends AbstractTranslator {
+        private final boolean extensible;
+        private final NameIndex alternativeNames;
+        private final String[] rootNames;
+        private final String[] extensionNames;
+        private final PERPlan indexPlan;
+        private AbstractTranslator[] rootTypes;
+        private AbstractTranslator[] extensionTypes;
+
+        ChoiceNode(PERChoiceTranslator translator) {
+            setName(translator.getName());
+            extensible = translator.optionalExtensionMarker;
+            alternativeNames = translator.alternativeNames;
+            rootNames = names(translator.fieldList);
+            extensionNames = names(translator.extensionFieldList);
+            indexPlan = PERPlan.constrainedWholeNumber(0, rootNames.length - 1L, false, perTranscoder.isAligned());
+        }
+
+        private String[] names(List<Pair<String, AbstractTranslator>> alternatives) {
+            String[] alternativeNames = new String[alternatives.size()];
+            for (int i = 0; i < alternativeNames.length; i++) {
+                alternativeNames[i] = alternatives.get(i).getValue0();
+            }
+            return alternativeNames;
+        }
+
+        @Override
+        public void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            reader.enterObject(name);
+            String choiceValue = reader.firstFieldValue();
+            if (rootNames.length == 1) {
+                //No index and no extension bit
+                if (!rootNames[0].equals(choiceValue)) {
+                    throw new UnknownIdentifierException(choiceValue + " isn't part of translator " + this.name);
+                }
+                rootTypes[0].encode(choiceValue, s, reader, translatorContext, NO_PARAMETERS);
+            } else {
+                int index = alternativeNames.indexOf(choiceValue);
+                if (index == -1) {
+                    throw new UnknownIdentifierException(choiceValue + " isn't part of translator " + this.name);
+                } else if (index >= rootNames.length) {
+                    throw new NotHandledCaseException("In " + this.name + ", need length to encode additional extension choice " + choiceValue);
+                }
+                if (extensible) {
+                    s.writeBit(0);
+                }
+                perTranscoder.encodeConstrainedWholeNumber(s, indexPlan, index);
+                rootTypes[index].encode(choiceValue, s, reader, translatorContext, NO_PARAMETERS);
+            }
+            reader.leaveObject(name);
+        }
+
+        @Override
+        public void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            writer.enterObject(name);
+            try {
+                if (!extensible || 0 == s.readBit()) {
+                    int index;
+                    if (rootNames.length < 64) {
+                        index = (int) perTranscoder.decodeConstrainedNumber(indexPlan, s);
+                    } else {
+                        index = (int) perTranscoder.decodeNormallySmallNumberAsLong(s);
+                    }
+                    rootTypes[index].decode(rootNames[index], s, writer, translatorContext, NO_PARAMETERS);
+                } else {
+                    int index = (int) perTranscoder.decodeNormallySmallNumberAsLong(s) - rootNames.length - 1;
+                    BitInputStream choiceData = perTranscoder.decodeContentOctets(s, perTranscoder.decodeLengthDeterminant(s));
+                    extensionTypes[index].decode(extensionNames[index], choiceData, writer, translatorContext, NO_PARAMETERS);
+                }
+            } finally {
+                writer.leaveObject(name);
+            }
+        }
+    }
+
+    private final class EnumeratedNode extends AbstractTranslator {
+        private final boolean extensible;
+        private final NameIndex rootNames;
+        private final NameIndex additionalNames;
+        private final String[] rootValues;
+        private final String[] additionalValues;
+        private final PERPlan indexPlan;
+
+        EnumeratedNode(PEREnumeratedTranslator translator) {
+            setName(translator.getName());
+            extensible = translator.hasExtensionMarker;
+            rootNames = translator.rootNames;
+            additionalNames = translator.additionalNames;
+            rootValues = translator.fieldList.toArray(new String[0]);
+            additionalValues = translator.additionalFieldsList.toArray(new String[0]);
+            indexPlan = PERPlan.constrainedWholeNumber(0, rootValues.length - 1L, false, perTranscoder.isAligned());
+        }
+
+        @Override
+        public void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            String value = reader.stringValue(name);
+            int additionalIndex = additionalNames.indexOf(value);
+            if (extensible && additionalIndex != -1) {
+                s.writeBit(1);
+                perTranscoder.encodeNormallySmallWholeNumber(s, additionalIndex);
+            } else {
+                if (extensible) {
+                    s.writeBit(0);
+                }
+                int index = rootNames.indexOf(value);
+                if (index == -1) {
+                    throw new EncodingException(value + " isn't part of enumeration " + this.name);
+                }
+                perTranscoder.encodeConstrainedWholeNumber(s, indexPlan, index);
+            }
+        }
+
+        @Override
+        public void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            if (!extensible || 0 == s.readBit()) {
+                writer.stringValue(name, rootValues[(int) perTranscoder.decodeConstrainedNumber(indexPlan, s)]);
+            } else {
+                long choice = perTranscoder.decodeNormallySmallNumberAsLong(s);
+                writer.stringValue(name, additionalValues.length > choice ? additionalValues[(int) choice] : "UNKNOWN_EXTENDED(" + choice + ")");
+            }
+        }
+    }
+
+    private final class IntegerNode extends AbstractTranslator {
+        private final PERPlan plan;
+        private final Map<BigInteger, String> namedNumbers;
+        //Values of small ranges and their names, decoded without allocation
+        private final BigInteger[] values;
+        private final String[] valueNames;
+
+        IntegerNode(PERIntegerTranslator translator, PERPlan plan) {
+            setName(translator.getName());
+            this.plan = plan;
+            namedNumbers = translator.namedNumbers;
+            if (plan.getUb() - plan.getLb() < 256) {
+                values = new BigInteger[(int) (plan.getUb() - plan.getLb() + 1)];
+                valueNames = new String[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = BigInteger.valueOf(plan.getLb() + i);
+                    valueNames[i] = namedNumbers.get(values[i]);
+                }
+            } else {
+                values = null;
+                valueNames = null;
+            }
+        }
+
+        @Override
+        public void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            BigInteger value = reader.intValue(name);
+            if (null != translatorContext) {
+                translatorContext.putKey(value);
+            }
+            boolean inRange = value.bitLength() < 64 && value.longValue() >= plan.getLb() && value.longValue() <= plan.getUb();
+            if (plan.isExtensible()) {
+                if (!inRange) {
+                    //WARNING : Look at 13.2.6 b) before removing this exception !
+                    throw new NotHandledCaseException();
+                }
+                s.writeBit(0);
+            }
+            if (!inRange) {
+                throw new EncodingException("Value " + value + " out of range " + plan.getLb() + ".." + plan.getUb() + " of " + this.name);
+            }
+            perTranscoder.encodeConstrainedWholeNumber(s, plan, value.longValue());
+        }
+
+        @Override
+        public void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            if (plan.isExtensible() && 1 == s.readBit()) {
+                throw new NotHandledCaseException();
+            }
+            long value = perTranscoder.decodeConstrainedNumber(plan, s);
+            long offset = value - plan.getLb();
+            BigInteger bigInteger;
+            String namedNumber;
+            if (values != null && offset < values.length) {
+                bigInteger = values[(int) offset];
+                namedNumber = valueNames[(int) offset];
+            } else {
+                bigInteger = BigInteger.valueOf(value);
+                namedNumber = namedNumbers.get(bigInteger);
+            }
+            if (null != translatorContext) {
+                translatorContext.putKey(bigInteger);
+            }
+            writer.intValue(name, bigInteger, namedNumber);
+        }
+    }
+
+    private final class SequenceOfNode extends AbstractTranslator {
+        private final PERPlan.Clause clause;
+        private final int fixedSize;
+        private final PERPlan lengthPlan;
+        private AbstractTranslator componentType;
+
+        SequenceOfNode(PERSequenceOfTranslator translator, PERPlan plan) {
+            setName(translator.getName());
+            clause = plan.getClause();
+            fixedSize = (int) plan.getUb();
+            lengthPlan = clause == PERPlan.Clause.CONSTRAINED_LENGTH ? PERPlan.constrainedWholeNumber(plan.getLb(), plan.getUb(), false, perTranscoder.isAligned()) : null;
+        }
+
+        @Override
+        public void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            int numberOfComponents = reader.enterArray(name);
+            switch (clause) {
+                case FIXED:
+                    // X.691 : clause 20.5
+                    numberOfComponents = fixedSize;
+                    break;
+                case CONSTRAINED_LENGTH:
+                    // X.691 : clause 20.6
+                    perTranscoder.encodeConstrainedWholeNumber(s, lengthPlan, numberOfComponents);
+                    break;
+                default:
+                    // X.691 : clause 20.6
+                    perTranscoder.encodeLengthDeterminant(s, numberOfComponents);
+            }
+            for (int i = 0; i < numberOfComponents; i++) {
+                componentType.encode(null, s, reader, translatorContext, NO_PARAMETERS);
+            }
+            reader.leaveArray(name);
+        }
+
+        @Override
+        public void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            writer.enterArray(name);
+            try {
+                int numberOfComponents;
+                switch (clause) {
+                    case FIXED:
+                        numberOfComponents = fixedSize;
+                        break;
+                    case CONSTRAINED_LENGTH:
+                        numberOfComponents = (int) perTranscoder.decodeConstrainedNumber(lengthPlan, s);
+                        break;
+                    default:
+                        numberOfComponents = perTranscoder.decodeLengthDeterminant(s);
+                }
+                for (int i = 0; i < numberOfComponents; i++) {
+                    componentType.decode(null, s, writer, translatorContext, NO_PARAMETERS);
+                }
+            } finally {
+                writer.leaveArray(name);
+            }
+        }
+    }
+
+    /**
+     * Open type : the content type is found in the object set for each value, and compiled the first time.
+     */
+    private final class OpenTypeNode extends AbstractTranslator {
+        private final PERObjectClassFieldTranslator translator;
+        private final ParameterBinding binding;
+
+        OpenTypeNode(PERObjectClassFieldTranslator translator, ParameterBinding binding) {
+            setName(translator.getName());
+            this.translator = translator;
+            this.binding = binding;
+        }
+
+        @Override
+        public void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            AbstractTranslator typeTranslator = translator.getOpenTypeTranslator(translatorContext, binding);
+            if (typeTranslator == null) {
+                throw new RuntimeException("Unknown field " + translator.fieldName + " in object with " + translator);
+            }
+            translator.encodeOpenType(name, s, reader, translatorContext, typeTranslator.getName(), openType(typeTranslator));
+        }
+
+        @Override
+        public void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            AbstractTranslator typeTranslator = translator.getOpenTypeTranslator(translatorContext, binding);
+            translator.decodeOpenType(name, s, writer, translatorContext, typeTranslator.getName(), openType(typeTranslator));
+        }
+    }
+}
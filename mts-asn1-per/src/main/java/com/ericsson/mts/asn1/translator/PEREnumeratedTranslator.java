@@ -12,12 +12,12 @@ package com.ericsson.mts.asn1.translator;
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
 import com.ericsson.mts.asn1.PERTranscoder;
+import com.ericsson.mts.asn1.exception.EncodingException;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.factory.FormatReader;
 import com.ericsson.mts.asn1.factory.FormatWriter;
 
 import java.io.IOException;
-import java.math.BigInteger;
 
 public class PEREnumeratedTranslator extends AbstractEnumeratedTranslator {
 
@@ -30,15 +30,19 @@ public class PEREnumeratedTranslator extends AbstractEnumeratedTranslator {
     @Override
     public void doEncode(BitArray s, FormatReader reader, String value) throws IOException {
         logger.trace("Encode {}", this);
-        int additionalIndex = additionalFieldsList.indexOf(value);
+        int additionalIndex = additionalNames.indexOf(value);
         if (hasExtensionMarker && additionalIndex != -1) {
             s.writeBit(1);
-            perTranscoder.encodeNormallySmallWholeNumber(s, BigInteger.valueOf(additionalIndex));
+            perTranscoder.encodeNormallySmallWholeNumber(s, additionalIndex);
         } else {
             if (hasExtensionMarker) {
                 s.writeBit(0);
             }
-            perTranscoder.encodeConstrainedWholeNumber(s, BigInteger.valueOf(fieldList.indexOf(value)), BigInteger.ZERO, BigInteger.valueOf(fieldList.size() - 1L));
+            int index = rootNames.indexOf(value);
+            if (index == -1) {
+                throw new EncodingException(value + " isn't part of enumeration " + this.name);
+            }
+            perTranscoder.encodeConstrainedWholeNumber(s, index, 0, fieldList.size() - 1L);
         }
     }
 
@@ -49,11 +53,11 @@ public class PEREnumeratedTranslator extends AbstractEnumeratedTranslator {
         boolean isExtendedValue = hasExtensionMarker && (1 == s.readBit());
         logger.trace("{} is extended : {}", this.name, isExtendedValue);
         if (!isExtendedValue) {
-            return fieldList.get(perTranscoder.decodeConstrainedNumber(BigInteger.ZERO, BigInteger.valueOf(fieldList.size() - 1L), s).intValueExact());
+            return fieldList.get((int) perTranscoder.decodeConstrainedNumber(0, fieldList.size() - 1L, s));
         } else {
-            int choice = perTranscoder.decodeNormallySmallNumber(s).intValueExact();
+            long choice = perTranscoder.decodeNormallySmallNumberAsLong(s);
             if (additionalFieldsList.size() > choice) {
-                return additionalFieldsList.get(choice);
+                return additionalFieldsList.get((int) choice);
             } else {
                 return "UNKNOWN_EXTENDED(" + choice + ")";
             }
@@ -12,95 +12,128 @@ package com.ericsson.mts.asn1.translator;
 
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.PERPlan;
 import com.ericsson.mts.asn1.PERTranscoder;
+import com.ericsson.mts.asn1.exception.EncodingException;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 
 import java.io.IOException;
 import java.math.BigInteger;
 
-import static java.math.BigInteger.ONE;
-
 public class PERIntegerTranslator extends AbstractIntegerTranslator {
     private PERTranscoder perTranscoder;
+    private volatile PERPlan plan;
 
     public PERIntegerTranslator(PERTranscoder perTranscoder) {
         this.perTranscoder = perTranscoder;
     }
 
     @Override
-    public void doEncode(BitArray s, BigInteger value) throws IOException {
-        logger.trace("Enter {}", this);
-        BigInteger lb = null, ub = null;
-        if (constraints.hasSingleValueConstraints()) {
-            throw new NotHandledCaseException();
+    public void compile() {
+        plan();
+    }
+
+    PERPlan plan() {
+        PERPlan perPlan = plan;
+        if (perPlan == null) {
+            perPlan = buildPlan();
+            plan = perPlan;
         }
+        return perPlan;
+    }
 
+    private PERPlan buildPlan() {
+        if (constraints == null) {
+            //13.2.4
+            return PERPlan.notHandled("Unconstrained integer " + name);
+        }
+        if (constraints.hasSingleValueConstraints()) {
+            return PERPlan.notHandled("Single value constraint on " + name);
+        }
+        BigInteger lb = null, ub = null;
         if (constraints.hasValueRangeConstraint()) {
             lb = constraints.getLowerRange();
             ub = constraints.getUpperRange();
         }
+        if (lb == null) {
+            //13.2.4
+            return PERPlan.notHandled("Unconstrained integer " + name);
+        } else if (ub == null) {
+            //13.2.3
+            return PERPlan.notHandled("Semi-constrained integer " + name);
+        } else if (PERTranscoder.isLongRange(lb, ub)) {
+            //13.2.1 (lb == ub gives an empty bit-field) and 13.2.2
+            return PERPlan.constrainedWholeNumber(lb.longValue(), ub.longValue(), constraints.isExtensible(), perTranscoder.isAligned());
+        } else {
+            return PERPlan.bigRange(lb, ub, constraints.isExtensible());
+        }
+    }
+
+    @Override
+    public void doEncode(BitArray s, BigInteger value) throws IOException {
+        logger.trace("Enter {}", this);
+        PERPlan perPlan = plan();
+        perPlan.checkHandled();
+
+        if (perPlan.getClause() == PERPlan.Clause.BIG_RANGE) {
+            encodeBigRange(s, value, perPlan.getBigLb(), perPlan.getBigUb(), perPlan.isExtensible());
+            return;
+        }
 
-        if (constraints.isExtensible()) {
-            if ((lb != null && value.compareTo(lb) < 0) || (ub != null && value.compareTo(ub) > 0)) {
+        boolean inRange = value.bitLength() < 64 && value.longValue() >= perPlan.getLb() && value.longValue() <= perPlan.getUb();
+        if (perPlan.isExtensible()) {
+            if (!inRange) {
                 //WARNING : Look at 13.2.6 b) before removing this exception !
                 throw new NotHandledCaseException();
             } else {
                 s.writeBit(0);
             }
         }
+        if (!inRange) {
+            throw new EncodingException("Value " + value + " out of range " + perPlan.getLb() + ".." + perPlan.getUb() + " of " + name);
+        }
+        //13.2.5 and 13.2.6
+        perTranscoder.encodeConstrainedWholeNumber(s, perPlan, value.longValue());
+    }
 
-        if (!constraints.hasValueRangeConstraint() || lb == null) {
-            //13.2.4
-            throw new NotHandledCaseException();
-        } else if (ub == null) {
-            //13.2.3
-            throw new NotHandledCaseException();
-        } else if (lb.equals(ub)) {
-            //13.2.1
-            throw new NotHandledCaseException();
-        } else {
-            //13.2.2
-            if (ub.subtract(lb).add(ONE).compareTo(BigInteger.valueOf(65536)) <= 0) {
-                //13.2.5
-                //constrained whole number
-                perTranscoder.encodeConstrainedWholeNumber(s, value, lb, ub);
+    private void encodeBigRange(BitArray s, BigInteger value, BigInteger lb, BigInteger ub, boolean extensible) throws IOException {
+        if (extensible) {
+            if (value.compareTo(lb) < 0 || value.compareTo(ub) > 0) {
+                //WARNING : Look at 13.2.6 b) before removing this exception !
+                throw new NotHandledCaseException();
             } else {
-                //13.2.6
-                //indefinite length case
-                perTranscoder.encodeConstrainedLengthDeterminant(s,
-                        BigInteger.valueOf(perTranscoder.toByteCount(value.bitLength()))
-                        , BigInteger.ONE,
-                        BigInteger.valueOf(perTranscoder.toByteCount(ub.subtract(lb).bitLength())));
-                perTranscoder.skipAlignedBits(s);
-                perTranscoder.encodeConstrainedWholeNumber(s, value.subtract(lb), lb, ub);
+                s.writeBit(0);
             }
         }
+        if (ub.subtract(lb).add(BigInteger.ONE).compareTo(BigInteger.valueOf(65536)) <= 0) {
+            //13.2.5
+            //constrained whole number
+            perTranscoder.encodeConstrainedWholeNumber(s, value, lb, ub);
+        } else {
+            //13.2.6
+            //indefinite length case, the length is the octet count of the offset from lb
+            perTranscoder.encodeConstrainedLengthDeterminant(s,
+                    BigInteger.valueOf(perTranscoder.toByteCount(value.subtract(lb).bitLength()))
+                    , BigInteger.ONE,
+                    BigInteger.valueOf(perTranscoder.toByteCount(ub.subtract(lb).bitLength())));
+            perTranscoder.skipAlignedBits(s);
+            perTranscoder.encodeConstrainedWholeNumber(s, value, lb, ub);
+        }
     }
 
     @Override
     public BigInteger doDecode(BitInputStream s) throws NotHandledCaseException, IOException {
         logger.trace("Enter {}", this);
-        boolean isExtendedInteger = false;
-        BigInteger number;
+        PERPlan perPlan = plan();
+        perPlan.checkHandled();
 
-        if (constraints.hasSingleValueConstraints()) {
+        if (perPlan.isExtensible() && 1 == s.readBit()) {
             throw new NotHandledCaseException();
         }
-
-        if (constraints.isExtensible()) {
-            isExtendedInteger = (1 == s.readBit());
-        }
-
-        if (isExtendedInteger) {
-            throw new NotHandledCaseException();
-        } else {
-            if (constraints.getLowerRange() != null && constraints.getUpperRange() != null) {
-                logger.trace("Decode ConstrainedNumber");
-                number = perTranscoder.decodeConstrainedNumber(constraints.getLowerRange(), constraints.getUpperRange(), s);
-            } else {
-                throw new RuntimeException();
-            }
-            return number;
+        logger.trace("Decode ConstrainedNumber");
+        if (perPlan.getClause() == PERPlan.Clause.BIG_RANGE) {
+            return perTranscoder.decodeConstrainedNumber(perPlan.getBigLb(), perPlan.getBigUb(), s);
         }
+        return BigInteger.valueOf(perTranscoder.decodeConstrainedNumber(perPlan, s));
     }
 }
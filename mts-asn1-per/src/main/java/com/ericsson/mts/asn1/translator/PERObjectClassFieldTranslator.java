@@ -16,15 +16,9 @@ import com.ericsson.mts.asn1.TranslatorContext;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.factory.FormatReader;
 import com.ericsson.mts.asn1.factory.FormatWriter;
-import java.io.ByteArrayInputStream;
-
-import java.math.BigInteger;
-import java.util.Map;
 
 public class PERObjectClassFieldTranslator extends AbstractObjectClassFieldTranslator {
 
-    //Use for debug
-    private static int openTypeTag = 0;
     private PERTranscoder perTranscoder;
 
     public PERObjectClassFieldTranslator(PERTranscoder perTranscoder) {
@@ -32,7 +26,7 @@ public class PERObjectClassFieldTranslator extends AbstractObjectClassFieldTrans
     }
 
     @Override
-    public void doEncode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, Map<String, String> registry) throws Exception {
+    public void doEncode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, ParameterBinding binding) throws Exception {
 
         if (constraints.hasSingleValueConstraints()) {
             throw new NotHandledCaseException();
@@ -46,35 +40,18 @@ public class PERObjectClassFieldTranslator extends AbstractObjectClassFieldTrans
             if (typeTranslator != null) {
                 typeTranslator.encode(name, s, reader, translatorContext);
             } else {
-                String uniqueKey = translatorContext.get(constraints.getTargetComponent());
-                if (uniqueKey == null) {
-                    throw new NullPointerException("Unique key not found in context for field " + fieldName + " target component " + constraints.getTargetComponent());
-                }
-
                 //OpenType
-                BitArray bitArray = new BitArray();
-                typeTranslator = classHandler.getTypeTranslator(fieldName, registry.get(constraints.getObjectSetName()), uniqueKey);
+                typeTranslator = getOpenTypeTranslator(translatorContext, binding);
                 if (typeTranslator == null) {
                     throw new RuntimeException("Unknown field " + fieldName + " in object with " + toString());
                 }
-                int tag = openTypeTag;
-                openTypeTag++;
-                logger.trace("Enter open type : tag={} , name={}", tag, this.name);
-
-                reader.enterObject(name);
-                typeTranslator.encode(typeTranslator.getName(), bitArray, reader, translatorContext);
-                logger.trace("Leave open type : tag={} , name={}", tag, name);
-                logger.trace("Open type for field {} : octet length={}", name, perTranscoder.toByteCount(bitArray.getLength().intValueExact()));
-                perTranscoder.encodeLengthDeterminant(s, BigInteger.valueOf(perTranscoder.toByteCount((bitArray.getLength()).intValueExact())));
-                perTranscoder.skipAlignedBits(bitArray);
-                s.concatBitArray(bitArray);
-                reader.leaveObject(name);
+                encodeOpenType(name, s, reader, translatorContext, typeTranslator.getName(), typeTranslator);
             }
         }
     }
 
     @Override
-    public void doDecode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, Map<String, String> registry) throws Exception {
+    public void doDecode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, ParameterBinding binding) throws Exception {
 
         if (constraints.hasSingleValueConstraints()) {
             throw new NotHandledCaseException();
@@ -88,38 +65,80 @@ public class PERObjectClassFieldTranslator extends AbstractObjectClassFieldTrans
             if (typeTranslator != null) {
                 typeTranslator.decode(name, s, writer, translatorContext);
             } else {
-                String uniqueKey = translatorContext.get(constraints.getTargetComponent());
-                if (uniqueKey == null) {
-                    throw new NullPointerException("Unique key not found in context for field " + fieldName + " target component " + constraints.getTargetComponent());
-                }
-
                 //OpenType
-                typeTranslator = classHandler.getTypeTranslator(fieldName, registry.get(constraints.getObjectSetName()), uniqueKey);
-                int len = perTranscoder.decodeLengthDeterminant(s);
-                if (len >= 16384) {
-                    throw new NotHandledCaseException("Open type fragmentation");
-                }
+                typeTranslator = getOpenTypeTranslator(translatorContext, binding);
+                decodeOpenType(name, s, writer, translatorContext, typeTranslator.getName(), typeTranslator);
+            }
+        }
+    }
 
-                
-                writer.enterObject(name);
-                byte[] data = s.readAlignedByteArray(len);
-                try {
-                    typeTranslator.decode(typeTranslator.getName(), new BitInputStream(new ByteArrayInputStream(data)), writer, translatorContext);
-                } catch (Exception e) {
-                    writer.enterObject("mts-asn1-error");
-                    writer.stringValue("message", e.getMessage());
-                    writer.stringValue("type", typeTranslator.getName());
-                    writer.bytesValue("data", data);
-                    writer.leaveObject("mts-asn1-error");
-                    if (!this.perTranscoder.isPermissive()) {
-                        throw e;
-                    } else {
-                        logger.warn("Error decoding opentype content", e);
-                    }
-                } finally {
-                    writer.leaveObject(name);
-                }
+    /**
+     * Encode an open type X.691 11.2 : the content as an octet string preceded by its length.
+     *
+     * @param contentName name of the content type
+     * @param typeTranslator translator of the content
+     */
+    void encodeOpenType(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, String contentName, AbstractTranslator typeTranslator) throws Exception {
+        reader.enterObject(name);
+        //Reserve a one octet length determinant, the content is encoded in place and the length patched after
+        perTranscoder.skipAlignedBits(s);
+        int lengthPosition = s.getLength();
+        logger.trace("Enter open type : position={} , name={}", lengthPosition, this.name);
+        s.writeBits(0, 8);
+        int contentPosition = s.getLength();
+        typeTranslator.encode(contentName, s, reader, translatorContext);
+        logger.trace("Leave open type : position={} , name={}", lengthPosition, name);
+
+        //X.691 11.2 : the content is a whole number of octets, and an empty encoding is replaced by one zero octet
+        int contentLength = s.getLength() - contentPosition;
+        if (contentLength == 0) {
+            s.writeBits(0, 8);
+        } else if ((contentLength & 0x7) != 0) {
+            s.writeBits(0, 8 - (contentLength & 0x7));
+        }
+        int octetLength = (s.getLength() - contentPosition) / 8;
+        logger.trace("Open type for field {} : octet length={}", name, octetLength);
+        if (octetLength < 128) {
+            s.setBits(lengthPosition, octetLength, 8);
+        } else if (octetLength < 16384) {
+            //The two octets form needs one more octet before the content
+            s.insertOctet(contentPosition);
+            s.setBits(lengthPosition, octetLength | 0x8000, 16);
+        } else {
+            throw new NotHandledCaseException("Open type fragmentation");
+        }
+        reader.leaveObject(name);
+    }
+
+    /**
+     * Decode an open type X.691 11.2, errors in the content are written in the output when permissive.
+     *
+     * @param contentName name of the content type
+     * @param typeTranslator translator of the content
+     */
+    void decodeOpenType(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, String contentName, AbstractTranslator typeTranslator) throws Exception {
+        int len = perTranscoder.decodeLengthDeterminant(s);
+        if (len >= 16384) {
+            throw new NotHandledCaseException("Open type fragmentation");
+        }
+
+        writer.enterObject(name);
+        BitInputStream data = perTranscoder.decodeContentOctets(s, len);
+        try {
+            typeTranslator.decode(contentName, data, writer, translatorContext);
+        } catch (Exception e) {
+            writer.enterObject("mts-asn1-error");
+            writer.stringValue("message", e.getMessage());
+            writer.stringValue("type", contentName);
+            writer.bytesValue("data", data.toByteArray());
+            writer.leaveObject("mts-asn1-error");
+            if (!this.perTranscoder.isPermissive()) {
+                throw e;
+            } else {
+                logger.warn("Error decoding opentype content", e);
             }
+        } finally {
+            writer.leaveObject(name);
         }
     }
 }
@@ -13,6 +13,7 @@ package com.ericsson.mts.asn1.translator;
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
 import com.ericsson.mts.asn1.CoderUtils;
+import com.ericsson.mts.asn1.PERPlan;
 import com.ericsson.mts.asn1.PERTranscoder;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.factory.FormatReader;
@@ -23,15 +24,29 @@ import java.math.BigInteger;
 
 public class PEROctetStringTranslator extends AbstractOctetStringTranslator {
     private PERTranscoder perTranscoder;
+    private volatile PERPlan plan;
 
     public PEROctetStringTranslator(PERTranscoder perTranscoder) {
         this.perTranscoder = perTranscoder;
     }
 
     @Override
-    public void doEncode(BitArray s, FormatReader reader, String value) throws IOException {
-        logger.trace("Enter {} encoder, name {}", this.getClass().getSimpleName(), this.name);
+    public void compile() {
+        plan();
+    }
+
+    PERPlan plan() {
+        PERPlan perPlan = plan;
+        if (perPlan == null) {
+            perPlan = buildPlan();
+            plan = perPlan;
+        }
+        return perPlan;
+    }
+
+    private PERPlan buildPlan() {
         BigInteger ub, lb;
+        boolean extensible = false;
 
         if (constraints.hasSingleValueConstraints()) {
             ub = lb = constraints.getSingleValueConstraint();
@@ -44,88 +59,97 @@ public class PEROctetStringTranslator extends AbstractOctetStringTranslator {
             if (ub == null) {
                 ub = lb;
             }
-            if (constraints.isExtensible()) {
-                if (BigInteger.valueOf(value.length()).compareTo(lb) < 0 || BigInteger.valueOf(value.length()).compareTo(ub) > 0) {
-                    //17.3
-                    throw new NotHandledCaseException();
-                } else {
-                    perTranscoder.writePreambleBit(s, 0);
-                }
+            extensible = constraints.isExtensible();
+        }
+
+        if (ub == null) {
+            //17.8 without upper bound
+            return PERPlan.of(PERPlan.Clause.SEMI_CONSTRAINED_LENGTH, lb.longValueExact(), 0, false, extensible, 0, false);
+        } else if (BigInteger.ZERO.equals(ub)) {
+            //17.5
+            return PERPlan.of(PERPlan.Clause.EMPTY, 0, 0, true, extensible, 0, false);
+        } else if (lb.equals(ub) && ub.compareTo(BigInteger.valueOf(65536)) < 0) {
+            //17.6 and 17.7
+            int length = lb.intValueExact();
+            return PERPlan.of(PERPlan.Clause.FIXED, length, length, true, extensible, length * 8, length > 2);
+        } else if (lb.equals(ub)) {
+            return PERPlan.notHandled("Fixed size octet string of 64K octets or more : " + name);
+        } else {
+            //17.8 with upper bound
+            return PERPlan.of(PERPlan.Clause.CONSTRAINED_LENGTH, lb.longValueExact(), ub.longValueExact(), true, extensible, 0, false);
+        }
+    }
+
+    @Override
+    public void doEncode(BitArray s, FormatReader reader, String value) throws IOException {
+        logger.trace("Enter {} encoder, name {}", this.getClass().getSimpleName(), this.name);
+        PERPlan perPlan = plan();
+        perPlan.checkHandled();
+
+        if (perPlan.isExtensible()) {
+            if (value.length() < perPlan.getLb() || value.length() > perPlan.getUb()) {
+                //17.3
+                throw new NotHandledCaseException();
+            } else {
+                perTranscoder.writePreambleBit(s, 0);
             }
         }
 
         value = value.trim();
 
-        //17.5
-        if (!BigInteger.ZERO.equals(ub)) {
-            if (lb.equals(ub) && lb.compareTo(BigInteger.valueOf(2)) <= 0) {
-                //17.6
+        switch (perPlan.getClause()) {
+            case EMPTY:
+                //17.5
+                break;
+            case FIXED:
+                //17.6 and 17.7
+                if (perPlan.isAlignValue()) {
+                    perTranscoder.skipAlignedBits(s);
+                }
                 perTranscoder.encodeBitField(s, value, value.length() * 4);
-            } else if (lb.equals(ub) && new BigInteger("65536").compareTo(ub) > 0) {
-                //17.7
+                break;
+            case SEMI_CONSTRAINED_LENGTH:
+                //17.8
+                perTranscoder.encodeLengthDeterminant(s, (int) (value.length() / 2L + value.length() % 2 - perPlan.getLb()));
                 perTranscoder.skipAlignedBits(s);
                 perTranscoder.encodeBitField(s, value, value.length() * 4);
-            } else {
-                //17.8
-                if (ub != null) {
-                    throw new NotHandledCaseException();
-                } else {
-                    perTranscoder.encodeLengthDeterminant(s, BigInteger.valueOf(value.length() / 2L + value.length() % 2).subtract(lb));
-                    s.skipAlignedBits();
-                    perTranscoder.encodeBitField(s, value, value.length() * 4);
-                }
-            }
+                break;
+            default:
+                throw new NotHandledCaseException();
         }
     }
 
     @Override
     public byte[] doDecode(BitInputStream s, FormatWriter writer) throws IOException {
         logger.trace("Enter {} : {} translator", this.name, this);
+        PERPlan perPlan = plan();
+        perPlan.checkHandled();
         byte[] octetstring;
-        boolean isExtendedOctetString = false;
-        BigInteger ub, lb;
-
-        if (constraints.hasSingleValueConstraints()) {
-            ub = lb = constraints.getSingleValueConstraint();
-        } else if (!constraints.hasSizeConstraint()) {
-            ub = null;
-            lb = BigInteger.ZERO;
-        } else {
-            lb = constraints.getLowerBound();
-            ub = constraints.getUpperBound();
-            if (ub == null) {
-                ub = lb;
-            }
-            if (constraints.isExtensible()) {
-                isExtendedOctetString = (1 == s.readBit());
-            }
-        }
 
-        if (isExtendedOctetString) {
+        if (perPlan.isExtensible() && 1 == s.readBit()) {
             //16.3
             throw new NotHandledCaseException();
         }
 
-        if (BigInteger.ZERO.equals(ub)) {
-            //16.5
-            return null;
-        } else if (lb.equals(ub) && BigInteger.valueOf(16).compareTo(lb) >= 0) {
-            //16.6
-            octetstring = perTranscoder.decodeOctetString(s, lb);
-        } else if (lb.equals(ub) && BigInteger.valueOf(65536).compareTo(ub) >= 0) {
-            //16.7
-            throw new NotHandledCaseException();
-        } else {
-            //16.8
-            BigInteger length;
-            if (ub != null) {
-                length = perTranscoder.decodeConstrainedNumber(lb, ub, s);
-            } else {
-                length = BigInteger.valueOf(perTranscoder.decodeLengthDeterminant(s)).add(lb);
-            }
-            octetstring = perTranscoder.decodeOctetString(s, length);
+        switch (perPlan.getClause()) {
+            case EMPTY:
+                //16.5
+                return null;
+            case FIXED:
+                //16.6 and 16.7
+                octetstring = perTranscoder.decodeOctetString(s, (int) perPlan.getLb());
+                break;
+            case CONSTRAINED_LENGTH:
+                //16.8
+                octetstring = perTranscoder.decodeOctetString(s, (int) perTranscoder.decodeConstrainedNumber(perPlan.getLb(), perPlan.getUb(), s));
+                break;
+            default:
+                //16.8
+                octetstring = perTranscoder.decodeOctetString(s, (int) (perTranscoder.decodeLengthDeterminant(s) + perPlan.getLb()));
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("Result " + CoderUtils.bytesToHex(octetstring));
         }
-        logger.trace("Result " + CoderUtils.bytesToHex(octetstring));
         return octetstring;
     }
 }
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1.translator;
+
+import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.PERPlan;
+import com.ericsson.mts.asn1.PERTranscoder;
+import com.ericsson.mts.asn1.TranslatorContext;
+import com.ericsson.mts.asn1.exception.NotHandledCaseException;
+import com.ericsson.mts.asn1.factory.FormatWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flat PER decoding program built by {@link PERProgramCompiler} : instructions followed by their operands in an int
+ * array, names and tables in an array of constants. SEQUENCE, CHOICE and SEQUENCE OF types are subroutines and open
+ * type contents are other programs, all called through explicit stacks : decoding a message is one loop, without
+ * recursion.
+ */
+final class PERProgram {
+    //Operand "name" : index of a constant, or NAME_OF_FRAME for the name given to the current subroutine
+    static final int NAME_OF_FRAME = -1;
+
+    //Instruction set, operands after the colon
+    static final int HALT = 0;
+    //name, subroutine
+    static final int CALL = 1;
+    static final int RETURN = 2;
+    //target
+    static final int JUMP = 3;
+    //key slot count, extensible, optional field count : enter object and key frame, read extension bit and preamble
+    static final int SEQUENCE = 4;
+    //preamble shift, target : jump to target if the optional field is absent
+    static final int OPTIONAL = 5;
+    //key slot
+    static final int TARGET = 6;
+    //target : read the bit-map of extension additions, jump to target if the sequence isn't extended
+    static final int EXTENSIONS = 7;
+    //index, target : continue in a slice of the stream if the addition is present, jump to target otherwise
+    static final int EXTENSION = 8;
+    static final int END_SLICE = 9;
+    //number of known additions : skip the unknown ones
+    static final int END_EXTENSIONS = 10;
+    static final int END_SEQUENCE = 11;
+    //choice : enter object, read the index and jump to the alternative
+    static final int CHOICE = 12;
+    static final int END_CHOICE = 13;
+    //sequence of : enter array, read the number of components
+    static final int SEQUENCE_OF = 14;
+    //target : jump to target after the last component
+    static final int LOOP = 15;
+    static final int END_SEQUENCE_OF = 16;
+    //name, integer
+    static final int INTEGER = 17;
+    //name, enumerated
+    static final int ENUMERATED = 18;
+    //name, translator : run the program of the content on a slice of the stream
+    static final int OPEN_TYPE = 19;
+    static final int END_OPEN_TYPE = 20;
+    //name, translator : decode with the translator
+    static final int INTERPRET = 21;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
+    private final PERProgramCompiler compiler;
+    private final PERTranscoder perTranscoder;
+    final int[] code;
+    final Object[] constants;
+    //First instruction of each subroutine
+    final int[] entries;
+
+    PERProgram(PERProgramCompiler compiler, PERTranscoder perTranscoder, int[] code, Object[] constants, int[] entries) {
+        this.compiler = compiler;
+        this.perTranscoder = perTranscoder;
+        this.code = code;
+        this.constants = constants;
+        this.entries = entries;
+    }
+
+    static final class IntegerOperand {
+        final PERPlan plan;
+        final Map<BigInteger, String> namedNumbers;
+        //Values of small ranges and their names, decoded without allocation
+        final BigInteger[] values;
+        final String[] valueNames;
+
+        IntegerOperand(PERPlan plan, Map<BigInteger, String> namedNumbers) {
+            this.plan = plan;
+            this.namedNumbers = namedNumbers;
+            if (plan.getUb() - plan.getLb() < 256) {
+                values = new BigInteger[(int) (plan.getUb() - plan.getLb() + 1)];
+                valueNames = new String[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = BigInteger.valueOf(plan.getLb() + i);
+                    valueNames[i] = namedNumbers.get(values[i]);
+                }
+            } else {
+                values = null;
+                valueNames = null;
+            }
+        }
+    }
+
+    static final class EnumeratedOperand {
+        final boolean extensible;
+        final PERPlan indexPlan;
+        final String[] rootValues;
+        final String[] additionalValues;
+
+        EnumeratedOperand(boolean extensible, PERPlan indexPlan, String[] rootValues, String[] additionalValues) {
+            this.extensible = extensible;
+            this.indexPlan = indexPlan;
+            this.rootValues = rootValues;
+            this.additionalValues = additionalValues;
+        }
+    }
+
+    static final class ChoiceOperand {
+        final boolean extensible;
+        final int rootCount;
+        final PERPlan indexPlan;
+        //Labels while assembling, first instruction of each alternative once assembled
+        final int[] rootTargets;
+        final int[] extensionTargets;
+
+        ChoiceOperand(boolean extensible, PERPlan indexPlan, int[] rootTargets, int[] extensionTargets) {
+            this.extensible = extensible;
+            this.rootCount = rootTargets.length;
+            this.indexPlan = indexPlan;
+            this.rootTargets = rootTargets;
+            this.extensionTargets = extensionTargets;
+        }
+    }
+
+    static final class SequenceOfOperand {
+        final PERPlan.Clause clause;
+        final int fixedSize;
+        final PERPlan lengthPlan;
+
+        SequenceOfOperand(PERPlan plan, boolean aligned) {
+            clause = plan.getClause();
+            fixedSize = (int) plan.getUb();
+            lengthPlan = clause == PERPlan.Clause.CONSTRAINED_LENGTH ? PERPlan.constrainedWholeNumber(plan.getLb(), plan.getUb(), false, aligned) : null;
+        }
+    }
+
+    static final class TranslatorOperand {
+        final AbstractTranslator translator;
+        final List<String> parameters;
+
+        TranslatorOperand(AbstractTranslator translator, List<String> parameters) {
+            this.translator = translator;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * Decode a value of the type of this program.
+     *
+     * @param name name given to the value
+     * @param stream binary stream
+     * @param writer output of the decoded value
+     * @param translatorContext context of the enclosing sequence, or null
+     * @throws Exception decoding exception
+     */
+    void run(String name, BitInputStream stream, FormatWriter writer, TranslatorContext translatorContext) throws Exception {
+        new Execution(name, stream, writer, translatorContext == null ? new TranslatorContext() : translatorContext).run(this);
+    }
+
+    /**
+     * State of one decoding : cursor and stacks
+     */
+    private final class Execution {
+        private final FormatWriter writer;
+        private final TranslatorContext context;
+        private BitInputStream s;
+        //Subroutines and open types
+        private int frameCount = 1;
+        private String[] frameNames = new String[16];
+        private int[] returnPcs = new int[16];
+        private PERProgram[] returnPrograms = new PERProgram[16];
+        //Sequences
+        private int sequenceCount = 0;
+        private int[] previousKeyFrames = new int[16];
+        private long[] preambles = new long[16];
+        private boolean[] extended = new boolean[16];
+        //Extension bit-maps
+        private int bitmapCount = 0;
+        private boolean[][] bitmaps = new boolean[4][];
+        //Sequence of
+        private int loopCount = 0;
+        private int[] remainingComponents = new int[16];
+        //Enclosing streams of slices
+        private int streamCount = 0;
+        private BitInputStream[] streams = new BitInputStream[8];
+
+        private Execution(String name, BitInputStream s, FormatWriter writer, TranslatorContext context) {
+            this.s = s;
+            this.writer = writer;
+            this.context = context;
+            frameNames[0] = name;
+        }
+
+        private void pushFrame(String name, int returnPc, PERProgram returnProgram) {
+            if (frameCount == frameNames.length) {
+                frameNames = Arrays.copyOf(frameNames, frameCount * 2);
+                returnPcs = Arrays.copyOf(returnPcs, frameCount * 2);
+                returnPrograms = Arrays.copyOf(returnPrograms, frameCount * 2);
+            }
+            frameNames[frameCount] = name;
+            returnPcs[frameCount] = returnPc;
+            returnPrograms[frameCount] = returnProgram;
+            frameCount++;
+        }
+
+        private void pushSequence(int previousKeyFrame, long preamble, boolean isExtended) {
+            if (sequenceCount == preambles.length) {
+                previousKeyFrames = Arrays.copyOf(previousKeyFrames, sequenceCount * 2);
+                preambles = Arrays.copyOf(preambles, sequenceCount * 2);
+                extended = Arrays.copyOf(extended, sequenceCount * 2);
+            }
+            previousKeyFrames[sequenceCount] = previousKeyFrame;
+            preambles[sequenceCount] = preamble;
+            extended[sequenceCount] = isExtended;
+            sequenceCount++;
+        }
+
+        private void pushBitmap(boolean[] bitmap) {
+            if (bitmapCount == bitmaps.length) {
+                bitmaps = Arrays.copyOf(bitmaps, bitmapCount * 2);
+            }
+            bitmaps[bitmapCount++] = bitmap;
+        }
+
+        private void pushLoop(int components) {
+            if (loopCount == remainingComponents.length) {
+                remainingComponents = Arrays.copyOf(remainingComponents, loopCount * 2);
+            }
+            remainingComponents[loopCount++] = components;
+        }
+
+        /**
+         * Continue in a slice of the current stream
+         */
+        private void pushSlice(int length) throws Exception {
+            BitInputStream slice = perTranscoder.decodeContentOctets(s, length);
+            if (streamCount == streams.length) {
+                streams = Arrays.copyOf(streams, streamCount * 2);
+            }
+            streams[streamCount++] = s;
+            s = slice;
+        }
+
+        private void run(PERProgram root) throws Exception {
+            PERTranscoder per = perTranscoder;
+            PERProgram program = root;
+            int[] code = program.code;
+            Object[] constants = program.constants;
+            int pc = 0;
+            while (true) {
+                switch (code[pc]) {
+                    case HALT:
+                        return;
+                    case CALL: {
+                        int nameOperand = code[pc + 1];
+                        pushFrame(nameOperand == NAME_OF_FRAME ? frameNames[frameCount - 1] : (String) constants[nameOperand], pc + 3, program);
+                        pc = program.entries[code[pc + 2]];
+                        break;
+                    }
+                    case RETURN:
+                        frameCount--;
+                        pc = returnPcs[frameCount];
+                        break;
+                    case JUMP:
+                        pc = code[pc + 1];
+                        break;
+                    case SEQUENCE: {
+                        writer.enterObject(frameNames[frameCount - 1]);
+                        int previousKeyFrame = context.enter(code[pc + 1]);
+                        boolean isExtended = code[pc + 2] != 0 && 1 == s.readBit();
+                        pushSequence(previousKeyFrame, s.readBits(code[pc + 3]), isExtended);
+                        pc += 4;
+                        break;
+                    }
+                    case OPTIONAL:
+                        if (((preambles[sequenceCount - 1] >>> code[pc + 1]) & 1) == 0) {
+                            pc = code[pc + 2];
+                        } else {
+                            pc += 3;
+                        }
+                        break;
+                    case TARGET:
+                        context.setTarget(code[pc + 1]);
+                        pc += 2;
+                        break;
+                    case EXTENSIONS:
+                        if (!extended[sequenceCount - 1]) {
+                            pc = code[pc + 1];
+                            break;
+                        }
+                        boolean[] additionalBitmap = new boolean[per.decodeNormallySmallNumber(s).intValueExact() + 1];
+                        for (int i = 0; i < additionalBitmap.length; i++) {
+                            additionalBitmap[i] = (1 == s.readBit());
+                        }
+                        if (per.isAligned()) {
+                            per.skipAlignedBits(s);
+                        }
+                        pushBitmap(additionalBitmap);
+                        pc += 2;
+                        break;
+                    case EXTENSION: {
+                        boolean[] bitmap = bitmaps[bitmapCount - 1];
+                        int index = code[pc + 1];
+                        if (index < bitmap.length && bitmap[index]) {
+                            pushSlice(per.decodeLengthDeterminant(s));
+                            pc += 3;
+                        } else {
+                            pc = code[pc + 2];
+                        }
+                        break;
+                    }
+                    case END_SLICE:
+                        s = streams[--streamCount];
+                        pc++;
+                        break;
+                    case END_EXTENSIONS: {
+                        boolean[] bitmap = bitmaps[--bitmapCount];
+                        for (int i = code[pc + 1]; i < bitmap.length; i++) {
+                            if (bitmap[i]) {
+                                BitInputStream data = per.decodeContentOctets(s, per.decodeLengthDeterminant(s));
+                                logger.error("skipped additional field of " + data.available() + " bytes");
+                            }
+                        }
+                        pc += 2;
+                        break;
+                    }
+                    case END_SEQUENCE:
+                        context.leave(previousKeyFrames[--sequenceCount]);
+                        writer.leaveObject(frameNames[frameCount - 1]);
+                        pc++;
+                        break;
+                    case CHOICE: {
+                        ChoiceOperand choice = (ChoiceOperand) constants[code[pc + 1]];
+                        writer.enterObject(frameNames[frameCount - 1]);
+                        if (!choice.extensible || 0 == s.readBit()) {
+                            int index;
+                            if (choice.rootCount < 64) {
+                                index = (int) per.decodeConstrainedNumber(choice.indexPlan, s);
+                            } else {
+                                index = (int) per.decodeNormallySmallNumberAsLong(s);
+                            }
+                            pc = choice.rootTargets[index];
+                        } else {
+                            int index = (int) per.decodeNormallySmallNumberAsLong(s) - choice.rootCount - 1;
+                            pushSlice(per.decodeLengthDeterminant(s));
+                            pc = choice.extensionTargets[index];
+                        }
+                        break;
+                    }
+                    case END_CHOICE:
+                        writer.leaveObject(frameNames[frameCount - 1]);
+                        pc++;
+                        break;
+                    case SEQUENCE_OF: {
+                        SequenceOfOperand sequenceOf = (SequenceOfOperand) constants[code[pc + 1]];
+                        writer.enterArray(frameNames[frameCount - 1]);
+                        switch (sequenceOf.clause) {
+                            case FIXED:
+                                pushLoop(sequenceOf.fixedSize);
+                                break;
+                            case CONSTRAINED_LENGTH:
+                                pushLoop((int) per.decodeConstrainedNumber(sequenceOf.lengthPlan, s));
+                                break;
+                            default:
+                                pushLoop(per.decodeLengthDeterminant(s));
+                        }
+                        pc += 2;
+                        break;
+                    }
+                    case LOOP:
+                        if (remainingComponents[loopCount - 1] == 0) {
+                            pc = code[pc + 1];
+                        } else {
+                            remainingComponents[loopCount - 1]--;
+                            pc += 2;
+                        }
+                        break;
+                    case END_SEQUENCE_OF:
+                        loopCount--;
+                        writer.leaveArray(frameNames[frameCount - 1]);
+                        pc++;
+                        break;
+                    case INTEGER: {
+                        int nameOperand = code[pc + 1];
+                        String name = nameOperand == NAME_OF_FRAME ? frameNames[frameCount - 1] : (String) constants[nameOperand];
+                        IntegerOperand integer = (IntegerOperand) constants[code[pc + 2]];
+                        if (integer.plan.isExtensible() && 1 == s.readBit()) {
+                            throw new NotHandledCaseException();
+                        }
+                        long value = per.decodeConstrainedNumber(integer.plan, s);
+                        long offset = value - integer.plan.getLb();
+                        BigInteger bigInteger;
+                        String namedNumber;
+                        if (integer.values != null && offset < integer.values.length) {
+                            bigInteger = integer.values[(int) offset];
+                            namedNumber = integer.valueNames[(int) offset];
+                        } else {
+                            bigInteger = BigInteger.valueOf(value);
+                            namedNumber = integer.namedNumbers.get(bigInteger);
+                        }
+                        context.putKey(bigInteger);
+                        writer.intValue(name, bigInteger, namedNumber);
+                        pc += 3;
+                        break;
+                    }
+                    case ENUMERATED: {
+                        int nameOperand = code[pc + 1];
+                        String name = nameOperand == NAME_OF_FRAME ? frameNames[frameCount - 1] : (String) constants[nameOperand];
+                        EnumeratedOperand enumerated = (EnumeratedOperand) constants[code[pc + 2]];
+                        if (!enumerated.extensible || 0 == s.readBit()) {
+                            writer.stringValue(name, enumerated.rootValues[(int) per.decodeConstrainedNumber(enumerated.indexPlan, s)]);
+                        } else {
+                            long choice = per.decodeNormallySmallNumberAsLong(s);
+                            writer.stringValue(name, enumerated.additionalValues.length > choice ? enumerated.additionalValues[(int) choice] : "UNKNOWN_EXTENDED(" + choice + ")");
+                        }
+                        pc += 3;
+                        break;
+                    }
+                    case OPEN_TYPE: {
+                        int nameOperand = code[pc + 1];
+                        String name = nameOperand == NAME_OF_FRAME ? frameNames[frameCount - 1] : (String) constants[nameOperand];
+                        TranslatorOperand openType = (TranslatorOperand) constants[code[pc + 2]];
+                        PERObjectClassFieldTranslator translator = (PERObjectClassFieldTranslator) openType.translator;
+                        AbstractTranslator typeTranslator = translator.getOpenTypeTranslator(context, (ParameterBinding) openType.parameters);
+                        int length = per.decodeLengthDeterminant(s);
+                        if (length >= 16384) {
+                            throw new NotHandledCaseException("Open type fragmentation");
+                        }
+                        writer.enterObject(name);
+                        pushSlice(length);
+                        pushFrame(name, pc + 3, program);
+                        program = compiler.openType(typeTranslator);
+                        code = program.code;
+                        constants = program.constants;
+                        pc = 0;
+                        break;
+                    }
+                    case END_OPEN_TYPE:
+                        s = streams[--streamCount];
+                        frameCount--;
+                        writer.leaveObject(frameNames[frameCount]);
+                        pc = returnPcs[frameCount];
+                        program = returnPrograms[frameCount];
+                        code = program.code;
+                        constants = program.constants;
+                        break;
+                    case INTERPRET: {
+                        int nameOperand = code[pc + 1];
+                        String name = nameOperand == NAME_OF_FRAME ? frameNames[frameCount - 1] : (String) constants[nameOperand];
+                        TranslatorOperand interpreted = (TranslatorOperand) constants[code[pc + 2]];
+                        interpreted.translator.decode(name, s, writer, context, interpreted.parameters);
+                        pc += 3;
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("Unknown instruction " + code[pc] + " at " + pc);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1.translator;
+
+import com.ericsson.mts.asn1.BitArray;
+import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.PERPlan;
+import com.ericsson.mts.asn1.PERTranscoder;
+import com.ericsson.mts.asn1.TranslatorContext;
+import com.ericsson.mts.asn1.factory.FormatReader;
+import com.ericsson.mts.asn1.factory.FormatWriter;
+import org.javatuples.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.ericsson.mts.asn1.translator.PERProgram.*;
+
+/**
+ * Lower the translators of a type into a flat {@link PERProgram} decoded by a single loop. Like {@link PERCompiler},
+ * plans and bounds are resolved once for each binding and translators without an instruction are called with their
+ * binding, so the decoding is the same as the interpreted one. Programs only decode : there are no encoding
+ * instructions and encoding falls back to the interpreted translators.
+ */
+public final class PERProgramCompiler {
+    private static final List<String> NO_PARAMETERS = Collections.emptyList();
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
+    private final PERTranscoder perTranscoder;
+    //Programs of the contents of open types, assembled the first time they are decoded
+    private final ConcurrentHashMap<AbstractTranslator, PERProgram> openTypes = new ConcurrentHashMap<>();
+
+    public PERProgramCompiler(PERTranscoder perTranscoder) {
+        this.perTranscoder = perTranscoder;
+    }
+
+    /**
+     * @param translator translator of a type, from a compiled registry
+     * @return translator with the same encoding, decoding with a program
+     */
+    public AbstractTranslator compile(AbstractTranslator translator) {
+        return new ProgramNode(translator, assemble(translator, null));
+    }
+
+    PERProgram openType(AbstractTranslator typeTranslator) {
+        if (typeTranslator == null) {
+            throw new RuntimeException("Unknown open type content");
+        }
+        PERProgram program = openTypes.get(typeTranslator);
+        if (program == null) {
+            program = assemble(typeTranslator, typeTranslator.getName());
+            PERProgram previous = openTypes.putIfAbsent(typeTranslator, program);
+            if (previous != null) {
+                program = previous;
+            }
+        }
+        return program;
+    }
+
+    /**
+     * @param translator translator of the type
+     * @param contentName name of an open type content, or null for the program of a message
+     * @return program decoding the type
+     */
+    private synchronized PERProgram assemble(AbstractTranslator translator, String contentName) {
+        Assembler assembler = new Assembler();
+        if (contentName == null) {
+            assembler.element(translator, null, NAME_OF_FRAME);
+            assembler.emit(HALT);
+        } else {
+            assembler.element(translator, null, assembler.constant(contentName));
+            assembler.emit(END_OPEN_TYPE);
+        }
+        return assembler.link();
+    }
+
+    /**
+     * Instructions of one program. SEQUENCE, CHOICE and SEQUENCE OF bindings are subroutines, assembled after the
+     * code calling them.
+     */
+    private final class Assembler {
+        private int[] code = new int[256];
+        private int length = 0;
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<String, Integer> names = new HashMap<>();
+        //Operands shared by the instructions of a translator
+        private final Map<AbstractTranslator, Integer> operands = new IdentityHashMap<>();
+        //Position of each label, and the code referring to labels
+        private final List<Integer> labels = new ArrayList<>();
+        private final List<Integer> fixups = new ArrayList<>();
+        private final List<PERProgram.ChoiceOperand> choices = new ArrayList<>();
+        private final Map<ParameterBinding, Integer> subroutines = new IdentityHashMap<>();
+        private final List<Integer> entryLabels = new ArrayList<>();
+        private final Deque<Pair<ParameterBinding, Integer>> pendingSubroutines = new ArrayDeque<>();
+
+        void emit(int value) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = value;
+        }
+
+        int label() {
+            labels.add(-1);
+            return labels.size() - 1;
+        }
+
+        void bind(int label) {
+            labels.set(label, length);
+        }
+
+        void emitLabel(int label) {
+            fixups.add(length);
+            emit(label);
+        }
+
+        int constant(String name) {
+            Integer index = names.get(name);
+            if (index == null) {
+                index = constants.size();
+                constants.add(name);
+                names.put(name, index);
+            }
+            return index;
+        }
+
+        int constant(Object operand) {
+            constants.add(operand);
+            return constants.size() - 1;
+        }
+
+        void element(AbstractTranslator translator, ParameterBinding binding, int nameOperand) {
+            if (binding == null && translator.isParameterized()) {
+                //Called without actual parameters by the interpreted translators
+                emit(INTERPRET, nameOperand, constant(new PERProgram.TranslatorOperand(translator, NO_PARAMETERS)));
+                return;
+            }
+            ParameterBinding resolvedBinding = binding == null ? translator.getBinding(NO_PARAMETERS) : binding;
+            if (translator instanceof ReferenceTranslator) {
+                ReferenceTranslator referenceTranslator = (ReferenceTranslator) translator;
+                element(referenceTranslator.getReferencedTranslator(), referenceTranslator.getReferencedBinding(resolvedBinding), nameOperand);
+                return;
+            } else if (translator instanceof PERSequenceTranslator) {
+                if (((PERSequenceTranslator) translator).rootSequenceOptionalCount <= 64) {
+                    emit(CALL, nameOperand, subroutine(resolvedBinding));
+                    return;
+                }
+            } else if (translator instanceof PERChoiceTranslator) {
+                if (!((PERChoiceTranslator) translator).fieldList.isEmpty()) {
+                    emit(CALL, nameOperand, subroutine(resolvedBinding));
+                    return;
+                }
+            } else if (translator instanceof PERSequenceOfTranslator) {
+                PERPlan plan = ((PERSequenceOfTranslator) translator).resolvePlan(resolvedBinding);
+                PERPlan.Clause clause = plan.getClause();
+                if (clause == PERPlan.Clause.FIXED || clause == PERPlan.Clause.SEMI_CONSTRAINED_LENGTH
+                        || (clause == PERPlan.Clause.CONSTRAINED_LENGTH && plan.getLb() <= plan.getUb())) {
+                    emit(CALL, nameOperand, subroutine(resolvedBinding));
+                    return;
+                }
+            } else if (translator instanceof PEREnumeratedTranslator) {
+                PEREnumeratedTranslator enumeratedTranslator = (PEREnumeratedTranslator) translator;
+                if (!enumeratedTranslator.fieldList.isEmpty()) {
+                    Integer operand = operands.get(translator);
+                    if (operand == null) {
+                        String[] rootValues = enumeratedTranslator.fieldList.toArray(new String[0]);
+                        operand = constant(new PERProgram.EnumeratedOperand(enumeratedTranslator.hasExtensionMarker,
+                                PERPlan.constrainedWholeNumber(0, rootValues.length - 1L, false, perTranscoder.isAligned()),
+                                rootValues, enumeratedTranslator.additionalFieldsList.toArray(new String[0])));
+                        operands.put(translator, operand);
+                    }
+                    emit(ENUMERATED, nameOperand, operand);
+                    return;
+                }
+            } else if (translator instanceof PERIntegerTranslator) {
+                PERIntegerTranslator integerTranslator = (PERIntegerTranslator) translator;
+                PERPlan plan = integerTranslator.plan();
+                if (plan.getClause() == PERPlan.Clause.FIXED || plan.getClause() == PERPlan.Clause.INDEFINITE_LENGTH) {
+                    Integer operand = operands.get(translator);
+                    if (operand == null) {
+                        operand = constant(new PERProgram.IntegerOperand(plan, integerTranslator.namedNumbers));
+                        operands.put(translator, operand);
+                    }
+                    emit(INTEGER, nameOperand, operand);
+                    return;
+                }
+            } else if (translator instanceof PERObjectClassFieldTranslator) {
+                if (objectClassField((PERObjectClassFieldTranslator) translator, resolvedBinding, nameOperand)) {
+                    return;
+                }
+            }
+            logger.debug("{} is interpreted", translator.getName());
+            emit(INTERPRET, nameOperand, constant(new PERProgram.TranslatorOperand(translator, translator.isParameterized() ? resolvedBinding : NO_PARAMETERS)));
+        }
+
+        private boolean objectClassField(PERObjectClassFieldTranslator translator, ParameterBinding binding, int nameOperand) {
+            if (translator.constraints.hasSingleValueConstraints()) {
+                return false;
+            }
+            AbstractTranslator typeTranslator;
+            try {
+                typeTranslator = translator.classHandler.getTypeTranslator(translator.fieldName);
+            } catch (RuntimeException e) {
+                //Thrown again by the interpreted translator when it is used
+                return false;
+            }
+            if (typeTranslator != null) {
+                element(typeTranslator, null, nameOperand);
+                return true;
+            } else if (translator.targetSlot >= 0 && !perTranscoder.isPermissive()) {
+                //Errors in the content are written in the output by the interpreted translator when permissive
+                emit(OPEN_TYPE, nameOperand, constant(new PERProgram.TranslatorOperand(translator, binding)));
+                return true;
+            }
+            return false;
+        }
+
+        private void emit(int instruction, int operand1, int operand2) {
+            emit(instruction);
+            emit(operand1);
+            emit(operand2);
+        }
+
+        private int subroutine(ParameterBinding binding) {
+            Integer index = subroutines.get(binding);
+            if (index == null) {
+                index = entryLabels.size();
+                subroutines.put(binding, index);
+                int entry = label();
+                entryLabels.add(entry);
+                pendingSubroutines.add(Pair.with(binding, entry));
+            }
+            return index;
+        }
+
+        private void sequence(PERSequenceTranslator translator, ParameterBinding binding) {
+            boolean extensible = translator.hasEllipsis || translator.optionalExtensionMarker || (translator.extensionAndException != -1);
+            int optionalCount = translator.rootSequenceOptionalCount;
+            emit(SEQUENCE, translator.keySlotCount(), extensible ? 1 : 0);
+            emit(optionalCount);
+            int optionalIndex = 0;
+            for (AbstractSequenceTranslator.Field field : translator.fieldList) {
+                int absent = -1;
+                if (field.getOptionnal()) {
+                    absent = label();
+                    emit(OPTIONAL);
+                    emit(optionalCount - 1 - optionalIndex++);
+                    emitLabel(absent);
+                }
+                emit(TARGET);
+                emit(field.getKeySlot());
+                element(field.getType(), translator.getFieldBinding(binding, field), constant(field.getName()));
+                if (absent != -1) {
+                    bind(absent);
+                }
+            }
+            if (extensible) {
+                int end = label();
+                emit(EXTENSIONS);
+                emitLabel(end);
+                int index = 0;
+                for (AbstractSequenceTranslator.Field field : translator.additionnalFieldList) {
+                    int absent = label();
+                    emit(EXTENSION);
+                    emit(index++);
+                    emitLabel(absent);
+                    emit(TARGET);
+                    emit(field.getKeySlot());
+                    element(field.getType(), translator.getFieldBinding(binding, field), constant(field.getName()));
+                    emit(END_SLICE);
+                    bind(absent);
+                }
+                emit(END_EXTENSIONS);
+                emit(index);
+                bind(end);
+            }
+            emit(END_SEQUENCE);
+            emit(RETURN);
+        }
+
+        private void choice(PERChoiceTranslator translator) {
+            int[] rootTargets = new int[translator.fieldList.size()];
+            int[] extensionTargets = new int[translator.extensionFieldList.size()];
+            PERProgram.ChoiceOperand choice = new PERProgram.ChoiceOperand(translator.optionalExtensionMarker,
+                    PERPlan.constrainedWholeNumber(0, rootTargets.length - 1L, false, perTranscoder.isAligned()), rootTargets, extensionTargets);
+            choices.add(choice);
+            emit(CHOICE);
+            emit(constant(choice));
+            int end = label();
+            alternatives(translator.fieldList, rootTargets, false, end);
+            alternatives(translator.extensionFieldList, extensionTargets, true, end);
+            bind(end);
+            emit(END_CHOICE);
+            emit(RETURN);
+        }
+
+        private void alternatives(List<Pair<String, AbstractTranslator>> alternatives, int[] targets, boolean sliced, int end) {
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = label();
+                bind(targets[i]);
+                element(alternatives.get(i).getValue1(), null, constant(alternatives.get(i).getValue0()));
+                if (sliced) {
+                    emit(END_SLICE);
+                }
+                emit(JUMP);
+                emitLabel(end);
+            }
+        }
+
+        private void sequenceOf(PERSequenceOfTranslator translator, ParameterBinding binding) {
+            emit(SEQUENCE_OF);
+            emit(constant(new PERProgram.SequenceOfOperand(translator.resolvePlan(binding), perTranscoder.isAligned())));
+            int loop = label();
+            int end = label();
+            bind(loop);
+            emit(LOOP);
+            emitLabel(end);
+            element(translator.typeTranslator, translator.getComponentBinding(binding), constant((String) null));
+            emit(JUMP);
+            emitLabel(loop);
+            bind(end);
+            emit(END_SEQUENCE_OF);
+            emit(RETURN);
+        }
+
+        PERProgram link() {
+            while (!pendingSubroutines.isEmpty()) {
+                Pair<ParameterBinding, Integer> subroutine = pendingSubroutines.poll();
+                ParameterBinding binding = subroutine.getValue0();
+                AbstractTranslator translator = binding.getTranslator();
+                bind(subroutine.getValue1());
+                if (translator instanceof PERSequenceTranslator) {
+                    sequence((PERSequenceTranslator) translator, binding);
+                } else if (translator instanceof PERChoiceTranslator) {
+                    choice((PERChoiceTranslator) translator);
+                } else {
+                    sequenceOf((PERSequenceOfTranslator) translator, binding);
+                }
+            }
+            for (int fixup : fixups) {
+                code[fixup] = labels.get(code[fixup]);
+            }
+            for (PERProgram.ChoiceOperand choice : choices) {
+                for (int i = 0; i < choice.rootTargets.length; i++) {
+                    choice.rootTargets[i] = labels.get(choice.rootTargets[i]);
+                }
+                for (int i = 0; i < choice.extensionTargets.length; i++) {
+                    choice.extensionTargets[i] = labels.get(choice.extensionTargets[i]);
+                }
+            }
+            int[] entries = new int[entryLabels.size()];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = labels.get(entryLabels.get(i));
+            }
+            return new PERProgram(PERProgramCompiler.this, perTranscoder, Arrays.copyOf(code, length), constants.toArray(), entries);
+        }
+    }
+
+    /**
+     * Type decoded by its program and encoded by its translator.
+     */
+    private static final class ProgramNode extends AbstractTranslator {
+        private final AbstractTranslator translator;
+        private final PERProgram program;
+
+        ProgramNode(AbstractTranslator translator, PERProgram program) {
+            this.translator = translator;
+            this.program = program;
+            setName(translator.getName());
+        }
+
+        @Override
+        public void encode(String name, BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            translator.encode(name, s, reader, translatorContext, parameters);
+        }
+
+        @Override
+        public void decode(String name, BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, List<String> parameters) throws Exception {
+            program.run(name, s, writer, translatorContext);
+        }
+    }
+}
@@ -12,6 +12,7 @@ package com.ericsson.mts.asn1.translator;
 
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.PERPlan;
 import com.ericsson.mts.asn1.PERTranscoder;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.factory.FormatReader;
@@ -23,138 +24,125 @@ import java.nio.charset.StandardCharsets;
 
 public class PERRestrictedCharacterStringTranslator extends AbstractRestrictedCharacterStringTranslator {
     private PERTranscoder perTranscoder;
+    private volatile PERPlan plan;
 
     public PERRestrictedCharacterStringTranslator(PERTranscoder perTranscoder) {
         this.perTranscoder = perTranscoder;
     }
 
     @Override
-    public void doEncode(BitArray s, FormatReader reader, String value) throws IOException {
-        logger.trace("Enter {} encoder, name {}", this.getClass().getSimpleName(), this.name);
-        if (constraints.hasSingleValueConstraints()) {
-            throw new NotHandledCaseException();
-        }
-
-        BigInteger lb, ub,
-                bitLength = BigInteger.valueOf((long) (value.length() * knownMultiplierCharacterString.getB2()));
-        boolean ubUnset = false;
+    public void compile() {
+        plan();
+    }
 
-        if (constraints.hasSizeConstraint()) {
-            lb = constraints.getLowerBound();
-            ub = constraints.getUpperBound();
-        } else {
-            throw new NotHandledCaseException();
+    PERPlan plan() {
+        PERPlan perPlan = plan;
+        if (perPlan == null) {
+            perPlan = buildPlan();
+            plan = perPlan;
         }
+        return perPlan;
+    }
 
-        if (constraints.isExtensible()) {
-            //16.6
-            if (bitLength.compareTo(lb) < 0 || bitLength.compareTo(ub) > 0) {
-                throw new NotHandledCaseException();
-            } else {
-                perTranscoder.writePreambleBit(s, 0);
-            }
+    private PERPlan buildPlan() {
+        if (constraints.hasSingleValueConstraints()) {
+            return PERPlan.notHandled("Single value constraint on " + name);
         }
-
-        if (!isknownMultiplierCharacterStringType) {
+        if (!constraints.hasSizeConstraint()) {
+            return PERPlan.notHandled("Unconstrained character string " + name);
+        }
+        if (!isknownMultiplierCharacterStringType || !KnownMultiplierCharacterString.PrintableString.equals(knownMultiplierCharacterString)) {
             //30.1
-            lb = BigInteger.ZERO;
-            ubUnset = true;
+            return PERPlan.notHandled("Character string type of " + name);
         }
 
+        BigInteger lb = constraints.getLowerBound();
+        BigInteger ub = constraints.getUpperBound();
+        boolean ubUnset = false;
         if (lb == null) {
             //30.3
             lb = BigInteger.ZERO;
         }
-
         if (ub == null) {
             //30.2
             ub = lb;
             ubUnset = true;
         }
-        if (isknownMultiplierCharacterStringType) {
-            if (KnownMultiplierCharacterString.PrintableString.equals(knownMultiplierCharacterString)) {
-                if (!ubUnset && lb.equals(ub) && lb.compareTo(BigInteger.valueOf(65536)) < 0) {
-
-                } else if (!ubUnset && ub.compareTo(BigInteger.valueOf(65536)) <= 0) {
-                    perTranscoder.encodeConstrainedWholeNumber(s, BigInteger.valueOf(perTranscoder.toByteCount(bitLength.intValueExact())), lb, ub);
-                } else if (ubUnset) {
-                    perTranscoder.encodeSemiConstrainedWholeNumber(s, lb, BigInteger.valueOf(perTranscoder.toByteCount(bitLength.intValueExact())));
-                } else {
-                    throw new RuntimeException();
-                }
-                if (!((!ubUnset && lb.equals(ub)) || (!lb.equals(ub) && ub.subtract(lb).compareTo(BigInteger.valueOf(2)) <= 0))) {
-                    //Note 1
-                    perTranscoder.skipAlignedBits(s);
-                }
-                perTranscoder.encodeRestrictedCharacterString(s, new BigInteger(value.getBytes(StandardCharsets.US_ASCII)), bitLength.intValueExact());
-            } else {
-                throw new NotHandledCaseException();
-            }
+        long lower = lb.longValueExact();
+        long upper = ub.longValueExact();
+        //Note 1
+        boolean alignValue = !((!ubUnset && lower == upper) || (lower != upper && upper - lower <= 2));
+        boolean extensible = constraints.isExtensible();
+
+        if (!ubUnset && lower == upper && lower < 65536) {
+            return PERPlan.of(PERPlan.Clause.FIXED, lower, upper, true, extensible, (int) upper * knownMultiplierCharacterString.getB2(), alignValue);
+        } else if (!ubUnset && upper <= 65536) {
+            return PERPlan.of(PERPlan.Clause.CONSTRAINED_LENGTH, lower, upper, true, extensible, 0, alignValue);
+        } else if (ubUnset) {
+            return PERPlan.of(PERPlan.Clause.SEMI_CONSTRAINED_LENGTH, lower, upper, false, extensible, 0, alignValue);
         } else {
-            throw new NotHandledCaseException();
+            return PERPlan.notHandled("Character string " + name + " larger than 64K");
         }
     }
 
     @Override
-    public String doDecode(BitInputStream s, FormatWriter writer) throws IOException {
-        logger.trace("Enter {} translator, name {}", this.getClass().getSimpleName(), this.name);
-        if (constraints.hasSingleValueConstraints()) {
-            throw new NotHandledCaseException();
-        }
-        BigInteger lb, ub;
-        boolean ubUnset = false, isExtendedRestrictedString = false;
+    public void doEncode(BitArray s, FormatReader reader, String value) throws IOException {
+        logger.trace("Enter {} encoder, name {}", this.getClass().getSimpleName(), this.name);
+        PERPlan perPlan = plan();
+        perPlan.checkHandled();
+        int bitLength = value.length() * knownMultiplierCharacterString.getB2();
 
-        if (constraints.hasSizeConstraint()) {
-            lb = constraints.getLowerBound();
-            ub = constraints.getUpperBound();
-        } else {
-            throw new NotHandledCaseException();
+        if (perPlan.isExtensible()) {
+            //16.6
+            if (value.length() < perPlan.getLb() || (perPlan.isUpperBounded() && value.length() > perPlan.getUb())) {
+                throw new NotHandledCaseException();
+            } else {
+                perTranscoder.writePreambleBit(s, 0);
+            }
         }
 
-        if (!isknownMultiplierCharacterStringType) {
-            //30.1
-            lb = BigInteger.ZERO;
-            ubUnset = true;
+        switch (perPlan.getClause()) {
+            case FIXED:
+                break;
+            case CONSTRAINED_LENGTH:
+                perTranscoder.encodeConstrainedWholeNumber(s, perTranscoder.toByteCount(bitLength), perPlan.getLb(), perPlan.getUb());
+                break;
+            default:
+                perTranscoder.encodeSemiConstrainedWholeNumber(s, perPlan.getLb(), perTranscoder.toByteCount(bitLength));
         }
-
-        if (lb == null) {
-            //30.3
-            lb = BigInteger.ZERO;
+        if (perPlan.isAlignValue()) {
+            //Note 1
+            perTranscoder.skipAlignedBits(s);
         }
+        perTranscoder.encodeRestrictedCharacterString(s, new BigInteger(value.getBytes(StandardCharsets.US_ASCII)), bitLength);
+    }
 
-        if (ub == null) {
-            //30.2
-            ub = lb;
-            ubUnset = true;
-        }
+    @Override
+    public String doDecode(BitInputStream s, FormatWriter writer) throws IOException {
+        logger.trace("Enter {} translator, name {}", this.getClass().getSimpleName(), this.name);
+        PERPlan perPlan = plan();
+        perPlan.checkHandled();
 
-        if (constraints.isExtensible()) {
+        if (perPlan.isExtensible() && 1 == s.readBit()) {
             //16.6
-            isExtendedRestrictedString = (1 == s.readBit());
+            throw new NotHandledCaseException();
         }
 
-        if (isExtendedRestrictedString) {
-            throw new NotHandledCaseException();
-        } else {
-            if (isknownMultiplierCharacterStringType) {
-                if (KnownMultiplierCharacterString.PrintableString.equals(knownMultiplierCharacterString)) {
-                    BigInteger length;
-                    if (!ubUnset && ub.compareTo(BigInteger.valueOf(65536)) <= 0) {
-                        length = perTranscoder.decodeConstrainedNumber(lb, ub, s);
-                    } else if (ubUnset) {
-                        length = perTranscoder.decodeSemiConstraintNumber(lb.intValue(), s);
-                    } else {
-                        throw new RuntimeException();
-                    }
-                    s.skipUnreadedBits();
-                    byte[] result = perTranscoder.readBits(s, length.intValue() * 8);
-                    logger.trace("Result " + new String(result, StandardCharsets.UTF_8));
-                    return new String(result, StandardCharsets.UTF_8);
-                } else {
-                    throw new NotHandledCaseException();
-                }
-            }
+        int length;
+        switch (perPlan.getClause()) {
+            case FIXED:
+                length = (int) perPlan.getLb();
+                break;
+            case CONSTRAINED_LENGTH:
+                length = (int) perTranscoder.decodeConstrainedNumber(perPlan.getLb(), perPlan.getUb(), s);
+                break;
+            default:
+                length = (int) perTranscoder.decodeSemiConstraintNumberAsLong(perPlan.getLb(), s);
         }
-        throw new RuntimeException();
+        s.skipUnreadedBits();
+        byte[] result = perTranscoder.readBits(s, length * 8);
+        String value = new String(result, StandardCharsets.UTF_8);
+        logger.trace("Result {}", value);
+        return value;
     }
 }
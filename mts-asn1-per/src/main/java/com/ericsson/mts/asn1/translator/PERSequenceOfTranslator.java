@@ -11,149 +11,183 @@ package com.ericsson.mts.asn1.translator;
 
 import com.ericsson.mts.asn1.BitArray;
 import com.ericsson.mts.asn1.BitInputStream;
+import com.ericsson.mts.asn1.PERPlan;
 import com.ericsson.mts.asn1.PERTranscoder;
-import com.ericsson.mts.asn1.exception.NotHandledCaseException;
+import com.ericsson.mts.asn1.TranslatorContext;
 import com.ericsson.mts.asn1.factory.FormatReader;
 import com.ericsson.mts.asn1.factory.FormatWriter;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
 
 public class PERSequenceOfTranslator extends AbstractSequenceOfTranslator {
 
     private PERTranscoder perTranscoder;
+    private volatile PERPlan plan;
+    private final BindingState<PERPlan> parameterizedPlan = new BindingState<>(PERPlan.class, binding -> buildPlan(binding.getRegister()));
 
     public PERSequenceOfTranslator(PERTranscoder perTranscoder) {
         this.perTranscoder = perTranscoder;
     }
 
     @Override
-    public void doEncode(BitArray s, FormatReader reader, int numberOfComponents, Map<String, String> registry) throws Exception {
-        logger.trace("{} : {}", this.name, this);
+    public void compile() {
+        plan();
+        super.compile();
+    }
 
-        BigInteger ub, lb;
+    private PERPlan plan() {
+        PERPlan perPlan = plan;
+        if (perPlan == null) {
+            if (constraints.sizeConstraintDependsOn(getParameters())) {
+                perPlan = PERPlan.parameterized();
+            } else {
+                perPlan = buildPlan(Collections.emptyMap());
+            }
+            plan = perPlan;
+        }
+        return perPlan;
+    }
+
+    private PERPlan plan(ParameterBinding binding) {
+        PERPlan perPlan = resolvePlan(binding);
+        perPlan.checkHandled();
+        return perPlan;
+    }
+
+    /**
+     * @param binding actual parameters
+     * @return plan for these parameters, not checked
+     */
+    PERPlan resolvePlan(ParameterBinding binding) {
+        PERPlan perPlan = plan();
+        if (perPlan.getClause() == PERPlan.Clause.PARAMETERIZED) {
+            //Size bounds are parameters, the plan is built once per binding
+            perPlan = parameterizedPlan.get(binding);
+        }
+        return perPlan;
+    }
 
+    @Override
+    protected void bindChildren(ParameterBinding binding) {
+        super.bindChildren(binding);
+        resolvePlan(binding);
+    }
+
+    private PERPlan buildPlan(Map<String, String> registry) {
         if (constraints.hasSingleValueConstraints()) {
-            throw new NotHandledCaseException();
+            return PERPlan.notHandled("Single value constraint on " + name);
+        }
+        if (constraints.hasSizeConstraint() && constraints.isExtensible()) {
+            // X.691 : clause 20.4
+            return PERPlan.notHandled("Extensible size constraint on " + name);
         }
 
-        if (!constraints.hasSizeConstraint()) {
-            ub = null;
-            lb = BigInteger.ZERO;
-        } else {
-            constraints.updateSizeConstraint(registry);
-            ub = constraints.getUpperBound();
-            lb = constraints.getLowerBound();
-            if (lb == null) {
-                lb = BigInteger.ZERO;
+        long lb = 0;
+        long ub = -1;
+        if (constraints.hasSizeConstraint()) {
+            BigInteger lower = constraints.getLowerBound(registry);
+            BigInteger upper = constraints.getUpperBound(registry);
+            if (lower != null) {
+                lb = lower.longValueExact();
+            }
+            if (upper != null && upper.bitLength() < 63) {
+                ub = upper.longValue();
             }
         }
 
-        if (constraints.hasSizeConstraint() && constraints.isExtensible()) {
-            // X.691 : clause 20.4
-            throw new NotHandledCaseException();
-        } else if (lb.equals(ub) && ub.compareTo(BigInteger.valueOf(65536)) < 0) {
+        if (lb == ub && ub < 65536) {
             // X.691 : clause 20.5
-            launchEncode(s, reader, registry, ub);
+            return PERPlan.of(PERPlan.Clause.FIXED, lb, ub, true, false, 0, false);
+        } else if (ub != -1 && ub < 65536) {
+            // X.691 : clause 20.6, constrained whole number
+            return PERPlan.of(PERPlan.Clause.CONSTRAINED_LENGTH, lb, ub, true, false, 0, false);
         } else {
-            // X.691 : clause 20.6
-            if (ub != null && ub.compareTo(BigInteger.valueOf(65536)) < 0) {
-                perTranscoder.encodeConstrainedWholeNumber(s, BigInteger.valueOf(numberOfComponents), lb, ub);
-            } else {
-                perTranscoder.encodeSemiConstrainedWholeNumber(s, lb, BigInteger.valueOf(numberOfComponents));
-            }
-            launchEncode(s, reader, registry, BigInteger.valueOf(numberOfComponents));
+            // X.691 : clause 20.6, length determinant
+            return PERPlan.of(PERPlan.Clause.SEMI_CONSTRAINED_LENGTH, lb, 0, false, false, 0, false);
         }
     }
 
-    private void launchEncode(BitArray s, FormatReader reader, Map<String, String> registry, BigInteger numberOfComponents) throws Exception {
-        List<String> parameters = typeTranslator.getParameters();
-        List<String> inputParameters = new ArrayList<>();
-        if (parameters.isEmpty()) {
-            for (int i = 0; i < numberOfComponents.intValueExact(); i++) {
+    @Override
+    public void doEncode(BitArray s, FormatReader reader, TranslatorContext translatorContext, int numberOfComponents, ParameterBinding binding) throws Exception {
+        logger.trace("{} : {}", this.name, this);
+        PERPlan perPlan = plan(binding);
+
+        switch (perPlan.getClause()) {
+            case FIXED:
+                // X.691 : clause 20.5
+                launchEncode(s, reader, translatorContext, binding, (int) perPlan.getUb());
+                break;
+            case CONSTRAINED_LENGTH:
+                // X.691 : clause 20.6
+                perTranscoder.encodeConstrainedWholeNumber(s, numberOfComponents, perPlan.getLb(), perPlan.getUb());
+                launchEncode(s, reader, translatorContext, binding, numberOfComponents);
+                break;
+            default:
+                // X.691 : clause 20.6
+                perTranscoder.encodeLengthDeterminant(s, numberOfComponents);
+                launchEncode(s, reader, translatorContext, binding, numberOfComponents);
+        }
+    }
 
-                typeTranslator.encode(null, s, reader, null);
+    private void launchEncode(BitArray s, FormatReader reader, TranslatorContext translatorContext, ParameterBinding binding, int numberOfComponents) throws Exception {
+        if (!typeTranslator.isParameterized()) {
+            for (int i = 0; i < numberOfComponents; i++) {
+                typeTranslator.encode(null, s, reader, translatorContext);
             }
         } else {
-            for (String parameter : actualParameters) {
-                inputParameters.add(registry.get(parameter));
-            }
-            for (int i = 0; i < numberOfComponents.intValueExact(); i++) {
-                typeTranslator.encode(null, s, reader, null, inputParameters);
+            ParameterBinding componentBinding = getComponentBinding(binding);
+            for (int i = 0; i < numberOfComponents; i++) {
+                typeTranslator.encode(null, s, reader, translatorContext, componentBinding);
             }
         }
     }
 
     @Override
-    public void doDecode(BitInputStream s, FormatWriter writer, Map<String, String> registry) throws Exception {
+    public void doDecode(BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, ParameterBinding binding) throws Exception {
         logger.trace("Enter {} translator, name {}", this.getClass().getSimpleName(), this.name);
-        BigInteger ub, lb;
-
-        if (constraints.hasSingleValueConstraints()) {
-            throw new NotHandledCaseException();
-        }
-
-        if (!constraints.hasSizeConstraint()) {
-            lb = BigInteger.ZERO;
-            ub = null;
-        } else {
-            constraints.updateSizeConstraint(registry);
-            lb = constraints.getLowerBound();
-            ub = constraints.getUpperBound();
-            if (lb == null) {
-                lb = BigInteger.ZERO;
-            }
-        }
-
-        if (constraints.hasSizeConstraint() && constraints.isExtensible()) {
-            /* X.691 : clause 20.4
-            If there is a PER-visible constraint and an extension marker is present in it, a single bit shall be added
-            to the field-list in a bit-field of length one. The bit shall be set to 1 if the number of components in
-            this encoding is not within the range of the extension root, and zero otherwise. In the former case 11.9
-            shall be invoked to add the length determinant as a semi-constrained whole number to the field-list,
-            followed by the component values. In the latter case the length and value shall be encoded as if the
-            extension marker is not present.
-             */
-            throw new NotHandledCaseException();
-        } else if (lb.equals(ub) && ub.compareTo(BigInteger.valueOf(65536)) < 0) {
-            /* X.691 : clause 20.5
-            If the number of components is fixed ("ub" equals "lb") and "ub" is less than 64K, then there shall be no
-            length determinant for the sequence-of, and the fields of each component shall be appended in turn to the
-            field-list of the sequence-of.
-             */
-            launchDecode(s, writer, registry, ub);
-        } else {
-            /* X.691 : clause 20.6
-            Otherwise, the procedures of 11.9 shall be invoked to add the list of fields generated by the "n" components
-            to the field-list, preceded by a length determinant equal to "n" components as a constrained whole number
-            if "ub" is set, and as a semi-constrained whole number if "ub" is unset. "lb" is as determined above.
-            */
-
-            BigInteger n;
-            if (ub != null && BigInteger.valueOf(65536).compareTo(ub) >= 0) {
-                n = perTranscoder.decodeConstrainedNumber(lb, ub, s);
-            } else {
-                n = BigInteger.valueOf(perTranscoder.decodeLengthDeterminant(s));
-            }
-            launchDecode(s, writer, registry, n);
+        /* X.691 : clause 20.4
+        If there is a PER-visible constraint and an extension marker is present in it, a single bit shall be added
+        to the field-list in a bit-field of length one. The bit shall be set to 1 if the number of components in
+        this encoding is not within the range of the extension root, and zero otherwise. In the former case 11.9
+        shall be invoked to add the length determinant as a semi-constrained whole number to the field-list,
+        followed by the component values. In the latter case the length and value shall be encoded as if the
+        extension marker is not present.
+         */
+        PERPlan perPlan = plan(binding);
+
+        switch (perPlan.getClause()) {
+            case FIXED:
+                /* X.691 : clause 20.5
+                If the number of components is fixed ("ub" equals "lb") and "ub" is less than 64K, then there shall be no
+                length determinant for the sequence-of, and the fields of each component shall be appended in turn to the
+                field-list of the sequence-of.
+                 */
+                launchDecode(s, writer, translatorContext, binding, (int) perPlan.getUb());
+                break;
+            case CONSTRAINED_LENGTH:
+                /* X.691 : clause 20.6
+                Otherwise, the procedures of 11.9 shall be invoked to add the list of fields generated by the "n" components
+                to the field-list, preceded by a length determinant equal to "n" components as a constrained whole number
+                if "ub" is set, and as a semi-constrained whole number if "ub" is unset. "lb" is as determined above.
+                */
+                launchDecode(s, writer, translatorContext, binding, (int) perTranscoder.decodeConstrainedNumber(perPlan.getLb(), perPlan.getUb(), s));
+                break;
+            default:
+                launchDecode(s, writer, translatorContext, binding, perTranscoder.decodeLengthDeterminant(s));
         }
     }
 
-    private void launchDecode(BitInputStream s, FormatWriter writer, Map<String, String> registry, BigInteger ub) throws Exception {
-        List<String> parameters = typeTranslator.getParameters();
-        List<String> inputParameters = new ArrayList<>();
-        if (parameters.isEmpty()) {
-            for (int i = 0; i < ub.intValue(); i++) {
-                typeTranslator.decode(null, s, writer, null);
+    private void launchDecode(BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, ParameterBinding binding, int numberOfComponents) throws Exception {
+        if (!typeTranslator.isParameterized()) {
+            for (int i = 0; i < numberOfComponents; i++) {
+                typeTranslator.decode(null, s, writer, translatorContext);
             }
         } else {
-            for (String parameter : actualParameters) {
-                inputParameters.add(registry.get(parameter));
-            }
-            for (int i = 0; i < ub.intValue(); i++) {
-                typeTranslator.decode(null, s, writer, null, inputParameters);
+            ParameterBinding componentBinding = getComponentBinding(binding);
+            for (int i = 0; i < numberOfComponents; i++) {
+                typeTranslator.decode(null, s, writer, translatorContext, componentBinding);
             }
         }
     }
@@ -17,14 +17,12 @@ import com.ericsson.mts.asn1.exception.InvalidParameterException;
 import com.ericsson.mts.asn1.exception.NotHandledCaseException;
 import com.ericsson.mts.asn1.factory.FormatReader;
 import com.ericsson.mts.asn1.factory.FormatWriter;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
-import java.math.BigInteger;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 public class PERSequenceTranslator extends AbstractSequenceTranslator {
 
@@ -35,48 +33,44 @@ public class PERSequenceTranslator extends AbstractSequenceTranslator {
     }
 
     @Override
-    public void doEncode(BitArray s, FormatReader reader, TranslatorContext translatorContext, List<String> inputFieldList, Map<String, String> registry) throws Exception {
-        logger.trace("Enter {} encoder, name {}, with input fields {}", this.getClass().getSimpleName(), this.name, inputFieldList);
+    public void doEncode(BitArray s, FormatReader reader, TranslatorContext translatorContext, BitSet presentFields, ParameterBinding binding) throws Exception {
+        logger.trace("Enter {} encoder, name {}, with input fields {}", this.getClass().getSimpleName(), this.name, presentFields);
         if (hasEllipsis || optionalExtensionMarker || (extensionAndException != -1)) {
-            for (Field field : additionnalFieldList) {
-                if (inputFieldList.contains(field.getName())) {
-                    throw new NotHandledCaseException();
-                }
+            //Extension additions are indexed after the root fields
+            if (presentFields.nextSetBit(fieldList.size()) != -1) {
+                throw new NotHandledCaseException();
             }
             s.writeBit(0);
         }
 
-        //Build preamble (bit-map)
-        BigInteger preambleLength = BigInteger.ZERO;
+        //Build preamble (bit-map), written 64 bits at a time
+        if (rootSequenceOptionalCount > 65536) {
+            throw new NotHandledCaseException("Preamble fragmentation");
+        }
+        long preamble = 0;
+        int preambleLength = 0;
         for (Field field : fieldList) {
             if (field.getOptionnal()) {
-                preambleLength = preambleLength.add(BigInteger.ONE);
-                if (inputFieldList.contains(field.getName())) {
-                    s.writeBit(1);
-                } else {
-                    s.writeBit(0);
+                preamble = (preamble << 1) | (presentFields.get(field.getIndex()) ? 1 : 0);
+                preambleLength++;
+                if (preambleLength == 64) {
+                    s.writeBits(preamble, 64);
+                    preamble = 0;
+                    preambleLength = 0;
                 }
             }
         }
-
-        if (preambleLength.compareTo(BigInteger.valueOf(65536)) > 0) {
-            throw new NotHandledCaseException("Preamble fragmentation");
-        }
+        s.writeBits(preamble, preambleLength);
 
         for (Field field : fieldList) {
-            if (inputFieldList.contains(field.getName())) {
+            if (presentFields.get(field.getIndex())) {
                 logger.trace("Encode field " + field.getName());
+                translatorContext.setTarget(field.getKeySlot());
                 AbstractTranslator typeTranslator = field.getType();
-                List<String> parameters = typeTranslator.getParameters();
-                if (parameters.isEmpty()) {
-                    field.getType().encode(field.getName(), s, reader, translatorContext);
+                if (!typeTranslator.isParameterized()) {
+                    typeTranslator.encode(field.getName(), s, reader, translatorContext);
                 } else {
-                    //Building parameter list to pass to target translator
-                    List<String> inputParameters = new ArrayList<>();
-                    for (String parameter : field.getParameters()) {
-                        inputParameters.add(registry.get(parameter));
-                    }
-                    typeTranslator.encode(field.getName(), s, reader, translatorContext, inputParameters);
+                    typeTranslator.encode(field.getName(), s, reader, translatorContext, getFieldBinding(binding, field));
                 }
             } else {
                 if (!field.getOptionnal()) {
@@ -87,9 +81,8 @@ public class PERSequenceTranslator extends AbstractSequenceTranslator {
     }
 
     @Override
-    public void doDecode(BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, Map<String, String> registry) throws Exception {
+    public void doDecode(BitInputStream s, FormatWriter writer, TranslatorContext translatorContext, ParameterBinding binding) throws Exception {
         logger.trace("{} : {}", this.name, this);
-        boolean rootSequenceHasOptional = false;
         boolean isExtendedSequence = false;
 
         if (hasEllipsis || optionalExtensionMarker || (extensionAndException != -1)) {
@@ -98,37 +91,42 @@ public class PERSequenceTranslator extends AbstractSequenceTranslator {
 
         logger.trace("{} : isExtendedSequence : {}", this.name, isExtendedSequence);
 
-        for (Field field : fieldList) {
-            if (field.getOptionnal()) {
-                rootSequenceHasOptional = true;
-                break;
+        //Preamble (bit-map) is kept on the stack : up to 64 bits in a long, an array beyond
+        long preamble = 0;
+        boolean[] largePreamble = null;
+        if (rootSequenceOptionalCount <= 64) {
+            preamble = s.readBits(rootSequenceOptionalCount);
+        } else {
+            largePreamble = new boolean[rootSequenceOptionalCount];
+            for (int i = 0; i < largePreamble.length; i++) {
+                largePreamble[i] = (1 == s.readBit());
             }
         }
 
-        if (rootSequenceHasOptional) {
-            for (int i = 0; i < optionalBitmap.length; i++) {
-                optionalBitmap[i] = (1 == s.readBit());
-            }
+        if (logger.isTraceEnabled()) {
+            logger.trace("{} : optional bitmap is {}", this.name, largePreamble == null ? Long.toBinaryString(preamble) : Arrays.toString(largePreamble));
         }
 
-        logger.trace("{} : optional bitmap is {}", this.name, optionalBitmap);
-
         int optionalBitmapIndex = 0;
 
         for (Field field : fieldList) {
-            if (!field.getOptionnal() || optionalBitmap[optionalBitmapIndex++]) {
+            boolean present = true;
+            if (field.getOptionnal()) {
+                if (largePreamble == null) {
+                    present = ((preamble >>> (rootSequenceOptionalCount - 1 - optionalBitmapIndex)) & 1) != 0;
+                } else {
+                    present = largePreamble[optionalBitmapIndex];
+                }
+                optionalBitmapIndex++;
+            }
+            if (present) {
                 logger.trace("{} : decode field {} ", this.name, field.getName());
+                translatorContext.setTarget(field.getKeySlot());
                 AbstractTranslator typeTranslator = field.getType();
-                List<String> parameters = typeTranslator.getParameters();
-                if (parameters.isEmpty()) {
+                if (!typeTranslator.isParameterized()) {
                     typeTranslator.decode(field.getName(), s, writer, translatorContext);
                 } else {
-                    //Building parameter list to pass to target translator
-                    List<String> inputParameters = new ArrayList<>();
-                    for (String parameter : field.getParameters()) {
-                        inputParameters.add(registry.get(parameter));
-                    }
-                    typeTranslator.decode(field.getName(), s, writer, translatorContext, inputParameters);
+                    typeTranslator.decode(field.getName(), s, writer, translatorContext, getFieldBinding(binding, field));
                 }
             }
         }
@@ -167,19 +165,19 @@ public class PERSequenceTranslator extends AbstractSequenceTranslator {
                 }
 
                 if (additionalBit) {
-                    byte[] data = s.readAlignedByteArray(perTranscoder.decodeLengthDeterminant(s));
+                    BitInputStream data = perTranscoder.decodeContentOctets(s, perTranscoder.decodeLengthDeterminant(s));
                     // TODO : decode for real (and display octetstring for unknown)
                     AbstractTranslator typeTranslator;
                     if (null != field) {
+                        translatorContext.setTarget(field.getKeySlot());
                         typeTranslator = field.getType();
-                        List<String> parameters = typeTranslator.getParameters();
-                        if (parameters.isEmpty()) {
-                            typeTranslator.decode(field.getName(), new BitInputStream(new ByteArrayInputStream(data)), writer, translatorContext);
+                        if (!typeTranslator.isParameterized()) {
+                            typeTranslator.decode(field.getName(), data, writer, translatorContext);
                         } else {
-                            throw new NotHandledCaseException("Case of extension with parameters not handled yet");
+                            typeTranslator.decode(field.getName(), data, writer, translatorContext, getFieldBinding(binding, field));
                         }
                     } else {
-                        logger.error("skipped additional field of " + data.length + " bytes");
+                        logger.error("skipped additional field of " + data.available() + " bytes");
                     }
                 }
             }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1.translator;
+
+import com.ericsson.mts.asn1.ASN1Translator;
+import com.ericsson.mts.asn1.PERPlan;
+import com.ericsson.mts.asn1.exception.NotHandledCaseException;
+import org.javatuples.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describe compiled PER translators as {@link PERTypeDescriptor}s. A type is described once : parameterized types once
+ * per list of actual values, object sets excepted since open types are described as octets. Types that the PER
+ * translators don't handle, and the types using them, can't be described.
+ */
+public final class PERTypeDescriber {
+    private final ASN1Translator asn1Translator;
+    private final Map<Object, PERTypeDescriptor> descriptors = new HashMap<>();
+    //Keys added while describing a type, removed if it fails
+    private final List<Object> addedKeys = new ArrayList<>();
+
+    /**
+     * @param asn1Translator translator whose types are described, once parsed
+     */
+    public PERTypeDescriber(ASN1Translator asn1Translator) {
+        this.asn1Translator = asn1Translator;
+    }
+
+    /**
+     * @param translator translator of a type without parameters, from a compiled registry
+     * @return description of the type, the same instance for the types already described
+     * @throws NotHandledCaseException if the type, or one of its components, isn't handled
+     */
+    public PERTypeDescriptor describe(AbstractTranslator translator) {
+        addedKeys.clear();
+        try {
+            return describe(translator, null);
+        } catch (RuntimeException e) {
+            for (Object key : addedKeys) {
+                descriptors.remove(key);
+            }
+            throw e;
+        }
+    }
+
+    private PERTypeDescriptor describe(AbstractTranslator translator, ParameterBinding binding) {
+        if (binding == null && translator.isParameterized()) {
+            throw new NotHandledCaseException("Type " + translator.getName() + " without parameters " + translator.getParameters());
+        }
+        ParameterBinding resolvedBinding = binding == null ? translator.getBinding(Collections.emptyList()) : binding;
+        Object key = key(translator, resolvedBinding);
+        PERTypeDescriptor descriptor = descriptors.get(key);
+        if (descriptor == null) {
+            descriptor = createDescriptor(translator, resolvedBinding, key);
+            register(key, descriptor);
+        }
+        return descriptor;
+    }
+
+    /**
+     * Object sets only change the content of open types and are left out of the key.
+     */
+    private Object key(AbstractTranslator translator, ParameterBinding binding) {
+        if (!translator.isParameterized()) {
+            return translator;
+        }
+        List<Object> key = new ArrayList<>();
+        key.add(translator);
+        for (String value : binding) {
+            if (!asn1Translator.isObjectSet(value)) {
+                key.add(value);
+            }
+        }
+        return key;
+    }
+
+    private void register(Object key, PERTypeDescriptor descriptor) {
+        if (descriptors.put(key, descriptor) == null) {
+            addedKeys.add(key);
+        }
+    }
+
+    private PERTypeDescriptor createDescriptor(AbstractTranslator translator, ParameterBinding binding, Object key) {
+        String name = translator.getName();
+        if (translator instanceof ReferenceTranslator) {
+            ReferenceTranslator referenceTranslator = (ReferenceTranslator) translator;
+            return describe(referenceTranslator.getReferencedTranslator(), referenceTranslator.getReferencedBinding(binding));
+        } else if (translator instanceof PERBooleanTranslator) {
+            return new PERTypeDescriptor(PERTypeDescriptor.Kind.BOOLEAN, name, null, false);
+        } else if (translator instanceof PERIntegerTranslator) {
+            PERPlan plan = ((PERIntegerTranslator) translator).plan();
+            if (plan.getClause() != PERPlan.Clause.FIXED && plan.getClause() != PERPlan.Clause.INDEFINITE_LENGTH) {
+                throw new NotHandledCaseException("Integer " + name + " : " + plan);
+            }
+            return new PERTypeDescriptor(PERTypeDescriptor.Kind.INTEGER, name, plan, plan.isExtensible());
+        } else if (translator instanceof PEREnumeratedTranslator) {
+            PEREnumeratedTranslator enumeratedTranslator = (PEREnumeratedTranslator) translator;
+            PERTypeDescriptor descriptor = new PERTypeDescriptor(PERTypeDescriptor.Kind.ENUMERATED, name, null, enumeratedTranslator.hasExtensionMarker);
+            descriptor.values.addAll(enumeratedTranslator.fieldList);
+            descriptor.values.addAll(enumeratedTranslator.additionalFieldsList);
+            descriptor.rootCount = enumeratedTranslator.fieldList.size();
+            return descriptor;
+        } else if (translator instanceof PEROctetStringTranslator) {
+            return lengthDescriptor(PERTypeDescriptor.Kind.OCTET_STRING, name, ((PEROctetStringTranslator) translator).plan());
+        } else if (translator instanceof PERBitStringTranslator) {
+            return lengthDescriptor(PERTypeDescriptor.Kind.BIT_STRING, name, ((PERBitStringTranslator) translator).plan());
+        } else if (translator instanceof PERRestrictedCharacterStringTranslator) {
+            return lengthDescriptor(PERTypeDescriptor.Kind.CHARACTER_STRING, name, ((PERRestrictedCharacterStringTranslator) translator).plan());
+        } else if (translator instanceof PERSequenceTranslator) {
+            PERSequenceTranslator sequenceTranslator = (PERSequenceTranslator) translator;
+            boolean extensible = sequenceTranslator.hasEllipsis || sequenceTranslator.optionalExtensionMarker || (sequenceTranslator.extensionAndException != -1);
+            PERTypeDescriptor descriptor = new PERTypeDescriptor(PERTypeDescriptor.Kind.SEQUENCE, name, null, extensible);
+            register(key, descriptor);
+            List<AbstractSequenceTranslator.Field> fields = new ArrayList<>(sequenceTranslator.fieldList);
+            fields.addAll(sequenceTranslator.additionnalFieldList);
+            for (AbstractSequenceTranslator.Field field : fields) {
+                PERTypeDescriptor type = describe(field.getType(), sequenceTranslator.getFieldBinding(binding, field));
+                descriptor.components.add(new PERTypeDescriptor.Component(field.getName(), field.getOptionnal(), type));
+            }
+            descriptor.rootCount = sequenceTranslator.fieldList.size();
+            return descriptor;
+        } else if (translator instanceof PERChoiceTranslator) {
+            PERChoiceTranslator choiceTranslator = (PERChoiceTranslator) translator;
+            if (choiceTranslator.fieldList.isEmpty()) {
+                throw new NotHandledCaseException("Empty choice " + name);
+            }
+            PERTypeDescriptor descriptor = new PERTypeDescriptor(PERTypeDescriptor.Kind.CHOICE, name, null, choiceTranslator.optionalExtensionMarker);
+            register(key, descriptor);
+            List<Pair<String, AbstractTranslator>> alternatives = new ArrayList<>(choiceTranslator.fieldList);
+            alternatives.addAll(choiceTranslator.extensionFieldList);
+            for (Pair<String, AbstractTranslator> alternative : alternatives) {
+                descriptor.components.add(new PERTypeDescriptor.Component(alternative.getValue0(), false, describe(alternative.getValue1(), null)));
+            }
+            descriptor.rootCount = choiceTranslator.fieldList.size();
+            return descriptor;
+        } else if (translator instanceof PERSequenceOfTranslator) {
+            PERSequenceOfTranslator sequenceOfTranslator = (PERSequenceOfTranslator) translator;
+            PERPlan plan = sequenceOfTranslator.resolvePlan(binding);
+            if (plan.getClause() == PERPlan.Clause.NOT_HANDLED
+                    || (plan.getClause() == PERPlan.Clause.CONSTRAINED_LENGTH && plan.getLb() > plan.getUb())) {
+                throw new NotHandledCaseException("Sequence of " + name + " : " + plan);
+            }
+            PERTypeDescriptor descriptor = new PERTypeDescriptor(PERTypeDescriptor.Kind.SEQUENCE_OF, name, plan, false);
+            register(key, descriptor);
+            PERTypeDescriptor type = describe(sequenceOfTranslator.typeTranslator, sequenceOfTranslator.getComponentBinding(binding));
+            descriptor.components.add(new PERTypeDescriptor.Component(null, false, type));
+            return descriptor;
+        } else if (translator instanceof PERObjectClassFieldTranslator) {
+            PERObjectClassFieldTranslator objectClassFieldTranslator = (PERObjectClassFieldTranslator) translator;
+            if (!objectClassFieldTranslator.constraints.hasSingleValueConstraints()) {
+                AbstractTranslator typeTranslator = objectClassFieldTranslator.classHandler.getTypeTranslator(objectClassFieldTranslator.fieldName);
+                if (typeTranslator != null) {
+                    return describe(typeTranslator, null);
+                } else if (objectClassFieldTranslator.targetSlot >= 0) {
+                    return new PERTypeDescriptor(PERTypeDescriptor.Kind.OPEN_TYPE, name, null, false);
+                }
+            }
+        }
+        throw new NotHandledCaseException("Type " + name + " : " + translator.getClass().getSimpleName());
+    }
+
+    private static PERTypeDescriptor lengthDescriptor(PERTypeDescriptor.Kind kind, String name, PERPlan plan) {
+        if (plan.getClause() == PERPlan.Clause.NOT_HANDLED) {
+            throw new NotHandledCaseException(kind + " " + name + " : " + plan);
+        }
+        return new PERTypeDescriptor(kind, name, plan, plan.isExtensible());
+    }
+}
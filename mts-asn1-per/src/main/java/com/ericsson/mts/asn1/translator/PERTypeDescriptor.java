@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1.translator;
+
+import com.ericsson.mts.asn1.PERPlan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Description of a type as encoded in PER, built by {@link PERTypeDescriber} from the compiled translators. It gives
+ * the plans and the components of a type without its ASN.1 syntax, for code generators.
+ */
+public final class PERTypeDescriptor {
+    public enum Kind {
+        BOOLEAN,
+        //Plan of the value, FIXED or INDEFINITE_LENGTH
+        INTEGER,
+        //Values are the root enumeration then the additional one
+        ENUMERATED,
+        //Plan of the length
+        OCTET_STRING,
+        //Plan of the length
+        BIT_STRING,
+        //PrintableString, plan of the length
+        CHARACTER_STRING,
+        //Components are the root fields then the extension additions
+        SEQUENCE,
+        //Components are the root alternatives then the extension ones
+        CHOICE,
+        //Plan of the length, the only component is the type of the items
+        SEQUENCE_OF,
+        //Type found in an object set, described as its octets
+        OPEN_TYPE
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final PERPlan plan;
+    private final boolean extensible;
+    final List<Component> components = new ArrayList<>();
+    int rootCount;
+    final List<String> values = new ArrayList<>();
+
+    PERTypeDescriptor(Kind kind, String name, PERPlan plan, boolean extensible) {
+        this.kind = kind;
+        this.name = name;
+        this.plan = plan;
+        this.extensible = extensible;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return name of the type assignment, null for a type defined in another one
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return plan of the value or of the length, null if the kind has none
+     */
+    public PERPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return true if there is an extension marker (SEQUENCE, CHOICE, ENUMERATED)
+     */
+    public boolean isExtensible() {
+        return extensible;
+    }
+
+    public List<Component> getComponents() {
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * @return number of components or values in the extension root
+     */
+    public int getRootCount() {
+        return rootCount;
+    }
+
+    public List<String> getValues() {
+        return Collections.unmodifiableList(values);
+    }
+
+    @Override
+    public String toString() {
+        return "PERTypeDescriptor{" +
+                "kind=" + kind +
+                ", name='" + name + '\'' +
+                ", plan=" + plan +
+                '}';
+    }
+
+    /**
+     * Field of a sequence, alternative of a choice or item of a sequence of.
+     */
+    public static final class Component {
+        private final String name;
+        private final boolean optional;
+        private final PERTypeDescriptor type;
+
+        Component(String name, boolean optional, PERTypeDescriptor type) {
+            this.name = name;
+            this.optional = optional;
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isOptional() {
+            return optional;
+        }
+
+        public PERTypeDescriptor getType() {
+            return type;
+        }
+    }
+}
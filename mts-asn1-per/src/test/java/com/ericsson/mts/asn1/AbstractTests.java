@@ -10,6 +10,7 @@
 
 package com.ericsson.mts.asn1;
 
+import com.ericsson.mts.asn1.factory.FormatReader;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import org.apache.commons.io.IOUtils;
@@ -23,22 +24,75 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AbstractTests {
     static ASN1Translator asn1Translator;
-    private ObjectMapper mapper = new ObjectMapper();
+    private static ObjectMapper mapper = new ObjectMapper();
     private ObjectWriter writer = mapper.writer();
     protected Logger logger = LoggerFactory.getLogger(this.getClass().getSimpleName());
 
+    /**
+     * @return new translator of the S1AP grammar, translators not parsed
+     */
+    static ASN1Translator s1apTranslator() throws Exception {
+        return new ASN1Translator(new PERTranslatorFactory(true), Collections.singletonList(AbstractTests.class.getResourceAsStream("/grammar/S1AP/S1AP.asn")));
+    }
+
+    /**
+     * @return binary messages of the S1AP corpus, sorted by path
+     */
+    static List<Path> s1apCorpus() throws Exception {
+        List<Path> paths;
+        try (Stream<Path> stream = Files.walk(Paths.get(AbstractTests.class.getResource("/data/S1AP").toURI()))) {
+            paths = stream.filter(path -> path.toString().endsWith(".bin")).sorted().collect(Collectors.toList());
+        }
+        assertFalse(paths.isEmpty());
+        return paths;
+    }
+
+    /**
+     * @return JSON text of a message decoded with the JSON tree writer
+     */
+    static String decode(ASN1Codec codec, byte[] message) throws Exception {
+        JSONFormatWriter formatWriter = new JSONFormatWriter();
+        codec.decode(message, formatWriter);
+        return mapper.writeValueAsString(formatWriter.getJsonNode());
+    }
+
+    /**
+     * @return hexadecimal encoding of the values of formatReader, encoding errors are thrown
+     */
+    static String encode(ASN1Codec codec, FormatReader formatReader) throws Exception {
+        BitArray bitArray = new BitArray();
+        codec.encode(bitArray, formatReader);
+        return bitArray.getBinaryMessage();
+    }
+
+    /**
+     * @return hexadecimal encoding of a JSON text
+     */
+    static String encode(ASN1Codec codec, String json) throws Exception {
+        return encode(codec, new JSONFormatReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), codec.getTypeName()));
+    }
+
     void test(String type, String binaryPath, String expectedJsonPath, String expectedXmlPath) throws Exception {
         testEncode(type, binaryPath, expectedJsonPath, expectedXmlPath);
         testDecode(type, binaryPath, expectedJsonPath, expectedXmlPath);
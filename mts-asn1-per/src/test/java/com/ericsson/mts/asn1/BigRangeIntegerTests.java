@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BigRangeIntegerTests {
+    private static ASN1Translator asn1Translator;
+
+    @BeforeAll
+    static void init() throws Exception {
+        asn1Translator = new ASN1Translator(new PERTranslatorFactory(true),
+                Collections.singletonList(BigRangeIntegerTests.class.getResourceAsStream("/grammar/bigrange/bigrange.asn")));
+    }
+
+    @Test
+    void smallOffsetFromPositiveLowerBound() throws Exception {
+        //length 1 over 4 bits (1..9), then one aligned octet holding value - lb = 5
+        roundTrip("Offset", "{\"value\": 1005}", "0005");
+    }
+
+    @Test
+    void largeOffsetFromPositiveLowerBound() throws Exception {
+        //value - lb = 2^70 needs 9 octets, length field is 9 - 1
+        roundTrip("Offset", "{\"value\": 1180591620717411304424}", "80400000000000000000");
+    }
+
+    @Test
+    void smallOffsetFromNegativeLowerBound() throws Exception {
+        roundTrip("Negative", "{\"value\": -1180591620717411303419}", "0005");
+    }
+
+    private void roundTrip(String type, String json, String expectedHex) throws Exception {
+        BitArray bitArray = new BitArray();
+        asn1Translator.encode(type, bitArray, new JSONFormatReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), type));
+        assertEquals(expectedHex, bitArray.getBinaryMessage().toUpperCase());
+
+        JSONFormatWriter formatWriter = new JSONFormatWriter();
+        asn1Translator.decode(type, bitArray.getBinaryArray(), formatWriter);
+        assertJsonEquals(json, formatWriter.getJsonNode().toString());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.factory.FormatWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Bits packed by BitArray, when it grows and when writes are not aligned, and bits patched or inserted afterwards.
+ */
+class BitArrayTests {
+
+    @Test
+    void writeBits64Unaligned() {
+        BitArray bitArray = new BitArray();
+        bitArray.writeBits(0x5, 3);
+        bitArray.writeBits(0xFEDCBA9876543210L, 64);
+        assertEquals(67, bitArray.getLength());
+        assertEquals(9, bitArray.getByteLength());
+        assertEquals("BFDB97530ECA864200", bitArray.getBinaryMessage());
+    }
+
+    @Test
+    void growFromOneByte() throws Exception {
+        BitArray bitArray = new BitArray(1);
+        for (int i = 0; i < 100; i++) {
+            bitArray.writeBit(i % 3 == 0 ? 1 : 0);
+            bitArray.write(i);
+        }
+        assertEquals(900, bitArray.getLength());
+        BitInputStream stream = new BitInputStream(bitArray.getBinaryArray());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 3 == 0 ? 1 : 0, stream.readBit());
+            assertEquals(i, stream.readBits(8));
+        }
+    }
+
+    @Test
+    void writeBytesUnaligned() {
+        BitArray bitArray = new BitArray(2);
+        bitArray.writeBit(1);
+        bitArray.writeBytes(new byte[]{(byte) 0xFF, (byte) 0x01, (byte) 0x80, (byte) 0x7F}, 1, 3);
+        assertEquals(25, bitArray.getLength());
+        assertEquals("80C03F80", bitArray.getBinaryMessage());
+    }
+
+    @Test
+    void concatUnaligned() throws Exception {
+        BitArray tail = new BitArray();
+        tail.writeBits(0xABC, 12);
+        tail.writeBits(0x1, 2);
+        BitArray bitArray = new BitArray();
+        bitArray.writeBits(0x3, 2);
+        bitArray.concatBitArray(tail);
+        assertEquals(16, bitArray.getLength());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        bitArray.writeTo(outputStream);
+        assertEquals("EAF1", FormatWriter.bytesToHex(outputStream.toByteArray()));
+    }
+
+    @Test
+    void clearKeepsNoBits() {
+        BitArray bitArray = new BitArray(1);
+        bitArray.writeBits(0xFFFFFFFFL, 32);
+        bitArray.clear();
+        assertEquals(0, bitArray.getLength());
+        bitArray.writeBits(0x1, 3);
+        assertEquals("20", bitArray.getBinaryMessage());
+    }
+
+    @Test
+    void setBitsKeepsNeighbours() {
+        BitArray bitArray = new BitArray();
+        bitArray.writeBits(0xFFFFF, 20);
+        //Bits 5 to 14, across the first two octets
+        bitArray.setBits(5, 0x296, 10);
+        assertEquals(20, bitArray.getLength());
+        assertEquals("FD2DF0", bitArray.getBinaryMessage());
+    }
+
+    @Test
+    void setBits64Unaligned() {
+        BitArray bitArray = new BitArray();
+        bitArray.writeBits(0, 64);
+        bitArray.writeBits(0, 6);
+        bitArray.setBits(3, 0xFEDCBA9876543210L, 64);
+        assertEquals("1FDB97530ECA864200", bitArray.getBinaryMessage());
+        assertThrows(IndexOutOfBoundsException.class, () -> bitArray.setBits(70, 0, 8));
+    }
+
+    @Test
+    void insertOctetUnaligned() {
+        BitArray bitArray = new BitArray(1);
+        bitArray.writeBits(0xABC, 12);
+        bitArray.writeBits(0x5, 3);
+        bitArray.insertOctet(4);
+        assertEquals(23, bitArray.getLength());
+        bitArray.setBits(4, 0x7F, 8);
+        assertEquals("A7FBCA", bitArray.getBinaryMessage());
+    }
+
+    @Test
+    void insertOctetAtEnd() {
+        BitArray bitArray = new BitArray(1);
+        bitArray.writeBits(0x7, 3);
+        bitArray.insertOctet(3);
+        bitArray.writeBit(1);
+        assertEquals(12, bitArray.getLength());
+        assertEquals("E010", bitArray.getBinaryMessage());
+        assertThrows(IndexOutOfBoundsException.class, () -> bitArray.insertOctet(17));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Reads through the 64-bit cache of BitInputStream : whole cache words, reads crossing a refill and the end of the
+ * stream, slices, which are only taken on an octet boundary, and reads from an InputStream.
+ */
+class BitInputStreamTests {
+    private static final byte[] BYTES = {
+            (byte) 0x01, (byte) 0x23, (byte) 0x45, (byte) 0x67, (byte) 0x89, (byte) 0xAB, (byte) 0xCD, (byte) 0xEF,
+            (byte) 0xFE, (byte) 0xDC, (byte) 0xBA, (byte) 0x98, (byte) 0x76, (byte) 0x54, (byte) 0x32, (byte) 0x10,
+            (byte) 0xA5
+    };
+
+    @Test
+    void readBits64() throws Exception {
+        BitInputStream stream = new BitInputStream(BYTES);
+        assertEquals(0x0123456789ABCDEFL, stream.readBits(64));
+        assertEquals(0xFEDCBA9876543210L, stream.readBits(64));
+        assertEquals(128, stream.getBitPosition());
+        assertEquals(0xA5, stream.readBits(8));
+    }
+
+    @Test
+    void readBits64Unaligned() throws Exception {
+        BitInputStream stream = new BitInputStream(BYTES);
+        assertEquals(0x0, stream.readBits(4));
+        //Bits 4 to 67 : 60 bits left in the first cache word and 4 bits of the next one
+        assertEquals(0x123456789ABCDEFFL, stream.readBits(64));
+        assertEquals(68, stream.getBitPosition());
+        assertEquals(0xEDCBA9876543210AL, stream.readBits(64));
+        assertEquals(0x5, stream.readBits(4));
+        assertEquals(0, stream.remainingBits());
+    }
+
+    @Test
+    void readAcrossRefill() throws Exception {
+        BitInputStream stream = new BitInputStream(BYTES);
+        assertEquals(0x0123456789ABCDL, stream.readBits(56));
+        //8 bits left in the cache, the 13 others come from the next word
+        assertEquals(0x1DFFDBL, stream.readBits(21));
+        assertEquals(77, stream.getBitPosition());
+        assertEquals(0x1, stream.readBit());
+        assertEquals(0x0, stream.readBit());
+        assertEquals(0x0, stream.readBit());
+        assertEquals(0xBA, stream.readBits(8));
+    }
+
+    @Test
+    void readShortTail() throws Exception {
+        //Less than 8 octets left : the cache is refilled octet by octet
+        BitInputStream stream = new BitInputStream(BYTES, 12, 5);
+        assertEquals(0x3, stream.readBits(3));
+        assertEquals(0x16543210A5L, stream.readBits(37));
+        assertEquals(0, stream.remainingBits());
+    }
+
+    @Test
+    void endOfStream() throws Exception {
+        BitInputStream stream = new BitInputStream(BYTES, 0, 8);
+        assertEquals(0x0, stream.readBits(7));
+        assertThrows(EOFException.class, () -> stream.readBits(64));
+        //A failed read doesn't consume bits
+        assertEquals(7, stream.getBitPosition());
+        assertEquals(0x123456789ABCDEFL, stream.readBits(57));
+        assertEquals(0, stream.remainingBits());
+        assertEquals(0, stream.readBits(0));
+        assertThrows(EOFException.class, stream::readBit);
+        assertThrows(EOFException.class, stream::read);
+        assertEquals(-1, stream.read(new byte[1], 0, 1));
+    }
+
+    @Test
+    void sliceFromUnalignedPosition() throws Exception {
+        BitInputStream stream = new BitInputStream(BYTES);
+        assertEquals(0x0, stream.readBits(3));
+        //No padding is skipped by the stream itself, the slice is refused and the position kept
+        assertThrows(IllegalStateException.class, () -> stream.slice(2));
+        assertEquals(3, stream.getBitPosition());
+        stream.skipUnreadedBits();
+        BitInputStream slice = stream.slice(2);
+        assertEquals(24, stream.getBitPosition());
+        assertEquals(0x67, stream.readBits(8));
+        assertArrayEquals(new byte[]{(byte) 0x23, (byte) 0x45}, slice.toByteArray());
+        assertEquals(0x1, slice.readBits(3));
+        assertEquals(0x345, slice.readBits(13));
+        assertThrows(EOFException.class, slice::readBit);
+    }
+
+    @Test
+    void sliceOfCachedOctets() throws Exception {
+        BitInputStream stream = new BitInputStream(BYTES);
+        //The 7 next octets are in the cache, the slice is taken from the buffer
+        assertEquals(0x01, stream.readBits(8));
+        BitInputStream slice = stream.slice(10);
+        assertEquals(88, stream.getBitPosition());
+        assertEquals(0x98, stream.readBits(8));
+        assertEquals(80, slice.remainingBits());
+        assertEquals(0x23456789ABCDEFFEL, slice.readBits(64));
+        assertThrows(EOFException.class, () -> slice.readBits(17));
+        assertEquals(0xDCBA, slice.readBits(16));
+    }
+
+    @Test
+    void sliceOfSlice() throws Exception {
+        BitInputStream slice = new BitInputStream(BYTES).slice(12);
+        slice.readBits(24);
+        BitInputStream inner = slice.slice(3);
+        assertArrayEquals(new byte[]{(byte) 0x67, (byte) 0x89, (byte) 0xAB}, inner.toByteArray());
+        assertThrows(EOFException.class, () -> slice.slice(7));
+        assertEquals(0xCDEFFEDCBA98L, slice.slice(6).readBits(48));
+    }
+
+    @Test
+    void markAndReset() throws Exception {
+        BitInputStream stream = new BitInputStream(BYTES);
+        stream.readBits(60);
+        stream.mark(0);
+        assertEquals(0xFFEDCL, stream.readBits(20));
+        stream.reset();
+        assertEquals(60, stream.getBitPosition());
+        assertEquals(0xFFEDCL, stream.readBits(20));
+    }
+
+    @Test
+    void streamReadAsBitsAreNeeded() throws Exception {
+        ByteArrayInputStream byteStream = new ByteArrayInputStream(BYTES);
+        BitInputStream stream = new BitInputStream(byteStream);
+        assertEquals(0x0, stream.readBits(4));
+        assertEquals(16, byteStream.available());
+        assertEquals(0x1234, stream.readBits(16));
+        assertEquals(14, byteStream.available());
+        //The rest of the third octet is padding, the next message starts on the fourth one
+        BitInputStream next = new BitInputStream(byteStream);
+        assertEquals(0x67, next.readBits(8));
+        assertArrayEquals(new byte[]{(byte) 0x89, (byte) 0xAB}, next.slice(2).toByteArray());
+        assertEquals(11, byteStream.available());
+        assertEquals(0xCDEFFEDCBA987654L, next.readBits(64));
+        assertThrows(EOFException.class, () -> next.readBits(32));
+        assertEquals(0x3210A5, next.readBits(24));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OctetStringAlignmentTests {
+
+    @Test
+    void alignedFixedSize() throws Exception {
+        //flag bit, padding, then the 3 octets
+        roundTrip(true, "Fixed", "{\"flag\": true, \"value\": \"0A0B0C\"}", "800A0B0C");
+    }
+
+    @Test
+    void unalignedFixedSize() throws Exception {
+        //flag bit directly followed by the 3 octets
+        roundTrip(false, "Fixed", "{\"flag\": true, \"value\": \"0A0B0C\"}", "85058600");
+    }
+
+    @Test
+    void alignedUnbounded() throws Exception {
+        roundTrip(true, "Unbounded", "{\"flag\": true, \"value\": \"0A0B0C\"}", "80030A0B0C");
+    }
+
+    @Test
+    void unalignedUnbounded() throws Exception {
+        //flag bit, length 3 and the octets without padding
+        roundTrip(false, "Unbounded", "{\"flag\": true, \"value\": \"0A0B0C\"}", "8185058600");
+    }
+
+    private void roundTrip(boolean aligned, String type, String json, String expectedHex) throws Exception {
+        ASN1Translator asn1Translator = new ASN1Translator(new PERTranslatorFactory(aligned),
+                Collections.singletonList(OctetStringAlignmentTests.class.getResourceAsStream("/grammar/octetstring/octetstring.asn")));
+        BitArray bitArray = new BitArray();
+        asn1Translator.encode(type, bitArray, new JSONFormatReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), type));
+        assertEquals(expectedHex, bitArray.getBinaryMessage().toUpperCase());
+
+        JSONFormatWriter formatWriter = new JSONFormatWriter();
+        asn1Translator.decode(type, bitArray.getBinaryArray(), formatWriter);
+        assertJsonEquals(json, formatWriter.getJsonNode().toString());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static net.javacrumbs.jsonunit.JsonAssert.assertJsonEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Content octets starting in the middle of an octet in the UNALIGNED variant, decoded with the interpreted, the
+ * compiled and the program codecs.
+ */
+class OpenTypeAlignmentTests {
+
+    @Test
+    void alignedOpenType() throws Exception {
+        //flag bit, id 1 on 4 bits, padding, length 1 and the counter
+        roundTrip(true, "Message", "{\"flag\": true, \"id\": 1, \"value\": {\"Counter\": 5}}", "880105");
+    }
+
+    @Test
+    void unalignedOpenType() throws Exception {
+        //flag bit and id 1 directly followed by length 1 and the counter
+        roundTrip(false, "Message", "{\"flag\": true, \"id\": 1, \"value\": {\"Counter\": 5}}", "880828");
+    }
+
+    @Test
+    void unalignedOpenTypeOfSeveralOctets() throws Exception {
+        roundTrip(false, "Message", "{\"flag\": false, \"id\": 2, \"value\": {\"Label\": \"ABCD\"}}", "10155E68");
+    }
+
+    @Test
+    void alignedExtensionAddition() throws Exception {
+        //extension bit, flag bit, bitmap length 0 on 7 bits, bitmap, padding, length 1 and the count
+        decode(true, "Extended", "C0400107", "{\"flag\": true, \"count\": 7}");
+    }
+
+    @Test
+    void unalignedExtensionAddition() throws Exception {
+        decode(false, "Extended", "C04041C0", "{\"flag\": true, \"count\": 7}");
+    }
+
+    private void roundTrip(boolean aligned, String type, String json, String expectedHex) throws Exception {
+        BitArray bitArray = new BitArray();
+        translator(new PERTranslatorFactory(aligned)).encode(type, bitArray, new JSONFormatReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), type));
+        assertEquals(expectedHex, bitArray.getBinaryMessage().toUpperCase());
+        decode(aligned, type, expectedHex, json);
+    }
+
+    /**
+     * Decode only : the encoding of extension additions is not handled
+     */
+    private void decode(boolean aligned, String type, String hex, String expectedJson) throws Exception {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        PERTranslatorFactory perTranslatorFactory = new PERTranslatorFactory(aligned);
+        ASN1Translator asn1Translator = translator(perTranslatorFactory);
+        asn1Translator.parseTranslators();
+        ASN1Codec interpreted = asn1Translator.codecFor(type);
+        PERCodecCompiler perCodecCompiler = new PERCodecCompiler(perTranslatorFactory.getPerTranscoder());
+        for (ASN1Codec codec : new ASN1Codec[]{interpreted, perCodecCompiler.compile(interpreted), perCodecCompiler.compileProgram(interpreted)}) {
+            JSONFormatWriter formatWriter = new JSONFormatWriter();
+            codec.decode(bytes, formatWriter);
+            assertJsonEquals(expectedJson, formatWriter.getJsonNode().toString());
+        }
+    }
+
+    private ASN1Translator translator(PERTranslatorFactory perTranslatorFactory) throws Exception {
+        return new ASN1Translator(perTranslatorFactory,
+                Collections.singletonList(OpenTypeAlignmentTests.class.getResourceAsStream("/grammar/opentype/opentype.asn")));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compare the decoding and encoding time of the interpreted, compiled and program codecs on the S1AP corpus, and
+ * decoding to and encoding from JSON and XML text and event tapes. Not run by the tests, start it with the test
+ * classpath : java com.ericsson.mts.asn1.S1APCodecBenchmark [rounds]
+ */
+public class S1APCodecBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        PERTranslatorFactory perTranslatorFactory = new PERTranslatorFactory(true);
+        ASN1Translator asn1Translator = new ASN1Translator(perTranslatorFactory, Collections.singletonList(S1APCodecBenchmark.class.getResourceAsStream("/grammar/S1AP/S1AP.asn")));
+        asn1Translator.parseTranslators();
+        ASN1Codec interpreted = asn1Translator.codecFor("S1AP-PDU");
+        PERCodecCompiler perCodecCompiler = new PERCodecCompiler(perTranslatorFactory.getPerTranscoder());
+        ASN1Codec compiled = perCodecCompiler.compile(interpreted);
+        ASN1Codec program = perCodecCompiler.compileProgram(interpreted);
+
+        List<byte[]> messages = new ArrayList<>();
+        List<String> jsons = new ArrayList<>();
+        List<byte[]> xmls = new ArrayList<>();
+        List<EventTape> tapes = new ArrayList<>();
+        for (Path path : AbstractTests.s1apCorpus()) {
+            byte[] message = Files.readAllBytes(path);
+            JSONFormatWriter formatWriter = new JSONFormatWriter();
+            interpreted.decode(message, formatWriter);
+            String json = formatWriter.getJsonNode().toString();
+            jsons.add(json);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try (XMLStreamFormatWriter xmlFormatWriter = new XMLStreamFormatWriter(outputStream, null)) {
+                interpreted.decode(message, xmlFormatWriter);
+            }
+            xmls.add(outputStream.toByteArray());
+            EventTapeFormatWriter tapeFormatWriter = new EventTapeFormatWriter();
+            interpreted.decode(message, tapeFormatWriter);
+            tapes.add(tapeFormatWriter.getTape());
+            messages.add(message);
+        }
+
+        for (int i = 0; i < 2; i++) {
+            //First pass is the warm up
+            boolean print = i == 1;
+            report(print, "decode interpreted", rounds, messages.size(), decode(interpreted, messages, rounds));
+            report(print, "decode compiled", rounds, messages.size(), decode(compiled, messages, rounds));
+            report(print, "decode program", rounds, messages.size(), decode(program, messages, rounds));
+            report(print, "json tree", rounds, messages.size(), decodeJsonTree(interpreted, messages, rounds));
+            report(print, "json stream", rounds, messages.size(), decodeJsonStream(interpreted, messages, rounds));
+            report(print, "tape", rounds, messages.size(), decodeTape(interpreted, messages, rounds));
+            report(print, "xml dom", rounds, messages.size(), decodeXmlDom(interpreted, messages, rounds));
+            report(print, "xml stream", rounds, messages.size(), decodeXmlStream(interpreted, messages, rounds));
+            report(print, "encode interpreted", rounds, jsons.size(), encode(interpreted, jsons, rounds));
+            report(print, "encode compiled", rounds, jsons.size(), encode(compiled, jsons, rounds));
+            report(print, "encode xml", rounds, xmls.size(), encodeXml(interpreted, xmls, rounds));
+            report(print, "encode tape", rounds, tapes.size(), encodeTape(interpreted, tapes, rounds));
+        }
+    }
+
+    private static long decode(ASN1Codec codec, List<byte[]> messages, int rounds) throws Exception {
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (byte[] message : messages) {
+                codec.decode(message, new JSONFormatWriter());
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long decodeJsonTree(ASN1Codec codec, List<byte[]> messages, int rounds) throws Exception {
+        OutputStream outputStream = discard();
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (byte[] message : messages) {
+                JSONFormatWriter formatWriter = new JSONFormatWriter();
+                codec.decode(message, formatWriter);
+                outputStream.write(formatWriter.getJsonNode().toString().getBytes(StandardCharsets.UTF_8));
+                outputStream.write('\n');
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long decodeJsonStream(ASN1Codec codec, List<byte[]> messages, int rounds) throws Exception {
+        long start = System.nanoTime();
+        try (JSONStreamFormatWriter formatWriter = new JSONStreamFormatWriter(discard(), true)) {
+            for (int round = 0; round < rounds; round++) {
+                for (byte[] message : messages) {
+                    codec.decode(message, formatWriter);
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long decodeXmlDom(ASN1Codec codec, List<byte[]> messages, int rounds) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StreamResult result = new StreamResult(discard());
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (byte[] message : messages) {
+                XMLFormatWriter formatWriter = new XMLFormatWriter();
+                codec.decode(message, formatWriter);
+                transformer.transform(new DOMSource(formatWriter.getResult()), result);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long decodeXmlStream(ASN1Codec codec, List<byte[]> messages, int rounds) throws Exception {
+        long start = System.nanoTime();
+        try (XMLStreamFormatWriter formatWriter = new XMLStreamFormatWriter(discard(), "messages")) {
+            for (int round = 0; round < rounds; round++) {
+                for (byte[] message : messages) {
+                    codec.decode(message, formatWriter);
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static OutputStream discard() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+    }
+
+    private static long encode(ASN1Codec codec, List<String> jsons, int rounds) throws Exception {
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String json : jsons) {
+                codec.encode(new BitArray(), new JSONFormatReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "S1AP-PDU"));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long decodeTape(ASN1Codec codec, List<byte[]> messages, int rounds) throws Exception {
+        EventTape tape = new EventTape();
+        EventTapeFormatWriter formatWriter = new EventTapeFormatWriter(tape);
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (byte[] message : messages) {
+                tape.clear();
+                codec.decode(message, formatWriter);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long encodeTape(ASN1Codec codec, List<EventTape> tapes, int rounds) throws Exception {
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (EventTape tape : tapes) {
+                codec.encode(new BitArray(), new EventTapeFormatReader(tape));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long encodeXml(ASN1Codec codec, List<byte[]> xmls, int rounds) throws Exception {
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (byte[] xml : xmls) {
+                codec.encode(new BitArray(), new XMLFormatReader(new ByteArrayInputStream(xml), "S1AP-PDU"));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(boolean print, String name, int rounds, int messageCount, long nanos) {
+        if (print) {
+            System.out.printf("%-20s %8.2f us/message%n", name, nanos / 1000.0 / rounds / messageCount);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Decode the S1AP corpus with the interpreted, the compiled and the program codecs and encode it with the first two,
+ * results must be the same.
+ */
+class S1APCompiledCodecTests extends AbstractTests {
+    private static ASN1Codec interpreted;
+    private static ASN1Codec compiled;
+    private static ASN1Codec program;
+    private static List<Path> paths;
+
+    @BeforeAll
+    static void init() throws Exception {
+        PERTranslatorFactory perTranslatorFactory = new PERTranslatorFactory(true);
+        ASN1Translator asn1Translator = new ASN1Translator(perTranslatorFactory, Collections.singletonList(S1APCompiledCodecTests.class.getResourceAsStream("/grammar/S1AP/S1AP.asn")));
+        asn1Translator.parseTranslators();
+        interpreted = asn1Translator.codecFor("S1AP-PDU");
+        PERCodecCompiler perCodecCompiler = new PERCodecCompiler(perTranslatorFactory.getPerTranscoder());
+        compiled = perCodecCompiler.compile(interpreted);
+        program = perCodecCompiler.compileProgram(interpreted);
+        paths = s1apCorpus();
+    }
+
+    @Test
+    void sameDecoding() throws Exception {
+        for (Path path : paths) {
+            byte[] message = Files.readAllBytes(path);
+            String expected = decode(interpreted, message);
+            assertEquals(expected, decode(compiled, message), path.toString());
+            assertEquals(expected, decode(program, message), path.toString());
+        }
+    }
+
+    @Test
+    void sameEncoding() throws Exception {
+        for (Path path : paths) {
+            String json = decode(interpreted, Files.readAllBytes(path));
+            String expected = encode(interpreted, json);
+            assertEquals(expected, encode(compiled, json), path.toString());
+        }
+    }
+
+    @Test
+    void programEncodesWithInterpretedTranslator() {
+        //Programs only decode
+        assertSame(interpreted.getTranslator(), program.getTranslator());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.exception.UnknownIdentifierException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Decode the S1AP corpus from several threads with one shared ASN1Codec.
+ */
+class S1APConcurrencyTests extends AbstractTests {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 3;
+
+    private static ASN1Translator translator;
+    private static ASN1Codec codec;
+    private static List<byte[]> messages = new ArrayList<>();
+    private static List<String> expected = new ArrayList<>();
+
+    @BeforeAll
+    static void init() throws Exception {
+        translator = s1apTranslator();
+        translator.parseTranslators();
+        codec = translator.codecFor("S1AP-PDU");
+        for (Path path : s1apCorpus()) {
+            byte[] message = Files.readAllBytes(path);
+            messages.add(message);
+            expected.add(decode(codec, message));
+        }
+    }
+
+    @Test
+    void unknownType() {
+        assertThrows(UnknownIdentifierException.class, () -> translator.codecFor("Unknown-PDU"));
+    }
+
+    @Test
+    void concurrentDecode() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Random random = new Random(i);
+                futures.add(executorService.submit((Callable<Integer>) () -> {
+                    int decoded = 0;
+                    for (int round = 0; round < ROUNDS; round++) {
+                        List<Integer> order = new ArrayList<>();
+                        for (int j = 0; j < messages.size(); j++) {
+                            order.add(j);
+                        }
+                        Collections.shuffle(order, random);
+                        for (int index : order) {
+                            assertEquals(expected.get(index), decode(codec, messages.get(index)));
+                            decoded++;
+                        }
+                    }
+                    return decoded;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(ROUNDS * messages.size(), (int) future.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
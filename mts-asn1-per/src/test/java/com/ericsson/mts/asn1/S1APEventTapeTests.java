@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.exception.InvalidParameterException;
+import com.ericsson.mts.asn1.factory.FormatWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Decode the S1AP corpus on an event tape : encoding from the tape must give the same result as from JSON, and
+ * replaying it into a JSON writer the same JSON. Replacing a recorded value must give the same result as changing it
+ * in the JSON.
+ */
+class S1APEventTapeTests extends AbstractTests {
+    private static ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void sameAsJson() throws Exception {
+        ASN1Translator translator = s1apTranslator();
+        translator.parseTranslators();
+        ASN1Codec codec = translator.codecFor("S1AP-PDU");
+
+        EventTape tape = new EventTape();
+        for (Path path : s1apCorpus()) {
+            byte[] message = Files.readAllBytes(path);
+            String json = decode(codec, message);
+            String expected = encode(codec, json);
+
+            //The tape is reused for each message
+            tape.clear();
+            codec.decode(message, new EventTapeFormatWriter(tape));
+            assertEquals(expected, encode(codec, new EventTapeFormatReader(tape)), path.toString());
+
+            JSONFormatWriter replayed = new JSONFormatWriter();
+            tape.replay(replayed);
+            assertEquals(json, mapper.writeValueAsString(replayed.getJsonNode()), path.toString());
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            tape.writeTo(outputStream);
+            EventTape stored = EventTape.readFrom(new ByteArrayInputStream(outputStream.toByteArray()));
+            assertEquals(expected, encode(codec, new EventTapeFormatReader(stored)), path.toString());
+        }
+    }
+
+    @Test
+    void replacedValue() throws Exception {
+        ASN1Translator translator = s1apTranslator();
+        translator.parseTranslators();
+        ASN1Codec codec = translator.codecFor("S1AP-PDU");
+        byte[] message = Files.readAllBytes(Paths.get(S1APEventTapeTests.class.getResource("/data/S1AP/id-E-RABModify/E-RABModifyResponse/E-RABModifyResponse.bin").toURI()));
+
+        EventTapeFormatWriter tapeWriter = new EventTapeFormatWriter();
+        codec.decode(message, tapeWriter);
+        BitArray bitArray = new BitArray();
+        codec.encode(bitArray, new EventTapeFormatReader(tapeWriter.getTape(), Collections.singletonMap(
+                "S1AP-PDU/successfulOutcome/value/E-RABModifyResponse/protocolIEs/1/value/ENB-UE-S1AP-ID", 12345)));
+
+        //Same change on the JSON of the message
+        JSONFormatWriter formatWriter = new JSONFormatWriter();
+        codec.decode(message, formatWriter);
+        ObjectNode ie = (ObjectNode) formatWriter.getJsonNode().at("/successfulOutcome/value/E-RABModifyResponse/protocolIEs/1/value");
+        assertEquals(646862, ie.get("ENB-UE-S1AP-ID").asInt());
+        ie.put("ENB-UE-S1AP-ID", 12345);
+        BitArray expected = new BitArray();
+        codec.encode(expected, new JSONFormatReader(new ByteArrayInputStream(mapper.writeValueAsBytes(formatWriter.getJsonNode())), "S1AP-PDU"));
+        assertEquals(expected.getBinaryMessage(), bitArray.getBinaryMessage());
+        assertNotEquals(FormatWriter.bytesToHex(message), bitArray.getBinaryMessage());
+
+        //The other values are read from the tape
+        JSONFormatWriter reencoded = new JSONFormatWriter();
+        codec.decode(bitArray.getBinaryArray(), reencoded);
+        assertEquals(mapper.writeValueAsString(formatWriter.getJsonNode()), mapper.writeValueAsString(reencoded.getJsonNode()));
+    }
+
+    @Test
+    void replacedValueNotRecorded() {
+        EventTapeFormatWriter tapeWriter = new EventTapeFormatWriter();
+        tapeWriter.enterObject("S1AP-PDU");
+        tapeWriter.leaveObject("S1AP-PDU");
+        assertThrows(InvalidParameterException.class, () -> new EventTapeFormatReader(tapeWriter.getTape(), Collections.singletonMap("S1AP-PDU/initiatingMessage", 1)));
+        assertThrows(InvalidParameterException.class, () -> new EventTapeFormatReader(tapeWriter.getTape(), Collections.singletonMap("S1AP-PDU", 1)));
+    }
+
+    @Test
+    void corruptedCounts() throws Exception {
+        assertThrows(IOException.class, () -> EventTape.readFrom(new ByteArrayInputStream(storedTape(-1, 0))));
+        assertThrows(IOException.class, () -> EventTape.readFrom(new ByteArrayInputStream(storedTape(Integer.MAX_VALUE, 0))));
+        assertThrows(IOException.class, () -> EventTape.readFrom(new ByteArrayInputStream(storedTape(0, -1))));
+        assertThrows(IOException.class, () -> EventTape.readFrom(new ByteArrayInputStream(storedTape(0, Integer.MAX_VALUE))));
+        assertEquals(0, EventTape.readFrom(new ByteArrayInputStream(storedTape(0, 0))).size());
+    }
+
+    /**
+     * Header of an empty tape with the given counts
+     */
+    private static byte[] storedTape(int nameCount, int length) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new EventTape().writeTo(outputStream);
+        byte[] header = outputStream.toByteArray();
+        outputStream.reset();
+        DataOutputStream out = new DataOutputStream(outputStream);
+        //Magic and version
+        out.write(header, 0, 8);
+        out.writeInt(nameCount);
+        out.writeInt(length);
+        return outputStream.toByteArray();
+    }
+}
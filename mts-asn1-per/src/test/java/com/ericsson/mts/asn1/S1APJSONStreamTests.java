@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Decode the S1AP corpus with the streaming JSON writer, the JSON must be the same as with the tree writer.
+ */
+class S1APJSONStreamTests extends AbstractTests {
+    @Test
+    void ndjson() throws Exception {
+        ASN1Translator asn1Translator = s1apTranslator();
+        asn1Translator.parseTranslators();
+        ASN1Codec codec = asn1Translator.codecFor("S1AP-PDU");
+
+        List<String> expected = new ArrayList<>();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (JSONStreamFormatWriter streamFormatWriter = new JSONStreamFormatWriter(outputStream, true)) {
+            for (Path path : s1apCorpus()) {
+                byte[] message = Files.readAllBytes(path);
+                expected.add(decode(codec, message));
+                codec.decode(message, streamFormatWriter);
+            }
+        }
+
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new StringReader(new String(outputStream.toByteArray(), StandardCharsets.UTF_8)))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+        assertEquals(expected, lines);
+    }
+
+    @Test
+    void writer() throws Exception {
+        ASN1Translator asn1Translator = s1apTranslator();
+        asn1Translator.parseTranslators(Collections.singletonList("Cause"));
+        ASN1Codec codec = asn1Translator.codecFor("Cause");
+        StringWriter writer = new StringWriter();
+        try (JSONStreamFormatWriter streamFormatWriter = new JSONStreamFormatWriter(writer, false)) {
+            //radioNetwork : unspecified
+            codec.decode(new byte[]{0, 0}, streamFormatWriter);
+        }
+        assertEquals(decode(codec, new byte[]{0, 0}), writer.toString());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.exception.UnknownIdentifierException;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parse only the translators reachable from root types, decoding must be the same as with all the translators.
+ */
+class S1APRootTypeTests extends AbstractTests {
+    private static final String[] NGAP = {
+            "NGAP-Common-Definitions.asn", "NGAP-Constant-Definitions.asn", "NGAP-Container-Definitions.asn",
+            "NGAP-Elementary-Procedure-Definitions.asn", "NGAP-Information-Element-Definitions.asn", "NGAP-PDU-Definitions.asn"
+    };
+
+    @Test
+    void sameDecoding() throws Exception {
+        ASN1Translator all = s1apTranslator();
+        all.parseTranslators();
+        ASN1Translator reachable = s1apTranslator();
+        reachable.parseTranslators(Collections.singletonList("S1AP-PDU"));
+
+        for (Path path : s1apCorpus()) {
+            byte[] message = Files.readAllBytes(path);
+            assertEquals(decode(all.codecFor("S1AP-PDU"), message), decode(reachable.codecFor("S1AP-PDU"), message), path.toString());
+        }
+    }
+
+    @Test
+    void unreachableTypes() throws Exception {
+        ASN1Translator reachable = s1apTranslator();
+        reachable.parseTranslators(Collections.singletonList("Cause"));
+        assertTrue(reachable.getTypeNames().contains("CauseRadioNetwork"));
+        assertThrows(UnknownIdentifierException.class, () -> reachable.codecFor("S1AP-PDU"));
+        assertThrows(UnknownIdentifierException.class, () -> s1apTranslator().parseTranslators(Collections.singletonList("Unknown-PDU")));
+    }
+
+    @Test
+    void retainedSize() throws Exception {
+        ASN1Translator all = s1apTranslator();
+        all.parseTranslators();
+        ASN1Translator reachable = s1apTranslator();
+        reachable.parseTranslators(Collections.singletonList("Cause"));
+
+        long cause = all.getRetainedSize("Cause");
+        assertTrue(cause > 0);
+        assertTrue(cause < all.getRetainedSize("S1AP-PDU"));
+        assertTrue(all.getRetainedSize("S1AP-PDU") <= all.getRetainedSize());
+        assertEquals(cause, all.getRetainedSizes().get("Cause").longValue());
+        assertEquals(cause, reachable.getRetainedSize());
+        assertThrows(UnknownIdentifierException.class, () -> all.getRetainedSize("Unknown-PDU"));
+    }
+
+    @Test
+    void noParseTreeRetained() throws Exception {
+        List<InputStream> ngap = new ArrayList<>();
+        for (String grammarFile : NGAP) {
+            ngap.add(getClass().getResourceAsStream("/grammar/NGAP/" + grammarFile));
+        }
+        for (ASN1Translator translator : Arrays.asList(s1apTranslator(), new ASN1Translator(new PERTranslatorFactory(true), ngap))) {
+            translator.parseTranslators();
+            Set<String> retained = new TreeSet<>();
+            translator.visitRetained(object -> {
+                if (object.getClass().getName().startsWith("org.antlr.")) {
+                    retained.add(object.getClass().getName());
+                }
+            });
+            assertEquals(Collections.emptySet(), retained);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import org.custommonkey.xmlunit.Diff;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Decode the S1AP corpus with the streaming XML writer, the XML must be the same as with the DOM writer. Encoding
+ * it back with the XML reader must give the same result as with JSON.
+ */
+class S1APXMLStreamTests extends AbstractTests {
+    private static ASN1Codec codec;
+    private static List<Path> paths;
+
+    @BeforeAll
+    static void init() throws Exception {
+        ASN1Translator translator = s1apTranslator();
+        translator.parseTranslators();
+        codec = translator.codecFor("S1AP-PDU");
+        paths = s1apCorpus();
+    }
+
+    @Test
+    void sameElements() throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        for (Path path : paths) {
+            byte[] message = Files.readAllBytes(path);
+            XMLFormatWriter formatWriter = new XMLFormatWriter();
+            codec.decode(message, formatWriter);
+            StringWriter expected = new StringWriter();
+            transformer.transform(new DOMSource(formatWriter.getResult()), new StreamResult(expected));
+
+            StringWriter actual = new StringWriter();
+            try (XMLStreamFormatWriter streamFormatWriter = new XMLStreamFormatWriter(actual, null)) {
+                codec.decode(message, streamFormatWriter);
+            }
+            Diff diff = XMLUnit.compareXML(expected.toString(), actual.toString());
+            assertTrue(diff.identical(), path + " " + diff);
+        }
+    }
+
+    @Test
+    void oneDocument() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (XMLStreamFormatWriter streamFormatWriter = new XMLStreamFormatWriter(outputStream, "messages")) {
+            for (Path path : paths) {
+                codec.decode(Files.readAllBytes(path), streamFormatWriter);
+            }
+        }
+        Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(outputStream.toByteArray())).getDocumentElement();
+        assertEquals("messages", root.getTagName());
+        int count = 0;
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            assertEquals("S1AP-PDU", node.getNodeName());
+            count++;
+        }
+        assertEquals(paths.size(), count);
+    }
+
+    @Test
+    void sameEncoding() throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        for (Path path : paths) {
+            byte[] message = Files.readAllBytes(path);
+            String expected = encode(codec, decode(codec, message));
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try (XMLStreamFormatWriter streamFormatWriter = new XMLStreamFormatWriter(outputStream, null)) {
+                codec.decode(message, streamFormatWriter);
+            }
+            assertEquals(expected, encode(codec, new XMLFormatReader(new ByteArrayInputStream(outputStream.toByteArray()), "S1AP-PDU")), path.toString());
+
+            //The document given to the reader isn't modified
+            XMLFormatWriter formatWriter = new XMLFormatWriter();
+            codec.decode(message, formatWriter);
+            StringWriter before = new StringWriter();
+            transformer.transform(new DOMSource(formatWriter.getResult()), new StreamResult(before));
+            assertEquals(expected, encode(codec, new XMLFormatReader(formatWriter.getResult(), "S1AP-PDU")), path.toString());
+            StringWriter after = new StringWriter();
+            transformer.transform(new DOMSource(formatWriter.getResult()), new StreamResult(after));
+            assertEquals(before.toString(), after.toString());
+        }
+    }
+}
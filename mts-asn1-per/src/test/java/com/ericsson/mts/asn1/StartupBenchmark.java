@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.ericsson.mts.asn1;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measure the time to parse the S1AP and NGAP grammar files with full LL prediction and with SLL then LL, then to
+ * parse NGAP and build its translators. The DFA cache of the parser is cleared before each start, like in a new
+ * process. Not run by the tests, start it with the test classpath : java com.ericsson.mts.asn1.StartupBenchmark [rounds]
+ */
+public class StartupBenchmark {
+    private static final String[] NGAP = {
+            "NGAP-Common-Definitions.asn", "NGAP-Constant-Definitions.asn", "NGAP-Container-Definitions.asn",
+            "NGAP-Elementary-Procedure-Definitions.asn", "NGAP-Information-Element-Definitions.asn", "NGAP-PDU-Definitions.asn"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        List<byte[]> grammarFiles = new ArrayList<>();
+        for (String grammarFile : NGAP) {
+            grammarFiles.add(readAll(StartupBenchmark.class.getResourceAsStream("/grammar/NGAP/" + grammarFile)));
+        }
+        List<byte[]> s1apGrammarFiles = Collections.singletonList(readAll(StartupBenchmark.class.getResourceAsStream("/grammar/S1AP/S1AP.asn")));
+
+        for (int i = 0; i < 2; i++) {
+            //First pass is the warm up
+            boolean print = i == 1;
+            report(print, "S1AP parse LL", rounds, parse(s1apGrammarFiles, rounds, true));
+            report(print, "S1AP parse SLL/LL", rounds, parse(s1apGrammarFiles, rounds, false));
+            report(print, "NGAP parse LL", rounds, parse(grammarFiles, rounds, true));
+            report(print, "NGAP parse SLL/LL", rounds, parse(grammarFiles, rounds, false));
+
+            long nanos = 0;
+            for (int round = 0; round < rounds; round++) {
+                clearDFA();
+                long start = System.nanoTime();
+                new ASN1Translator(new PERTranslatorFactory(true), streams(grammarFiles)).parseTranslators();
+                nanos += System.nanoTime() - start;
+            }
+            report(print, "NGAP start", rounds, nanos);
+        }
+    }
+
+    private static long parse(List<byte[]> grammarFiles, int rounds, boolean fullLL) throws Exception {
+        long nanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            clearDFA();
+            long start = System.nanoTime();
+            for (byte[] grammarFile : grammarFiles) {
+                if (fullLL) {
+                    new ASN1Parser(new CommonTokenStream(new ASN1Lexer(CharStreams.fromStream(new ByteArrayInputStream(grammarFile))))).moduleDefinition();
+                } else {
+                    ASN1Translator.parse(new ByteArrayInputStream(grammarFile));
+                }
+            }
+            nanos += System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static void clearDFA() {
+        new ASN1Parser(null).getInterpreter().clearDFA();
+    }
+
+    private static List<InputStream> streams(List<byte[]> grammarFiles) {
+        List<InputStream> streams = new ArrayList<>();
+        for (byte[] grammarFile : grammarFiles) {
+            streams.add(new ByteArrayInputStream(grammarFile));
+        }
+        return streams;
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, length);
+        }
+        inputStream.close();
+        return outputStream.toByteArray();
+    }
+
+    private static void report(boolean print, String name, int rounds, long nanos) {
+        if (print) {
+            System.out.printf("%-20s %8.1f ms%n", name, nanos / 1000000.0 / rounds);
+        }
+    }
+}
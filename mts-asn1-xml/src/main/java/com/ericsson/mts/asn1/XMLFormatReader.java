@@ -10,205 +10,166 @@
 
 package com.ericsson.mts.asn1;
 
-import com.ericsson.mts.asn1.factory.FormatReader;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.ericsson.mts.asn1.exception.EncodingException;
+import com.ericsson.mts.asn1.factory.AbstractIndexedFormatReader;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Stack;
+import java.util.Arrays;
 
-public class XMLFormatReader implements FormatReader {
-    private static String IS_ARRAY = "isArray";
-    private Logger logger = LoggerFactory.getLogger(XMLFormatReader.class.getSimpleName());
-    private String ignoredObject;
-    private Element currentNode;
-    private Stack<Element> arrayStack = new Stack<>();
+/**
+ * Read an XML document from an index of its elements, built in one pass of an XMLStreamReader (or of a DOM element).
+ * The elements are the nodes of an {@link AbstractIndexedFormatReader}, an element with child elements is an object.
+ * The document is never modified.
+ */
+public class XMLFormatReader extends AbstractIndexedFormatReader {
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    //Text of each element without child element, parent of each element
+    private String[] texts = new String[64];
+    private int[] parents = new int[64];
 
     public XMLFormatReader(Element rootNode, String type) {
-        currentNode = rootNode;
-        ignoredObject = type;
+        super(type);
+        index(rootNode, -1);
     }
 
     public XMLFormatReader(File file, String type) throws Exception {
-        this(new FileInputStream(file), type);
+        super(type);
+        try (InputStream inputStream = new FileInputStream(file)) {
+            index(inputStream);
+        }
     }
 
     public XMLFormatReader(InputStream inputStream, String type) throws Exception {
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-        dbf.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-        dbf.setXIncludeAware(false);
-        dbf.setExpandEntityReferences(false);
-        this.currentNode = dbf.newDocumentBuilder().parse(inputStream).getDocumentElement();
-        ignoredObject = type;
-    }
-
-    @Override
-    public void enterObject(String name) {
-        if (!ignoredObject.equals(name)) {
-            if (name != null) {
-                logger.trace("Enter object {}", name);
-                currentNode = getChildNode(getFromStack(currentNode), name);
-            } else {
-                if (!currentNode.getAttribute(IS_ARRAY).equals("")) {
-                    if ("".equals(currentNode.getAttribute(IS_ARRAY))) {
-                        throw new RuntimeException();
-                    }
-                    logger.trace("Enter array field ");
-                    currentNode = getFromStack(currentNode);
-                } else {
-                    throw new RuntimeException();
+        super(type);
+        index(inputStream);
+    }
+
+    private void index(InputStream inputStream) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+        try {
+            StringBuilder text = new StringBuilder();
+            int open = -1;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        String prefix = reader.getPrefix();
+                        open = add(prefix == null || prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName(), open);
+                        text.setLength(0);
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (open != -1) {
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (nodeSize(open) == 0) {
+                            texts[open] = text.toString();
+                        }
+                        closeNode(open);
+                        open = parents[open];
+                        break;
+                    default:
+                        break;
                 }
             }
+        } finally {
+            reader.close();
         }
     }
 
-    @Override
-    public void leaveObject(String name) {
-        if (!ignoredObject.equals(name)) {
-            if (name != null) {
-                logger.trace("Leave object {}", name);
-                currentNode = (Element) currentNode.getParentNode();
-            } else {
-                currentNode = (Element) currentNode.getParentNode();
-                if (currentNode == null || currentNode.getAttribute(IS_ARRAY).equals("")) {
-                    throw new RuntimeException();
-                }
-                logger.trace("Leave array field");
+    private void index(Element element, int parent) {
+        int node = add(element.getNodeName(), parent);
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                index((Element) child, node);
             }
         }
+        if (nodeSize(node) == 0) {
+            texts[node] = element.getTextContent();
+        }
+        closeNode(node);
     }
 
-    @Override
-    public int enterArray(String name) {
-        if (name != null) {
-            currentNode = getChildNode(currentNode, name);
-        } else {
-            throw new RuntimeException();
-        }
-        
-        currentNode.setAttribute(IS_ARRAY, IS_ARRAY);
-        arrayStack.push(getChildNode(currentNode, currentNode.getNodeName()));
-
-        int n = 0;
-        NodeList nodeList = currentNode.getChildNodes();
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            if (nodeList.item(i).getNodeType() != Node.TEXT_NODE) {
-                n++;
-            }
-        }
-        logger.trace("Enter array {}, size={}", name, n);
-        return n;
+    private int add(String name, int parent) {
+        int node = addNode(name, parent);
+        parents[node] = parent;
+        return node;
     }
 
     @Override
-    public void leaveArray(String name) {
-        logger.trace("Leave array {}", name);
-        if (!IS_ARRAY.equals(currentNode.getAttribute(IS_ARRAY))) {
-            throw new RuntimeException();
-        }
-        currentNode.removeAttribute(IS_ARRAY);
-        currentNode = (Element) currentNode.getParentNode();
-        if (currentNode == null) {
-            throw new RuntimeException();
-        }
+    protected void grow(int length) {
+        texts = Arrays.copyOf(texts, length);
+        parents = Arrays.copyOf(parents, length);
     }
 
     @Override
-    public boolean booleanValue(String name) {
-        if (currentNode.getNodeType() == Node.ELEMENT_NODE) {
-            String value = getChildNode(getFromStack(currentNode), name).getTextContent().trim();
-            if ("true".equals(value)) {
-                return true;
-            } else if ("false".equals(value)) {
-                return false;
-            } else {
-                throw new RuntimeException();
-            }
-        }
-        throw new RuntimeException(String.valueOf(currentNode.getNodeType()));
+    protected boolean isObject(int node) {
+        return nodeSize(node) > 0;
     }
 
-    @Override
-    public String bitsValue(String name) {
-        if (currentNode.getNodeType() == Node.ELEMENT_NODE) {
-            return getChildNode(getFromStack(currentNode), name).getTextContent().trim();
-        }
-        throw new RuntimeException(String.valueOf(currentNode.getNodeType()));
+    /**
+     * @param name field name, null for the next element of an array
+     * @return text of the field of the current element, or of the next element if the current one is an array
+     */
+    private String getText(String name) {
+        String text = texts[valueNode(name)];
+        return text == null ? "" : text;
     }
 
     @Override
-    public String bytesValue(String name) {
-        if (currentNode.getNodeType() == Node.ELEMENT_NODE) {
-            return getChildNode(getFromStack(currentNode), name).getTextContent().replaceAll("[\\t\\n\\r ]", "");
+    public boolean booleanValue(String name) {
+        String value = getText(name).trim();
+        if ("true".equals(value)) {
+            return true;
+        } else if ("false".equals(value)) {
+            return false;
+        } else {
+            throw new EncodingException("Invalid boolean " + value + " for " + name);
         }
-        throw new RuntimeException(String.valueOf(currentNode.getNodeType()));
     }
 
     @Override
-    public BigInteger intValue(String name) {
-        if (currentNode.getNodeType() == Node.ELEMENT_NODE) {
-            return new BigInteger(getChildNode(getFromStack(currentNode), name).getTextContent().trim());
-        }
-        throw new RuntimeException(String.valueOf(currentNode.getNodeType()));
+    public String bitsValue(String name) {
+        return getText(name).trim();
     }
 
     @Override
-    public List<String> fieldsValue() {
-        List<String> stringList = new ArrayList<>();
-        NodeList nodeList = currentNode.getChildNodes();
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            if (nodeList.item(i).getNodeType() == Node.ELEMENT_NODE) {
-                stringList.add(nodeList.item(i).getNodeName());
+    public String bytesValue(String name) {
+        String text = getText(name);
+        StringBuilder value = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\t' && c != '\n' && c != '\r' && c != ' ') {
+                value.append(c);
             }
         }
-        return stringList;
+        return value.toString();
     }
 
     @Override
-    public String stringValue(String name) {
-        if (currentNode.getNodeType() == Node.ELEMENT_NODE) {
-            return getChildNode(getFromStack(currentNode), name).getTextContent().trim();
-        }
-        throw new RuntimeException(String.valueOf(currentNode.getNodeType()));
+    public BigInteger intValue(String name) {
+        return new BigInteger(getText(name).trim());
     }
 
     @Override
-    public String printCurrentnode() {
-        return currentNode.getTagName() + " : " + currentNode.getChildNodes().toString();
-    }
-
-    private Element getChildNode(Element node, String name) {
-        NodeList nodeList = node.getChildNodes();
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            if (nodeList.item(i).getNodeName().equals(name)) {
-                return (Element) nodeList.item(i);
-            }
-        }
-        throw new RuntimeException("Could not find element " + name + ", child of " + node.getNodeName());
-    }
-
-    private Element getFromStack(Element node) {
-        if (!"".equals(currentNode.getAttribute(IS_ARRAY))) {
-            Element node1 = arrayStack.pop();
-            Node node2 = node1.getNextSibling();
-            while (node2 != null && node2.getNodeType() != Node.ELEMENT_NODE) {
-                node2 = node2.getNextSibling();
-            }
-            if (node2 != null) {
-                arrayStack.push((Element) node2);
-            }
-            return node1;
-        }
-        return node;
+    public String stringValue(String name) {
+        return getText(name).trim();
     }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 Ericsson, https://www.ericsson.com/en
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ericsson.mts.asn1;
+
+import com.ericsson.mts.asn1.factory.FormatWriter;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.Closeable;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Write decoded values as XML text while they are decoded, with the elements of {@link XMLFormatWriter} but without
+ * building a document. Several messages can be decoded with the same instance : each one is written after the
+ * previous one, or as a child of a root element if one is given.
+ */
+public class XMLStreamFormatWriter implements FormatWriter, Closeable {
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private final XMLStreamWriter writer;
+    private final String rootElement;
+    //Names of the open elements, an element without name takes the name of its parent
+    private String[] names = new String[16];
+    private int depth = 0;
+
+    /**
+     * @param outputStream output of the UTF-8 XML text, not closed
+     * @param rootElement name of the element containing the messages, null to write the messages one after the other
+     */
+    public XMLStreamFormatWriter(OutputStream outputStream, String rootElement) {
+        this(create(outputStream), rootElement);
+    }
+
+    /**
+     * @param writer output of the XML text, not closed
+     * @param rootElement name of the element containing the messages, null to write the messages one after the other
+     */
+    public XMLStreamFormatWriter(Writer writer, String rootElement) {
+        this(create(writer), rootElement);
+    }
+
+    /**
+     * @param writer writer of the XML text
+     * @param rootElement name of the element containing the messages, null to write the messages one after the other
+     */
+    public XMLStreamFormatWriter(XMLStreamWriter writer, String rootElement) {
+        this.writer = writer;
+        this.rootElement = rootElement;
+        if (rootElement != null) {
+            try {
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeStartElement(rootElement);
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static XMLStreamWriter create(OutputStream outputStream) {
+        try {
+            return XML_OUTPUT_FACTORY.createXMLStreamWriter(outputStream, "UTF-8");
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static XMLStreamWriter create(Writer writer) {
+        try {
+            return XML_OUTPUT_FACTORY.createXMLStreamWriter(writer);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String elementName(String name) {
+        return name == null ? names[depth - 1] : name;
+    }
+
+    private void startElement(String name) {
+        String elementName = elementName(name);
+        try {
+            writer.writeStartElement(elementName);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+        if (depth == names.length) {
+            names = Arrays.copyOf(names, depth * 2);
+        }
+        names[depth++] = elementName;
+    }
+
+    private void endElement() {
+        depth--;
+        try {
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void valueElement(String name, String value) {
+        try {
+            writer.writeStartElement(elementName(name));
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void enterObject(String name) {
+        startElement(name);
+    }
+
+    @Override
+    public void leaveObject(String name) {
+        endElement();
+    }
+
+    @Override
+    public void enterArray(String name) {
+        startElement(name);
+    }
+
+    @Override
+    public void leaveArray(String name) {
+        endElement();
+    }
+
+    @Override
+    public void stringValue(String name, String value) {
+        valueElement(name, value);
+    }
+
+    @Override
+    public void booleanValue(String name, boolean value) {
+        valueElement(name, Boolean.toString(value));
+    }
+
+    @Override
+    public void intValue(String name, BigInteger value, String namedValue) {
+        valueElement(name, value.toString());
+    }
+
+    @Override
+    public void realValue(String name, BigDecimal value) {
+        valueElement(name, value.toString());
+    }
+
+    @Override
+    public void bytesValue(String name, byte[] value) {
+        valueElement(name, FormatWriter.bytesToHex(value));
+    }
+
+    @Override
+    public void bitsValue(String name, String value) {
+        valueElement(name, value);
+    }
+
+    @Override
+    public void nullValue(String name) {
+        try {
+            writer.writeEmptyElement(elementName(name));
+            writer.writeAttribute("isNull", "true");
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Write the buffered text to the output.
+     */
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * End the root element if there is one and flush, the output isn't closed.
+     */
+    @Override
+    public void close() {
+        try {
+            if (rootElement != null) {
+                writer.writeEndElement();
+                writer.writeEndDocument();
+            }
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}